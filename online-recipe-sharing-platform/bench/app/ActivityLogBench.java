@@ -0,0 +1,66 @@
+package app;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * {@link ActivityLog} append and reopen cost: appends entries in the
+ * consumer thread's batches of 256, then reopens the log and reads one
+ * user's recent entries, first with the {@code activity.idx} checkpoint and
+ * then without it, which scans every segment.
+ *
+ * <p>Arguments: entries (default 1000000), users (default 5000).
+ */
+public class ActivityLogBench {
+
+    private static final int BATCH = 256;
+
+    public static void main(String[] args) throws Exception {
+        int entries = Bench.intArg(args, 0, 1_000_000);
+        int users = Bench.intArg(args, 1, 5000);
+        Path dir = Bench.tempDir("activity");
+
+        Random random = new Random(1);
+        ActivityEntry[] batch = new ActivityEntry[BATCH];
+        ActivityEntry.Type[] types = ActivityEntry.Type.values();
+        long start = System.nanoTime();
+        try (ActivityLog log = ActivityLog.open(dir)) {
+            for (int i = 0; i < entries; i += BATCH) {
+                int count = Math.min(BATCH, entries - i);
+                for (int k = 0; k < count; k++) {
+                    batch[k] = new ActivityEntry("user" + random.nextInt(users), types[random.nextInt(types.length)],
+                            "Saved recipe " + random.nextInt(100_000), 1_600_000_000_000L + i + k);
+                }
+                log.append(batch, count);
+            }
+        }
+        long bytes = directorySize(dir);
+        System.out.printf("append %,d entries for %,d users: %.2f s, %d bytes per record%n",
+                entries, users, Bench.millisSince(start) / 1e3, bytes / entries);
+
+        System.out.printf("reopen and read 10 recent, with the index:    %.1f ms%n", reopenAndRead(dir));
+        Files.delete(dir.resolve("activity.idx"));
+        System.out.printf("reopen and read 10 recent, without the index: %.1f ms%n", reopenAndRead(dir));
+    }
+
+    private static double reopenAndRead(Path dir) throws Exception {
+        long start = System.nanoTime();
+        try (ActivityLog log = ActivityLog.open(dir)) {
+            List<ActivityEntry> recent = log.readRecent("user42", 10);
+            double millis = Bench.millisSince(start);
+            if (recent.size() != 10) {
+                throw new IllegalStateException("Read " + recent.size() + " entries");
+            }
+            return millis;
+        }
+    }
+
+    private static long directorySize(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package app;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Producer throughput of {@link ActivityRepository#add}, which offers to an
+ * {@link MpscQueue}, against the two designs it replaced: one list behind a
+ * global lock, and per-user rings with a lock each that format the time on
+ * the caller's thread. Adds/s is the total number of adds over the wall
+ * time from releasing the threads until the last one returned. For the
+ * queue, "drained" also waits for the consumer thread to store everything.
+ *
+ * <p>Arguments: adds per thread (default 500000), runs (default 3; the
+ * last run is reported). On a single CPU the thread counts show hand-off
+ * cost, not scaling.
+ */
+public class ActivityQueueBench {
+
+    private static final int[] THREADS = {1, 4, 8};
+    private static final int USERS_PER_THREAD = 50;
+
+    public static void main(String[] args) throws Exception {
+        int adds = Bench.intArg(args, 0, 500_000);
+        int runs = Bench.intArg(args, 1, 3);
+        String[] lines = new String[THREADS.length];
+        for (int run = 1; run <= runs; run++) {
+            for (int i = 0; i < THREADS.length; i++) {
+                int threads = THREADS[i];
+                double list = rate(threads, adds, GlobalList::new);
+                double rings = rate(threads, adds, LockedRings::new);
+                long[] drained = new long[1];
+                double queue = rate(threads, adds, () -> new Queued(drained));
+                double queueDrained = (double) threads * adds / drained[0] * 1e9;
+                lines[i] = String.format("  %-8d %-18s %-18s %-12s %s", threads, perSecond(list),
+                        perSecond(rings), perSecond(queue), perSecond(queueDrained));
+            }
+        }
+        System.out.printf("%,d adds per thread, run %d of %d%n", adds, runs, runs);
+        System.out.println("  threads  global list+lock   rings+formatter    mpsc queue   mpsc drained");
+        for (String line : lines) {
+            System.out.println(line);
+        }
+        System.out.printf("visibility of an entry added to an idle repository: %.2f ms median of 50%n", visibility());
+    }
+
+    private static double rate(int threads, int adds, Supplier<Sink> factory) throws Exception {
+        Sink sink = factory.get();
+        long nanos = Bench.timeThreads(threads, thread -> {
+            String[] users = new String[USERS_PER_THREAD];
+            for (int u = 0; u < users.length; u++) {
+                users[u] = "user" + thread + "-" + u;
+            }
+            for (int i = 0; i < adds; i++) {
+                sink.add(users[i % users.length], ActivityEntry.Type.FAVOURITE_TOGGLED, "Saved a recipe");
+            }
+        });
+        sink.close();
+        return (double) threads * adds / nanos * 1e9;
+    }
+
+    private static double visibility() throws InterruptedException {
+        ActivityRepository repository = new ActivityRepository();
+        double[] millis = new double[50];
+        for (int i = 0; i < millis.length; i++) {
+            // Long enough for the consumer to park
+            Thread.sleep(20);
+            long start = System.nanoTime();
+            repository.add("reader", ActivityEntry.Type.FAVOURITE_TOGGLED, "entry " + i);
+            while (repository.getRecentForUser("reader", 1).isEmpty()
+                    || !repository.getRecentForUser("reader", 1).get(0).getDescription().equals("entry " + i)) {
+                Thread.onSpinWait();
+            }
+            millis[i] = Bench.millisSince(start);
+        }
+        repository.close();
+        Arrays.sort(millis);
+        return millis[millis.length / 2];
+    }
+
+    private static String perSecond(double rate) {
+        return String.format("%.2fM/s", rate / 1e6);
+    }
+
+    private interface Sink {
+        void add(String username, ActivityEntry.Type type, String description);
+
+        default void close() {
+        }
+    }
+
+    private static final class Queued implements Sink {
+        private final ActivityRepository repository = new ActivityRepository();
+        private final long[] drainedNanos;
+        private final long start = System.nanoTime();
+
+        Queued(long[] drainedNanos) {
+            this.drainedNanos = drainedNanos;
+        }
+
+        public void add(String username, ActivityEntry.Type type, String description) {
+            repository.add(username, type, description);
+        }
+
+        public void close() {
+            // close() returns once the consumer has stored every queued entry
+            repository.close();
+            drainedNanos[0] = System.nanoTime() - start;
+        }
+    }
+
+    private static final class GlobalList implements Sink {
+        private final List<ActivityEntry> entries = new ArrayList<>();
+
+        public synchronized void add(String username, ActivityEntry.Type type, String description) {
+            entries.add(new ActivityEntry(username, type, description, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * The repository before the queue: a ring per user with its own lock,
+     * and a timestamp formatted on every add.
+     */
+    private static final class LockedRings implements Sink {
+        private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+        private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        public void add(String username, ActivityEntry.Type type, String description) {
+            String timestamp = LocalDateTime.now().format(formatter);
+            rings.computeIfAbsent(username.toLowerCase(), k -> new Ring())
+                    .add(new Object[] {username, type, description, timestamp});
+        }
+    }
+
+    private static final class Ring {
+        private final Object[] slots = new Object[ActivityRepository.DEFAULT_RETENTION_PER_USER];
+        private int next;
+
+        synchronized void add(Object entry) {
+            slots[next] = entry;
+            next = (next + 1) % slots.length;
+        }
+    }
+}
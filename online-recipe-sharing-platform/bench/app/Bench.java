@@ -0,0 +1,135 @@
+package app;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Shared pieces of the benchmarks in this directory: generated recipes,
+ * heap measurement, scratch directories and a multi-threaded timer. Each
+ * benchmark is a {@code main} whose optional arguments scale it up to the
+ * sizes quoted in the commit history; the defaults finish in a minute or
+ * two.
+ */
+final class Bench {
+
+    private static final String[] WORDS = {"chicken", "beef", "tomato", "garlic", "onion", "pasta", "rice",
+            "curry", "lemon", "basil", "butter", "flour", "sugar", "egg", "milk", "pepper", "salt", "cheese",
+            "potato", "carrot"};
+
+    private Bench() {
+    }
+
+    static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    /**
+     * A recipe with a numbered two-word title, about 150 characters of
+     * ingredients and 900 of instructions; one in ten is unapproved.
+     */
+    static Recipe recipe(Random random, int i) {
+        StringBuilder title = new StringBuilder();
+        title.append(word(random)).append(' ').append(word(random)).append(" dish ").append(i);
+        StringBuilder ingredients = new StringBuilder();
+        for (int k = 0; k < 12; k++) {
+            if (k > 0) {
+                ingredients.append(", ");
+            }
+            ingredients.append(random.nextInt(500)).append(" g ").append(word(random));
+        }
+        StringBuilder instructions = new StringBuilder();
+        for (int step = 1; instructions.length() < 900; step++) {
+            instructions.append(step).append(". Add the ").append(word(random)).append(" and stir for ")
+                    .append(random.nextInt(30)).append(" minutes over medium heat.\n");
+        }
+        return new Recipe(title.toString(), ingredients.toString(), instructions.toString(),
+                "user" + random.nextInt(1000), random.nextInt(10) > 0);
+    }
+
+    static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * Heap in use after a few full collections, in bytes.
+     */
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+
+    /**
+     * Runs {@code task} on {@code threads} threads released together and
+     * returns the wall-clock nanoseconds from the release until the last one
+     * finished. Throughput is work done over this time, not the sum of
+     * per-thread rates.
+     */
+    static long timeThreads(int threads, ThreadTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Throwable e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw new IllegalStateException("A benchmark thread failed", failure[0]);
+            }
+        }
+        return elapsed;
+    }
+
+    /**
+     * A new empty directory, removed with its contents when the JVM exits.
+     */
+    static Path tempDir(String prefix) throws IOException {
+        Path dir = Files.createTempDirectory(prefix);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(dir)));
+        return dir;
+    }
+
+    static void delete(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,100 @@
+package app;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@link RecipeImporter} throughput into a {@link PersistentStore}: a
+ * generated CSV file and the same rows as JSON Lines, each imported in
+ * batches, and the CSV file again with every row added on its own as the
+ * import did before {@link RecipeRepository#addRecipes}.
+ *
+ * <p>Arguments: rows (default 50000). Each row is about 1 KB.
+ */
+public class ImportBench {
+
+    public static void main(String[] args) throws Exception {
+        int rows = Bench.intArg(args, 0, 50_000);
+        Path files = Bench.tempDir("import");
+        Path csv = files.resolve("recipes.csv");
+        Path jsonl = files.resolve("recipes.jsonl");
+        write(rows, csv, jsonl);
+        System.out.printf("%,d rows: CSV %d MB, JSON Lines %d MB%n", rows,
+                Files.size(csv) >> 20, Files.size(jsonl) >> 20);
+
+        for (int round = 1; round <= 2; round++) {
+            // The first round also warms up the JIT
+            System.out.println("round " + round);
+            run("CSV, batched", csv, false);
+            run("JSON Lines, batched", jsonl, false);
+            run("CSV, one add per row", csv, true);
+        }
+    }
+
+    private static void run(String what, Path file, boolean oneByOne) throws Exception {
+        PersistentStore store = PersistentStore.open(Bench.tempDir("store"));
+        RecipeRepository repository = store.getRecipeStore();
+        RecipeStore target = oneByOne ? addingOneByOne(repository) : repository;
+        RecipeImporter.Result result = new RecipeImporter(target, "admin").importFile(file);
+        System.out.printf("  %-22s %s%n", what + ":", result);
+        if (result.getRejected() > 0) {
+            throw new IllegalStateException("Rejected rows: " + result.getErrors());
+        }
+        store.close();
+    }
+
+    /**
+     * The repository, except that addRecipes stores the batch one recipe at
+     * a time.
+     */
+    private static RecipeStore addingOneByOne(RecipeRepository repository) {
+        return (RecipeStore) Proxy.newProxyInstance(RecipeStore.class.getClassLoader(),
+                new Class<?>[] {RecipeStore.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("addRecipes")) {
+                        for (Object recipe : (List<?>) args[0]) {
+                            repository.addRecipe((Recipe) recipe);
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(repository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void write(int rows, Path csv, Path jsonl) throws IOException {
+        Random random = new Random(1);
+        try (BufferedWriter csvOut = Files.newBufferedWriter(csv, StandardCharsets.UTF_8);
+             BufferedWriter jsonOut = Files.newBufferedWriter(jsonl, StandardCharsets.UTF_8)) {
+            csvOut.write("title,ingredients,instructions,author,approved\n");
+            for (int i = 0; i < rows; i++) {
+                Recipe recipe = Bench.recipe(random, i);
+                csvOut.write(csvField(recipe.getTitle()) + "," + csvField(recipe.getIngredients()) + ","
+                        + csvField(recipe.getInstructions()) + "," + csvField(recipe.getAuthorUsername()) + ","
+                        + recipe.isApproved() + "\n");
+                jsonOut.write("{\"title\":" + jsonString(recipe.getTitle())
+                        + ",\"ingredients\":" + jsonString(recipe.getIngredients())
+                        + ",\"instructions\":" + jsonString(recipe.getInstructions())
+                        + ",\"author\":" + jsonString(recipe.getAuthorUsername())
+                        + ",\"approved\":" + recipe.isApproved() + "}\n");
+            }
+        }
+    }
+
+    private static String csvField(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonString(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
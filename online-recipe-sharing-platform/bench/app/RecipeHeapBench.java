@@ -0,0 +1,80 @@
+package app;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Heap used by a {@link RecipeRepository} of generated recipes, with their
+ * ingredients and instructions on the heap or in a {@link RecipeBodyStore},
+ * with and without the search indexes; then the cost of opening a recipe
+ * whose text is not cached, and of a few searches.
+ *
+ * <p>Arguments: recipes (default 100000). 300k recipes with the text on
+ * the heap need about -Xmx3g.
+ */
+public class RecipeHeapBench {
+
+    private static final String[] QUERIES = {"chicken", "tom", "e", "7", "ch", "q"};
+
+    public static void main(String[] args) throws Exception {
+        int recipes = Bench.intArg(args, 0, 100_000);
+        for (boolean indexed : new boolean[] {false, true}) {
+            for (boolean bodyStore : new boolean[] {false, true}) {
+                load(recipes, bodyStore, indexed);
+            }
+        }
+    }
+
+    private static void load(int recipes, boolean bodyStore, boolean indexed) throws Exception {
+        long before = Bench.usedHeap();
+        RecipeRepository repository = new RecipeRepository(false);
+        RecipeBodyStore bodies = null;
+        if (bodyStore) {
+            bodies = RecipeBodyStore.open(Bench.tempDir("bodies"));
+            repository.setBodyStore(bodies);
+        }
+        repository.setDeferIndexing(!indexed);
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < recipes; i++) {
+            repository.addRecipe(Bench.recipe(random, i));
+        }
+        double seconds = Bench.millisSince(start) / 1e3;
+        long heap = Bench.usedHeap() - before;
+        System.out.printf("%,d recipes, text %s, %s: heap %d MB, loaded in %.1f s%n", recipes,
+                bodyStore ? "in the body store" : "on the heap", indexed ? "indexed" : "not indexed",
+                heap >> 20, seconds);
+
+        if (bodyStore && !indexed) {
+            List<Recipe> all = repository.getAllRecipes();
+            Random pick = new Random(2);
+            int selections = 10_000;
+            long chars = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < selections; i++) {
+                Recipe recipe = all.get(pick.nextInt(all.size()));
+                chars += recipe.getIngredients().length() + recipe.getInstructions().length();
+            }
+            System.out.printf("  opening a random recipe: %.1f us (%,d chars read)%n",
+                    Bench.millisSince(start) * 1e3 / selections, chars);
+        }
+        if (indexed && bodyStore) {
+            for (String query : QUERIES) {
+                int runs = 20;
+                int hits = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    hits = repository.search(query, new ArrayList<>(), new ArrayList<>(), false, null, 50)
+                            .getRecipes().size();
+                }
+                System.out.printf("  search %-8s %.2f ms (%d hits on the first page)%n",
+                        "\"" + query + "\"", Bench.millisSince(start) / runs, hits);
+            }
+        }
+        if (bodies != null) {
+            bodies.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Build and update cost of {@link RecommendationIndex}: how long the
+ * background build takes, how long the caller's thread spends queueing
+ * favourite and rating changes, and how long the index takes to apply
+ * them. Ends by checking the updated index against a fresh build.
+ *
+ * <p>Arguments: users (default 3000), recipes (default 500), favourites
+ * per user (default 10), changes (default 2000).
+ */
+public class RecommendationBench {
+
+    public static void main(String[] args) {
+        int userCount = Bench.intArg(args, 0, 3000);
+        int recipeCount = Bench.intArg(args, 1, 500);
+        int favouritesPerUser = Bench.intArg(args, 2, 10);
+        int changes = Bench.intArg(args, 3, 2000);
+
+        RecipeRepository recipes = new RecipeRepository(false);
+        FavoriteRepository favorites = new FavoriteRepository();
+        ReviewRepository reviews = new ReviewRepository();
+        List<Recipe> all = new ArrayList<>();
+        for (int i = 0; i < recipeCount; i++) {
+            Recipe recipe = new Recipe("r" + i, "x", "y", "u", true);
+            recipes.addRecipe(recipe);
+            all.add(recipe);
+        }
+        List<User> users = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < userCount; i++) {
+            User user = User.withPasswordHash("u" + i, "x", User.Role.EXPLORER);
+            users.add(user);
+            for (int k = 0; k < favouritesPerUser; k++) {
+                favorites.addFavorite(user, all.get(random.nextInt(all.size())));
+            }
+            reviews.addReview(all.get(random.nextInt(all.size())),
+                    new Review(user.getUsername(), 1 + random.nextInt(5), "c"));
+        }
+        int favouriteCount = 0;
+        for (long[] ids : favorites.getFavoriteIdsByUser().values()) {
+            favouriteCount += ids.length;
+        }
+        System.out.printf("%,d users, %,d recipes, %,d favourites, %,d reviews%n",
+                userCount, recipeCount, favouriteCount, reviews.getTotalReviewCount());
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            RecommendationIndex index = new RecommendationIndex(recipes, favorites, reviews);
+            double constructor = Bench.millisSince(start);
+            // close() returns when the build is done
+            index.close();
+            System.out.printf("build: constructor returned in %.1f ms, built in %.0f ms%n",
+                    constructor, Bench.millisSince(start));
+        }
+
+        RecommendationIndex live = new RecommendationIndex(recipes, favorites, reviews);
+        long worstNanos = 0;
+        long queueNanos = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < changes; i++) {
+            User user = users.get(random.nextInt(users.size()));
+            Recipe recipe = all.get(random.nextInt(all.size()));
+            long call;
+            if (random.nextBoolean()) {
+                boolean favourite = random.nextBoolean();
+                if (favourite) {
+                    favorites.addFavorite(user, recipe);
+                } else {
+                    favorites.removeFavorite(user, recipe);
+                }
+                call = System.nanoTime();
+                live.favoriteChanged(user, recipe, favourite);
+            } else {
+                int stars = 1 + random.nextInt(5);
+                reviews.addReview(recipe, new Review(user.getUsername(), stars, "c"));
+                call = System.nanoTime();
+                live.ratingChanged(user, recipe, stars);
+            }
+            long spent = System.nanoTime() - call;
+            queueNanos += spent;
+            worstNanos = Math.max(worstNanos, spent);
+        }
+        live.close();
+        System.out.printf("%,d changes: %.1f us per call on the caller's thread (worst %.0f us), "
+                        + "build plus all changes applied in %.0f ms%n",
+                changes, queueNanos / 1e3 / changes, worstNanos / 1e3, Bench.millisSince(start));
+
+        RecommendationIndex fresh = new RecommendationIndex(recipes, favorites, reviews);
+        fresh.close();
+        int differing = 0;
+        for (Recipe recipe : all) {
+            if (!fresh.getRecommendations(recipe, 10).equals(live.getRecommendations(recipe, 10))) {
+                differing++;
+            }
+        }
+        System.out.printf("recipes whose recommendations differ from a fresh build: %d%n", differing);
+    }
+}
@@ -0,0 +1,94 @@
+package app;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Heap per stored review in {@link ReviewRepository} against the map of
+ * review lists it replaced, whose reviews each held a formatted date
+ * string, and of {@link ReviewColumns} on its own. All three get the same
+ * reviews: short comments, each its own String as if typed into the UI,
+ * over 10k recipes by 5k authors.
+ *
+ * <p>Arguments: number of reviews (default 1000000). Run with a heap large
+ * enough for the baseline, e.g. -Xmx2g.
+ */
+public class ReviewHeapBench {
+
+    private static final int RECIPES = 10_000;
+    private static final int AUTHORS = 5_000;
+    private static final String[] COMMENTS = {"Great!", "Too salty for me", "Lovely, will make again",
+            "ok", "", "Kids loved it", "Needed more garlic than listed", "Perfect weeknight dinner"};
+
+    public static void main(String[] args) {
+        int reviews = Bench.intArg(args, 0, 1_000_000);
+        String[] authors = new String[AUTHORS];
+        for (int i = 0; i < AUTHORS; i++) {
+            authors[i] = "user" + i;
+        }
+
+        long before = Bench.usedHeap();
+        ReviewColumns columns = new ReviewColumns();
+        Random random = new Random(1);
+        for (int i = 0; i < reviews; i++) {
+            columns.add(1 + random.nextInt(RECIPES), authors[random.nextInt(AUTHORS)], 1 + random.nextInt(5),
+                    comment(random), 1_600_000_000_000L + i * 1000L);
+        }
+        System.out.printf("ReviewColumns alone: %d bytes/review (%,d reviews)%n",
+                (Bench.usedHeap() - before) / columns.size(), columns.size());
+        columns = null;
+
+        // The repository adds per-recipe lists and totals, the leaderboard and
+        // the per-user row maps; a repeated (user, recipe) pair replaces a review
+        before = Bench.usedHeap();
+        ReviewRepository repository = new ReviewRepository();
+        random = new Random(1);
+        for (int i = 0; i < reviews; i++) {
+            repository.addReview(1 + random.nextInt(RECIPES), new Review(authors[random.nextInt(AUTHORS)],
+                    1 + random.nextInt(5), comment(random), 1_600_000_000_000L + i * 1000L));
+        }
+        System.out.printf("ReviewRepository: %d bytes/review (%,d reviews stored)%n",
+                (Bench.usedHeap() - before) / repository.getTotalReviewCount(), repository.getTotalReviewCount());
+        repository = null;
+
+        before = Bench.usedHeap();
+        Map<Long, List<OldReview>> lists = new HashMap<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        LocalDateTime now = LocalDateTime.now();
+        random = new Random(1);
+        for (int i = 0; i < reviews; i++) {
+            long recipeId = 1 + random.nextInt(RECIPES);
+            lists.computeIfAbsent(recipeId, k -> new ArrayList<>()).add(new OldReview(authors[random.nextInt(AUTHORS)],
+                    1 + random.nextInt(5), comment(random), now.plusSeconds(i).format(formatter)));
+        }
+        long baseline = Bench.usedHeap() - before;
+        System.out.printf("HashMap<Long, List<Review>> with String dates: %d bytes/review (%d recipes)%n",
+                baseline / reviews, lists.size());
+    }
+
+    private static String comment(Random random) {
+        return new String(COMMENTS[random.nextInt(COMMENTS.length)]);
+    }
+
+    /**
+     * A review as stored before the columns.
+     */
+    private static final class OldReview {
+        final String authorUsername;
+        final int rating;
+        final String comment;
+        final String createdAt;
+
+        OldReview(String authorUsername, int rating, String comment, String createdAt) {
+            this.authorUsername = authorUsername;
+            this.rating = rating;
+            this.comment = comment;
+            this.createdAt = createdAt;
+        }
+    }
+}
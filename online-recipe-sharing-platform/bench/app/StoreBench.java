@@ -0,0 +1,123 @@
+package app;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end cost of {@link PersistentStore} with generated recipes:
+ * adding them from several threads, each add journaled and synced, against
+ * the same adds to a {@link RecipeRepository} with no store; a checkpoint;
+ * then a cold open from the snapshot, the first page, a search issued
+ * straight after the open, and how long the background indexer takes.
+ * A second open also replays a log tail written after the checkpoint.
+ *
+ * <p>Arguments: recipes (default 100000), threads (default 8). 1M recipes
+ * needs about -Xmx4g.
+ */
+public class StoreBench {
+
+    public static void main(String[] args) throws Exception {
+        int recipes = Bench.intArg(args, 0, 100_000);
+        int threads = Bench.intArg(args, 1, 8);
+        List<List<Recipe>> work = generate(recipes, threads, 1);
+
+        long start = System.nanoTime();
+        RecipeRepository memory = new RecipeRepository(false);
+        for (List<Recipe> part : work) {
+            for (Recipe recipe : part) {
+                memory.addRecipe(recipe);
+            }
+        }
+        System.out.printf("%,d recipes into a RecipeRepository with no store: %.1f s%n",
+                recipes, Bench.millisSince(start) / 1e3);
+        memory = null;
+
+        Path dir = Bench.tempDir("store");
+        work = generate(recipes, threads, 1);
+        PersistentStore store = PersistentStore.open(dir);
+        RecipeRepository repository = store.getRecipeStore();
+        List<List<Recipe>> adds = work;
+        long nanos = Bench.timeThreads(threads, thread -> {
+            for (Recipe recipe : adds.get(thread)) {
+                repository.addRecipe(recipe);
+            }
+        });
+        System.out.printf("%,d recipes added by %d threads through the store: %.1f s (%,.0f/s)%n",
+                recipes, threads, nanos / 1e9, recipes / (nanos / 1e9));
+        adds.clear();
+
+        start = System.nanoTime();
+        store.checkpoint();
+        System.out.printf("checkpoint: %.1f s, snapshot %d MB%n",
+                Bench.millisSince(start) / 1e3, sizeOf(dir, "snapshot-") >> 20);
+        store.close();
+        store = null;
+
+        open(dir, "from the snapshot");
+
+        // Log a quarter as many recipes again, then copy the files as a crash
+        // would leave them, before close() folds the log into a snapshot
+        store = PersistentStore.open(dir);
+        for (Recipe recipe : generate(recipes / 4, 1, 2).get(0)) {
+            store.getRecipeStore().addRecipe(recipe);
+        }
+        Path crashed = Bench.tempDir("crashed");
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, crashed.resolve(file.getFileName()));
+            }
+        }
+        store.close();
+        System.out.printf("log tail: %d MB%n", sizeOf(crashed, "wal-") >> 20);
+        open(crashed, "from the snapshot and a log tail");
+    }
+
+    private static void open(Path dir, String what) throws Exception {
+        long before = Bench.usedHeap();
+        long start = System.nanoTime();
+        PersistentStore store = PersistentStore.open(dir);
+        double opened = Bench.millisSince(start);
+        RecipeRepository repository = store.getRecipeStore();
+        repository.getPage(null, 50, true);
+        double firstPage = Bench.millisSince(start);
+        long searchStart = System.nanoTime();
+        int found = repository.search("chicken", false, null, 50).getRecipes().size();
+        double search = Bench.millisSince(searchStart);
+        while (repository.countUnindexed() > 0) {
+            Thread.sleep(10);
+        }
+        double indexed = Bench.millisSince(start);
+        searchStart = System.nanoTime();
+        int foundIndexed = repository.search("chicken", false, null, 50).getRecipes().size();
+        double searchIndexed = Bench.millisSince(searchStart);
+        System.out.printf("open %s: %,d recipes, opened in %.1f s, first page at %.1f s%n",
+                what, repository.count(), opened / 1e3, firstPage / 1e3);
+        System.out.printf("  search right after open: %.1f ms, %d hits; fully indexed at %.1f s; "
+                + "search then: %.1f ms, %d hits; heap %d MB%n", search, found, indexed / 1e3, searchIndexed,
+                foundIndexed, (Bench.usedHeap() - before) >> 20);
+        store.close();
+    }
+
+    private static List<List<Recipe>> generate(int recipes, int parts, long seed) {
+        Random random = new Random(seed);
+        List<List<Recipe>> result = new ArrayList<>();
+        for (int p = 0; p < parts; p++) {
+            result.add(new ArrayList<>());
+        }
+        for (int i = 0; i < recipes; i++) {
+            result.get(i % parts).add(Bench.recipe(random, i));
+        }
+        return result;
+    }
+
+    private static long sizeOf(Path dir, String prefix) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package app;
+
+import java.nio.file.Path;
+
+/**
+ * Durable commit rate of {@link WriteAheadLog}: each thread appends a
+ * 200-byte record and waits for its sync, as a repository write does, so
+ * concurrent writers share fsyncs through group commit.
+ *
+ * <p>Arguments: records per run (default 20000), split evenly across the
+ * threads. The numbers depend on the disk's fsync latency.
+ */
+public class WalBench {
+
+    private static final int[] THREADS = {1, 8, 64};
+    private static final int RECORD_BYTES = 200;
+
+    public static void main(String[] args) throws Exception {
+        int records = Bench.intArg(args, 0, 20_000);
+        Path dir = Bench.tempDir("wal");
+        long generation = 1;
+        for (int threads : THREADS) {
+            int perThread = records / threads;
+            WriteAheadLog log = new WriteAheadLog(dir, generation++);
+            long nanos = Bench.timeThreads(threads, thread -> {
+                byte[] record = new byte[RECORD_BYTES];
+                for (int i = 0; i < perThread; i++) {
+                    log.sync(log.append(record));
+                }
+            });
+            log.close();
+            System.out.printf("%2d threads: %,.0f commits/s%n", threads, (double) perThread * threads / nanos * 1e9);
+        }
+    }
+}
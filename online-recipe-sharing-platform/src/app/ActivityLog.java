@@ -0,0 +1,493 @@
+package app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only activity log on disk, split into segment files.
+ *
+ * <p>A segment starts with a 16-byte header (magic, version, base position)
+ * followed by records. Each record is a fixed 8-byte header holding the
+ * payload length and its CRC-32, then a varint-encoded payload: the log
+ * position of the same user's previous record, the timestamp, the type, the
+ * username and the description. Positions are global byte offsets, so a
+ * segment's file name is the position of its first byte.
+ *
+ * <p>Per-user back-links make the in-memory index sparse: it only holds the
+ * latest position of each user, and reading someone's recent activity
+ * follows the links, decoding just those records. Full segments are
+ * memory-mapped once; the active segment is read through its channel, so it
+ * is never mapped while it grows or is truncated. The index is checkpointed
+ * to {@code activity.idx} on rollover and close; on open only the records
+ * written after the checkpoint are scanned.
+ * Once there are more than {@code maxSegments} segments the oldest is
+ * deleted, and links into it end the walk. A segment whose file cannot be
+ * deleted yet (Windows refuses while a mapping is still alive) is retried
+ * on later rollovers and on the next open.
+ *
+ * <p>Writes come from one thread at a time; all methods are synchronized.
+ */
+public class ActivityLog implements AutoCloseable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 8L * 1024 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    private static final int SEGMENT_MAGIC = 0x41435431; // "ACT1"
+    private static final int INDEX_MAGIC = 0x41435849;   // "ACXI"
+    private static final short VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 1 << 20;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "activity.idx";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // Lowercased username -> position of that user's newest record
+    private final Map<String, Long> latestByUser = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(64 * 1024);
+    private Segment active;
+    // Dropped segments whose files could not be deleted yet
+    private final List<Path> pendingDeletes = new ArrayList<>();
+    private boolean closed;
+
+    private ActivityLog(Path directory, long segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(4096, segmentBytes);
+        this.maxSegments = Math.max(1, maxSegments);
+    }
+
+    public static ActivityLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public static ActivityLog open(Path directory, long segmentBytes, int maxSegments) throws IOException {
+        Files.createDirectories(directory);
+        ActivityLog log = new ActivityLog(directory, segmentBytes, maxSegments);
+        log.load();
+        return log;
+    }
+
+    /**
+     * Appends the first {@code count} entries of {@code entries} in order.
+     * The bytes reach the OS page cache; a segment is forced to disk when
+     * it is rolled over and when the log is closed.
+     */
+    public synchronized void append(ActivityEntry[] entries, int count) throws IOException {
+        ensureOpen();
+        writeBuffer.clear();
+        for (int i = 0; i < count; i++) {
+            ActivityEntry entry = entries[i];
+            String key = userKey(entry.getUsername());
+            byte[] user = bytes(entry.getUsername());
+            byte[] description = bytes(entry.getDescription());
+            Long previous = latestByUser.get(key);
+            int payloadBytes = varLongSize(previous == null ? 0 : previous + 1) + varLongSize(entry.getCreatedAt())
+                    + varLongSize(entry.getType().ordinal())
+                    + varLongSize(user.length) + user.length + varLongSize(description.length) + description.length;
+            int recordBytes = RECORD_HEADER_BYTES + payloadBytes;
+            if (active.size + writeBuffer.position() + recordBytes > segmentBytes
+                    && active.size + writeBuffer.position() > SEGMENT_HEADER_BYTES) {
+                flushBuffer();
+                roll();
+            }
+            ensureBufferCapacity(recordBytes);
+            long position = active.base + active.size + writeBuffer.position();
+            int payloadStart = writeBuffer.position() + RECORD_HEADER_BYTES;
+            writeBuffer.position(payloadStart);
+            putVarLong(writeBuffer, previous == null ? 0 : previous + 1);
+            putVarLong(writeBuffer, entry.getCreatedAt());
+            putVarLong(writeBuffer, entry.getType().ordinal());
+            putVarLong(writeBuffer, user.length);
+            writeBuffer.put(user);
+            putVarLong(writeBuffer, description.length);
+            writeBuffer.put(description);
+            crc.reset();
+            crc.update(writeBuffer.array(), payloadStart, payloadBytes);
+            writeBuffer.putInt(payloadStart - RECORD_HEADER_BYTES, payloadBytes);
+            writeBuffer.putInt(payloadStart - RECORD_HEADER_BYTES + 4, (int) crc.getValue());
+            latestByUser.put(key, position);
+        }
+        flushBuffer();
+    }
+
+    /**
+     * The user's newest {@code max} records still retained, oldest first.
+     */
+    public synchronized List<ActivityEntry> readRecent(String username, int max) throws IOException {
+        List<ActivityEntry> result = new ArrayList<>();
+        if (closed || username == null) {
+            return result;
+        }
+        Long latest = latestByUser.get(userKey(username));
+        long position = latest == null ? -1 : latest;
+        long oldest = segments.firstKey();
+        while (position >= oldest && result.size() < max) {
+            Segment segment = segments.floorEntry(position).getValue();
+            ByteBuffer buffer = readRecord(segment, (int) (position - segment.base));
+            if (buffer == null) {
+                break;
+            }
+            long previous = getVarLong(buffer) - 1;
+            long createdAt = getVarLong(buffer);
+            ActivityEntry.Type type = ActivityEntry.Type.values()[(int) getVarLong(buffer)];
+            String user = getString(buffer);
+            result.add(new ActivityEntry(user, type, getString(buffer), createdAt));
+            position = previous;
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        active.channel.force(false);
+        writeIndex();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        closed = true;
+    }
+
+    private void load() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                files.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        if (files.isEmpty()) {
+            active = createSegment(0);
+            return;
+        }
+        // Left over from a rollover whose delete failed; nothing is mapped yet
+        while (files.size() > maxSegments) {
+            delete(files.pollFirstEntry().getValue());
+        }
+        for (Map.Entry<Long, Path> file : files.entrySet()) {
+            boolean last = file.getKey().equals(files.lastKey());
+            Segment segment = new Segment(file.getKey(), file.getValue(), last);
+            segments.put(file.getKey(), segment);
+            segment.readHeader();
+        }
+        active = segments.lastEntry().getValue();
+
+        long scanFrom = Math.max(readIndex(), segments.firstKey());
+        for (Segment segment : segments.tailMap(segments.floorKey(scanFrom), true).values()) {
+            scan(segment, Math.max(SEGMENT_HEADER_BYTES, scanFrom - segment.base));
+        }
+    }
+
+    /**
+     * Reads records from {@code offset} to the end of the segment, updating
+     * each user's latest position. A torn or corrupt tail on the active
+     * segment is cut off, since nothing after it can be trusted.
+     */
+    private void scan(Segment segment, long offset) throws IOException {
+        int position = (int) offset;
+        while (position < segment.size) {
+            ByteBuffer buffer = readRecord(segment, position);
+            if (buffer == null) {
+                if (segment == active) {
+                    // The active segment is never mapped, so this works on every platform
+                    segment.channel.truncate(position);
+                    segment.size = position;
+                }
+                return;
+            }
+            int length = buffer.getInt(buffer.position() - RECORD_HEADER_BYTES);
+            getVarLong(buffer); // previous
+            getVarLong(buffer); // created at
+            getVarLong(buffer); // type
+            latestByUser.put(userKey(getString(buffer)), segment.base + position);
+            position += RECORD_HEADER_BYTES + length;
+        }
+    }
+
+    /**
+     * The record at {@code offset} in the segment, positioned at its payload,
+     * or null if there is no intact record there. Full segments are read
+     * through their mapping; the active one through its channel.
+     */
+    private ByteBuffer readRecord(Segment segment, int offset) throws IOException {
+        if (segment != active) {
+            ByteBuffer buffer = segment.map();
+            if (!validRecord(buffer, offset, segment.size)) {
+                return null;
+            }
+            return buffer.position(offset + RECORD_HEADER_BYTES);
+        }
+        if (offset + RECORD_HEADER_BYTES > segment.size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        segment.readFully(header, offset);
+        int length = header.getInt(0);
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES || offset + RECORD_HEADER_BYTES + length > segment.size) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+        segment.readFully(record, offset);
+        if (!validRecord(record, 0, record.capacity())) {
+            return null;
+        }
+        return record.position(RECORD_HEADER_BYTES);
+    }
+
+    private boolean validRecord(ByteBuffer buffer, int offset, long limit) {
+        if (offset + RECORD_HEADER_BYTES > limit) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES || offset + RECORD_HEADER_BYTES + length > limit) {
+            return false;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(offset + RECORD_HEADER_BYTES + length).position(offset + RECORD_HEADER_BYTES);
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + 4);
+    }
+
+    private void roll() throws IOException {
+        active.channel.force(false);
+        active = createSegment(active.base + active.size);
+        for (Path file : new ArrayList<>(pendingDeletes)) {
+            pendingDeletes.remove(file);
+            delete(file);
+        }
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            oldest.mapped = null;
+            oldest.channel.close();
+            delete(oldest.file);
+        }
+        long oldestBase = segments.firstKey();
+        latestByUser.values().removeIf(position -> position < oldestBase);
+        writeIndex();
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            pendingDeletes.add(file);
+        }
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+        Segment segment = new Segment(base, file, true);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+        header.putInt(SEGMENT_MAGIC).putShort(VERSION).putShort((short) 0).putLong(base).flip();
+        segment.channel.truncate(0);
+        segment.channel.write(header, 0);
+        segment.size = SEGMENT_HEADER_BYTES;
+        segments.put(base, segment);
+        return segment;
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            active.size += active.channel.write(writeBuffer, active.size);
+        }
+        writeBuffer.clear();
+    }
+
+    private void ensureBufferCapacity(int recordBytes) {
+        if (writeBuffer.remaining() < recordBytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + recordBytes));
+            writeBuffer.flip();
+            larger.put(writeBuffer);
+            writeBuffer = larger;
+        }
+    }
+
+    /**
+     * Index file layout: magic, checkpoint position, entry count, then
+     * (username, latest position) pairs, with a CRC-32 of everything before it.
+     */
+    private void writeIndex() throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(64 + latestByUser.size() * 32);
+        out.putInt(INDEX_MAGIC);
+        out.putLong(active.base + active.size);
+        out.putInt(latestByUser.size());
+        for (Map.Entry<String, Long> e : latestByUser.entrySet()) {
+            byte[] user = bytes(e.getKey());
+            if (out.remaining() < user.length + 32) {
+                ByteBuffer larger = ByteBuffer.allocate(out.capacity() * 2 + user.length);
+                out.flip();
+                out = larger.put(out);
+            }
+            putVarLong(out, user.length);
+            out.put(user);
+            putVarLong(out, e.getValue());
+        }
+        crc.reset();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+        Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the checkpointed index and returns the position it covers up to,
+     * or 0 when there is no usable index and everything must be scanned.
+     */
+    private long readIndex() throws IOException {
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < 20 || in.getInt(0) != INDEX_MAGIC) {
+            return 0;
+        }
+        crc.reset();
+        crc.update(in.array(), 0, in.limit() - 4);
+        if ((int) crc.getValue() != in.getInt(in.limit() - 4)) {
+            return 0;
+        }
+        in.position(4);
+        long checkpoint = in.getLong();
+        int count = in.getInt();
+        long oldest = segments.firstKey();
+        for (int i = 0; i < count; i++) {
+            String user = getString(in);
+            long position = getVarLong(in);
+            if (position >= oldest) {
+                latestByUser.put(user, position);
+            }
+        }
+        if (checkpoint > active.base + active.size) {
+            // Index is ahead of the data (segment lost or truncated): rebuild from scratch
+            latestByUser.clear();
+            return 0;
+        }
+        return checkpoint;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Activity log is closed");
+        }
+    }
+
+    private static String userKey(String username) {
+        return username == null ? "" : username.toLowerCase();
+    }
+
+    private static byte[] bytes(String s) {
+        return s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] data = new byte[(int) getVarLong(buffer)];
+        buffer.get(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+        return value;
+    }
+
+    private static final class Segment {
+        private final long base;
+        private final Path file;
+        private final FileChannel channel;
+        private long size;
+        private MappedByteBuffer mapped;
+
+        Segment(long base, Path file, boolean writable) throws IOException {
+            this.base = base;
+            this.file = file;
+            this.channel = writable
+                    ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        void readHeader() throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+            channel.read(header, 0);
+            if (size < SEGMENT_HEADER_BYTES || header.getInt(0) != SEGMENT_MAGIC || header.getLong(8) != base) {
+                throw new IOException("Not an activity log segment: " + file);
+            }
+        }
+
+        /**
+         * Read-only view of a full segment's bytes, mapped on first use.
+         */
+        ByteBuffer map() throws IOException {
+            if (mapped == null) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return mapped.duplicate();
+        }
+
+        void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+        }
+    }
+}
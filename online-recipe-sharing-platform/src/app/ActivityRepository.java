@@ -1,33 +1,185 @@
-package app;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-public class ActivityRepository {
-
-    private final List<ActivityEntry> entries = new ArrayList<>();
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-    public synchronized void add(String username, ActivityEntry.Type type, String description) {
-        String ts = LocalDateTime.now().format(formatter);
-        entries.add(new ActivityEntry(username, type, description, ts));
-    }
-
-    public synchronized List<ActivityEntry> getRecentForUser(String username, int max) {
-        if (username == null) {
-            return Collections.emptyList();
-        }
-        List<ActivityEntry> result = new ArrayList<>();
-        for (int i = entries.size() - 1; i >= 0 && result.size() < max; i--) {
-            ActivityEntry e = entries.get(i);
-            if (username.equalsIgnoreCase(e.getUsername())) {
-                result.add(e);
-            }
-        }
-        Collections.reverse(result);
-        return result;
-    }
-}
\ No newline at end of file
+package app;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Recent activity, kept per user in fixed-size ring buffers. Each user's
+ * buffer has its own lock, so reading one user's history never waits on
+ * another user's writes, and a full buffer overwrites its oldest entry.
+ *
+ * <p>Logging is asynchronous: {@link #add} stamps the entry and offers it to
+ * a lock-free queue, and a background thread moves queued entries into the
+ * ring buffers in batches. An entry therefore shows up in
+ * {@link #getRecentForUser} shortly after it was added, not immediately.
+ *
+ * <p>With an {@link ActivityLog} the same thread appends each batch to disk
+ * before it reaches the rings, and reads that need more history than this
+ * session has produced go to the log.
+ */
+public class ActivityRepository {
+
+    public static final int DEFAULT_RETENTION_PER_USER = 200;
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ConcurrentMap<String, ActivityRing> entriesByUser = new ConcurrentHashMap<>();
+    private final int retentionPerUser;
+    private final ActivityLog log;
+    private final MpscQueue<ActivityEntry> pending = new MpscQueue<>();
+    private final Thread consumer;
+    private volatile boolean consumerIdle;
+    private volatile boolean closed;
+
+    public ActivityRepository() {
+        this(DEFAULT_RETENTION_PER_USER, null);
+    }
+
+    public ActivityRepository(ActivityLog log) {
+        this(DEFAULT_RETENTION_PER_USER, log);
+    }
+
+    public ActivityRepository(int retentionPerUser, ActivityLog log) {
+        this.retentionPerUser = Math.max(1, retentionPerUser);
+        this.log = log;
+        consumer = new Thread(this::drainLoop, "activity-log");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public void add(String username, ActivityEntry.Type type, String description) {
+        if (username == null || closed) {
+            return;
+        }
+        pending.offer(new ActivityEntry(username, type, description, System.currentTimeMillis()));
+        if (consumerIdle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * The user's last {@code max} entries, oldest first.
+     */
+    public List<ActivityEntry> getRecentForUser(String username, int max) {
+        if (username == null) {
+            return Collections.emptyList();
+        }
+        ActivityRing ring = entriesByUser.get(userKey(username));
+        List<ActivityEntry> recent = ring == null ? new ArrayList<>() : ring.latest(max);
+        if (recent.size() < max && log != null) {
+            // Everything in the rings is already in the log, so the log alone is complete
+            try {
+                return log.readRecent(username, max);
+            } catch (IOException e) {
+                System.err.println("Could not read activity log: " + e.getMessage());
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Stops the background thread after it has stored everything queued so
+     * far, and closes the log. Later calls to {@link #add} are ignored.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Could not close activity log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drainLoop() {
+        ActivityEntry[] batch = new ActivityEntry[BATCH_SIZE];
+        while (true) {
+            boolean stopping = closed;
+            int n = 0;
+            ActivityEntry entry;
+            while (n < batch.length && (entry = pending.poll()) != null) {
+                batch[n++] = entry;
+            }
+            if (n > 0) {
+                store(batch, n);
+                continue;
+            }
+            if (stopping && pending.isEmpty()) {
+                return;
+            }
+            // Announce the park before the last emptiness check, so a producer
+            // either sees the flag and unparks us or we see its entry
+            consumerIdle = true;
+            if (pending.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+            consumerIdle = false;
+        }
+    }
+
+    private void store(ActivityEntry[] batch, int n) {
+        if (log != null) {
+            try {
+                log.append(batch, n);
+            } catch (IOException e) {
+                System.err.println("Could not write activity log: " + e.getMessage());
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            ActivityEntry entry = batch[i];
+            batch[i] = null;
+            entriesByUser.computeIfAbsent(userKey(entry.getUsername()), k -> new ActivityRing(retentionPerUser))
+                    .add(entry);
+        }
+    }
+
+    private static String userKey(String username) {
+        return username.toLowerCase();
+    }
+
+    private static final class ActivityRing {
+        private final ActivityEntry[] slots;
+        private int next;
+        private int size;
+
+        ActivityRing(int capacity) {
+            slots = new ActivityEntry[capacity];
+        }
+
+        synchronized void add(ActivityEntry entry) {
+            slots[next] = entry;
+            next = (next + 1) % slots.length;
+            if (size < slots.length) {
+                size++;
+            }
+        }
+
+        synchronized List<ActivityEntry> latest(int max) {
+            int n = Math.max(0, Math.min(max, size));
+            List<ActivityEntry> result = new ArrayList<>(n);
+            int start = next - n + slots.length;
+            for (int i = 0; i < n; i++) {
+                result.add(slots[(start + i) % slots.length]);
+            }
+            return result;
+        }
+    }
+}
@@ -1,248 +1,385 @@
-package app;
-
-import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import java.awt.*;
-
-public class AdminPanel extends JPanel {
-
-    private final RecipeRepository recipeRepository;
-    private final ActivityRepository activityRepository;
-
-    private DefaultListModel<Recipe> recipeListModel;
-    private JList<Recipe> recipeList;
-    private JTextField titleField;
-    private JTextArea ingredientsArea;
-    private JTextArea instructionsArea;
-    private JCheckBox approvedCheckBox;
-
-    public AdminPanel(RecipeRepository recipeRepository, ActivityRepository activityRepository) {
-        super(new BorderLayout());
-        this.recipeRepository = recipeRepository;
-        this.activityRepository = activityRepository;
-
-        JTabbedPane tabs = new JTabbedPane();
-        tabs.addTab("Recipes", createRecipesPanel());
-        tabs.addTab("Settings", createSettingsPanel());
-
-        add(tabs, BorderLayout.CENTER);
-    }
-
-    private JPanel createRecipesPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
-
-        recipeListModel = new DefaultListModel<>();
-        recipeList = new JList<>(recipeListModel);
-        recipeList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-
-        JPanel left = new JPanel(new BorderLayout());
-        JLabel listLabel = new JLabel("All Recipes");
-        AppTheme.styleHeading(listLabel);
-        left.add(listLabel, BorderLayout.NORTH);
-        left.add(new JScrollPane(recipeList), BorderLayout.CENTER);
-        left.setPreferredSize(new Dimension(260, 0));
-
-        JPanel right = new JPanel();
-        right.setLayout(new BoxLayout(right, BoxLayout.Y_AXIS));
-
-        titleField = new JTextField();
-        ingredientsArea = new JTextArea(4, 20);
-        ingredientsArea.setLineWrap(true);
-        ingredientsArea.setWrapStyleWord(true);
-        instructionsArea = new JTextArea(6, 20);
-        instructionsArea.setLineWrap(true);
-        instructionsArea.setWrapStyleWord(true);
-        approvedCheckBox = new JCheckBox("Approved");
-
-        JPanel titlePanel = new JPanel(new BorderLayout());
-        JLabel titleLabel = new JLabel("Title");
-        AppTheme.styleHeading(titleLabel);
-        titlePanel.add(titleLabel, BorderLayout.NORTH);
-        titlePanel.add(titleField, BorderLayout.CENTER);
-        titlePanel.setBorder(new EmptyBorder(0, 10, 10, 10));
-
-        JPanel ingredientsPanel = new JPanel(new BorderLayout());
-        JLabel ingredientsLabel = new JLabel("Ingredients");
-        AppTheme.styleHeading(ingredientsLabel);
-        ingredientsPanel.add(ingredientsLabel, BorderLayout.NORTH);
-        ingredientsPanel.add(new JScrollPane(ingredientsArea), BorderLayout.CENTER);
-        ingredientsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
-
-        JPanel instructionsPanel = new JPanel(new BorderLayout());
-        JLabel instructionsLabel = new JLabel("Instructions");
-        AppTheme.styleHeading(instructionsLabel);
-        instructionsPanel.add(instructionsLabel, BorderLayout.NORTH);
-        instructionsPanel.add(new JScrollPane(instructionsArea), BorderLayout.CENTER);
-        instructionsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
-
-        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        statusPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        statusPanel.add(approvedCheckBox);
-
-        JButton newButton = new JButton("New");
-        newButton.setToolTipText("Clear form to create a new recipe as admin");
-        newButton.addActionListener(e -> clearForm());
-        JButton saveButton = new JButton("Save");
-        saveButton.setToolTipText("Save recipe changes (including approval)");
-        saveButton.addActionListener(e -> saveRecipe());
-        JButton deleteButton = new JButton("Delete");
-        deleteButton.setToolTipText("Delete the selected recipe");
-        deleteButton.addActionListener(e -> deleteRecipe());
-
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        buttonPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        buttonPanel.add(newButton);
-        buttonPanel.add(saveButton);
-        buttonPanel.add(deleteButton);
-
-        right.add(titlePanel);
-        right.add(ingredientsPanel);
-        right.add(instructionsPanel);
-        right.add(statusPanel);
-        right.add(buttonPanel);
-
-        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, left, right);
-        splitPane.setResizeWeight(0.35);
-
-        panel.add(splitPane, BorderLayout.CENTER);
-
-        loadRecipes();
-
-        recipeList.addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
-                onRecipeSelected();
-            }
-        });
-
-        return panel;
-    }
-
-    private JPanel createSettingsPanel() {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
-
-        JLabel heading = new JLabel("Application Settings");
-        AppTheme.styleHeading(heading);
-        heading.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JCheckBox maintenanceMode = new JCheckBox("Maintenance mode (demo only)");
-        maintenanceMode.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JCheckBox darkMode = new JCheckBox("Enable dark accent theme (demo only)");
-        darkMode.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JButton saveButton = new JButton("Save Settings");
-        saveButton.setAlignmentX(Component.LEFT_ALIGNMENT);
-        saveButton.addActionListener(e -> JOptionPane.showMessageDialog(panel,
-                "Settings saved (not persisted in this demo).",
-                "Settings",
-                JOptionPane.INFORMATION_MESSAGE));
-
-        panel.add(heading);
-        panel.add(Box.createVerticalStrut(10));
-        panel.add(maintenanceMode);
-        panel.add(darkMode);
-        panel.add(Box.createVerticalStrut(10));
-        panel.add(saveButton);
-
-        return panel;
-    }
-
-    private void loadRecipes() {
-        recipeListModel.clear();
-        for (Recipe recipe : recipeRepository.getAllRecipes()) {
-            recipeListModel.addElement(recipe);
-        }
-    }
-
-    private void onRecipeSelected() {
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            clearForm();
-            return;
-        }
-        titleField.setText(selected.getTitle());
-        ingredientsArea.setText(selected.getIngredients());
-        instructionsArea.setText(selected.getInstructions());
-        approvedCheckBox.setSelected(selected.isApproved());
-    }
-
-    private void clearForm() {
-        recipeList.clearSelection();
-        titleField.setText("");
-        ingredientsArea.setText("");
-        instructionsArea.setText("");
-        approvedCheckBox.setSelected(false);
-    }
-
-    private void saveRecipe() {
-        String title = titleField.getText().trim();
-        String ingredients = ingredientsArea.getText().trim();
-        String instructions = instructionsArea.getText().trim();
-
-        if (title.isEmpty() || ingredients.isEmpty() || instructions.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                    "Please fill in title, ingredients, and instructions.",
-                    "Missing information",
-                    JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            // New recipe created by admin and approved by default flag
-            Recipe recipe = new Recipe(title, ingredients, instructions, "admin", approvedCheckBox.isSelected());
-            recipeRepository.addRecipe(recipe);
-            recipeListModel.addElement(recipe);
-            recipeList.setSelectedValue(recipe, true);
-            if (activityRepository != null) {
-                activityRepository.add("admin", ActivityEntry.Type.RECIPE_CREATED,
-                        "Admin created recipe: " + title);
-            }
-        } else {
-            selected.setTitle(title);
-            selected.setIngredients(ingredients);
-            selected.setInstructions(instructions);
-            selected.setApproved(approvedCheckBox.isSelected());
-            recipeList.repaint();
-            if (activityRepository != null) {
-                activityRepository.add("admin", ActivityEntry.Type.RECIPE_UPDATED,
-                        "Admin updated recipe: " + title);
-            }
-        }
-
-        JOptionPane.showMessageDialog(this,
-                "Recipe saved.",
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    private void deleteRecipe() {
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            JOptionPane.showMessageDialog(this,
-                    "Please select a recipe to delete.",
-                    "No selection",
-                    JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        int choice = JOptionPane.showConfirmDialog(this,
-                "Delete this recipe?",
-                "Confirm delete",
-                JOptionPane.YES_NO_OPTION);
-        if (choice != JOptionPane.YES_OPTION) {
-            return;
-        }
-
-        recipeRepository.removeRecipe(selected);
-        recipeListModel.removeElement(selected);
-        clearForm();
-        if (activityRepository != null) {
-            activityRepository.add("admin", ActivityEntry.Type.RECIPE_DELETED,
-                    "Admin deleted recipe: " + selected.getTitle());
-        }
-    }
-}
+package app;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+public class AdminPanel extends JPanel {
+
+    private static final int PAGE_SIZE = 50;
+
+    private final RecipeStore recipeRepository;
+    private final ActivityRepository activityRepository;
+
+    private DefaultListModel<Recipe> recipeListModel;
+    private JList<Recipe> recipeList;
+    private JTextField titleField;
+    private JTextArea ingredientsArea;
+    private JTextArea instructionsArea;
+    private JCheckBox approvedCheckBox;
+    private JButton loadMoreButton;
+    private String nextCursor;
+    private JCheckBox pendingOnlyCheckBox;
+    private JLabel pendingCountLabel;
+    private JButton importButton;
+    private JButton cancelImportButton;
+    private ImportWorker importWorker;
+
+    public AdminPanel(RecipeStore recipeRepository, ActivityRepository activityRepository) {
+        super(new BorderLayout());
+        this.recipeRepository = recipeRepository;
+        this.activityRepository = activityRepository;
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Recipes", createRecipesPanel());
+        tabs.addTab("Settings", createSettingsPanel());
+
+        add(tabs, BorderLayout.CENTER);
+    }
+
+    private JPanel createRecipesPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        recipeListModel = new DefaultListModel<>();
+        recipeList = new JList<>(recipeListModel);
+        recipeList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        JPanel left = new JPanel(new BorderLayout());
+        JLabel listLabel = new JLabel("All Recipes");
+        AppTheme.styleHeading(listLabel);
+        pendingOnlyCheckBox = new JCheckBox("Pending approval only");
+        pendingOnlyCheckBox.setToolTipText("Show unapproved submissions, oldest first");
+        pendingOnlyCheckBox.addActionListener(e -> loadRecipes());
+        pendingCountLabel = new JLabel();
+
+        JPanel leftTop = new JPanel();
+        leftTop.setLayout(new BoxLayout(leftTop, BoxLayout.Y_AXIS));
+        leftTop.add(listLabel);
+        leftTop.add(pendingOnlyCheckBox);
+        leftTop.add(pendingCountLabel);
+        left.add(leftTop, BorderLayout.NORTH);
+        left.add(new JScrollPane(recipeList), BorderLayout.CENTER);
+        loadMoreButton = new JButton("Load more");
+        loadMoreButton.setToolTipText("Fetch the next page of recipes");
+        loadMoreButton.addActionListener(e -> loadNextPage());
+        left.add(loadMoreButton, BorderLayout.SOUTH);
+        left.setPreferredSize(new Dimension(260, 0));
+
+        JPanel right = new JPanel();
+        right.setLayout(new BoxLayout(right, BoxLayout.Y_AXIS));
+
+        titleField = new JTextField();
+        ingredientsArea = new JTextArea(4, 20);
+        ingredientsArea.setLineWrap(true);
+        ingredientsArea.setWrapStyleWord(true);
+        instructionsArea = new JTextArea(6, 20);
+        instructionsArea.setLineWrap(true);
+        instructionsArea.setWrapStyleWord(true);
+        approvedCheckBox = new JCheckBox("Approved");
+
+        JPanel titlePanel = new JPanel(new BorderLayout());
+        JLabel titleLabel = new JLabel("Title");
+        AppTheme.styleHeading(titleLabel);
+        titlePanel.add(titleLabel, BorderLayout.NORTH);
+        titlePanel.add(titleField, BorderLayout.CENTER);
+        titlePanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        JPanel ingredientsPanel = new JPanel(new BorderLayout());
+        JLabel ingredientsLabel = new JLabel("Ingredients");
+        AppTheme.styleHeading(ingredientsLabel);
+        ingredientsPanel.add(ingredientsLabel, BorderLayout.NORTH);
+        ingredientsPanel.add(new JScrollPane(ingredientsArea), BorderLayout.CENTER);
+        ingredientsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        JPanel instructionsPanel = new JPanel(new BorderLayout());
+        JLabel instructionsLabel = new JLabel("Instructions");
+        AppTheme.styleHeading(instructionsLabel);
+        instructionsPanel.add(instructionsLabel, BorderLayout.NORTH);
+        instructionsPanel.add(new JScrollPane(instructionsArea), BorderLayout.CENTER);
+        instructionsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        statusPanel.add(approvedCheckBox);
+
+        JButton newButton = new JButton("New");
+        newButton.setToolTipText("Clear form to create a new recipe as admin");
+        newButton.addActionListener(e -> clearForm());
+        JButton saveButton = new JButton("Save");
+        saveButton.setToolTipText("Save recipe changes (including approval)");
+        saveButton.addActionListener(e -> saveRecipe());
+        JButton deleteButton = new JButton("Delete");
+        deleteButton.setToolTipText("Delete the selected recipe");
+        deleteButton.addActionListener(e -> deleteRecipe());
+        importButton = new JButton("Import...");
+        importButton.setToolTipText("Add recipes in bulk from a CSV or JSON Lines file");
+        importButton.addActionListener(e -> importRecipes());
+        cancelImportButton = new JButton("Cancel import");
+        cancelImportButton.setToolTipText("Stop the running import; recipes stored so far are kept");
+        cancelImportButton.setEnabled(false);
+        cancelImportButton.addActionListener(e -> cancelImport());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        buttonPanel.add(newButton);
+        buttonPanel.add(saveButton);
+        buttonPanel.add(deleteButton);
+        buttonPanel.add(importButton);
+        buttonPanel.add(cancelImportButton);
+
+        right.add(titlePanel);
+        right.add(ingredientsPanel);
+        right.add(instructionsPanel);
+        right.add(statusPanel);
+        right.add(buttonPanel);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, left, right);
+        splitPane.setResizeWeight(0.35);
+
+        panel.add(splitPane, BorderLayout.CENTER);
+
+        loadRecipes();
+
+        recipeList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                onRecipeSelected();
+            }
+        });
+
+        return panel;
+    }
+
+    private JPanel createSettingsPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+
+        JLabel heading = new JLabel("Application Settings");
+        AppTheme.styleHeading(heading);
+        heading.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JCheckBox maintenanceMode = new JCheckBox("Maintenance mode (demo only)");
+        maintenanceMode.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JCheckBox darkMode = new JCheckBox("Enable dark accent theme (demo only)");
+        darkMode.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JButton saveButton = new JButton("Save Settings");
+        saveButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+        saveButton.addActionListener(e -> JOptionPane.showMessageDialog(panel,
+                "Settings saved (not persisted in this demo).",
+                "Settings",
+                JOptionPane.INFORMATION_MESSAGE));
+
+        panel.add(heading);
+        panel.add(Box.createVerticalStrut(10));
+        panel.add(maintenanceMode);
+        panel.add(darkMode);
+        panel.add(Box.createVerticalStrut(10));
+        panel.add(saveButton);
+
+        return panel;
+    }
+
+    private void loadRecipes() {
+        recipeListModel.clear();
+        nextCursor = null;
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        RecipePage page = pendingOnlyCheckBox.isSelected()
+                ? recipeRepository.getPendingPage(nextCursor, PAGE_SIZE)
+                : recipeRepository.getPage(nextCursor, PAGE_SIZE, false);
+        for (Recipe recipe : page.getRecipes()) {
+            recipeListModel.addElement(recipe);
+        }
+        nextCursor = page.getNextCursor();
+        loadMoreButton.setVisible(page.hasMore());
+        updatePendingCount();
+    }
+
+    private void updatePendingCount() {
+        pendingCountLabel.setText("Pending approval: " + recipeRepository.countPending());
+    }
+
+    private void onRecipeSelected() {
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            clearForm();
+            return;
+        }
+        titleField.setText(selected.getTitle());
+        ingredientsArea.setText(selected.getIngredients());
+        instructionsArea.setText(selected.getInstructions());
+        approvedCheckBox.setSelected(selected.isApproved());
+    }
+
+    private void clearForm() {
+        recipeList.clearSelection();
+        titleField.setText("");
+        ingredientsArea.setText("");
+        instructionsArea.setText("");
+        approvedCheckBox.setSelected(false);
+    }
+
+    private void saveRecipe() {
+        String title = titleField.getText().trim();
+        String ingredients = ingredientsArea.getText().trim();
+        String instructions = instructionsArea.getText().trim();
+
+        if (title.isEmpty() || ingredients.isEmpty() || instructions.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please fill in title, ingredients, and instructions.",
+                    "Missing information",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            // New recipe created by admin and approved by default flag
+            Recipe recipe = new Recipe(title, ingredients, instructions, "admin", approvedCheckBox.isSelected());
+            recipeRepository.addRecipe(recipe);
+            // New recipes sort last; while more pages remain, "Load more" will bring it in
+            if (nextCursor == null && !(pendingOnlyCheckBox.isSelected() && recipe.isApproved())) {
+                recipeListModel.addElement(recipe);
+                recipeList.setSelectedValue(recipe, true);
+            } else {
+                clearForm();
+            }
+            updatePendingCount();
+            if (activityRepository != null) {
+                activityRepository.add("admin", ActivityEntry.Type.RECIPE_CREATED,
+                        "Admin created recipe: " + title);
+            }
+        } else {
+            recipeRepository.updateRecipe(selected, title, ingredients, instructions, approvedCheckBox.isSelected());
+            if (pendingOnlyCheckBox.isSelected() && selected.isApproved()) {
+                recipeListModel.removeElement(selected);
+                clearForm();
+            }
+            recipeList.repaint();
+            updatePendingCount();
+            if (activityRepository != null) {
+                activityRepository.add("admin", ActivityEntry.Type.RECIPE_UPDATED,
+                        "Admin updated recipe: " + title);
+            }
+        }
+
+        JOptionPane.showMessageDialog(this,
+                "Recipe saved.",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void deleteRecipe() {
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select a recipe to delete.",
+                    "No selection",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        int choice = JOptionPane.showConfirmDialog(this,
+                "Delete this recipe?",
+                "Confirm delete",
+                JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        recipeRepository.removeRecipe(selected);
+        recipeListModel.removeElement(selected);
+        clearForm();
+        updatePendingCount();
+        if (activityRepository != null) {
+            activityRepository.add("admin", ActivityEntry.Type.RECIPE_DELETED,
+                    "Admin deleted recipe: " + selected.getTitle());
+        }
+    }
+
+    private void importRecipes() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Recipe datasets (CSV, JSON Lines)", "csv", "jsonl", "ndjson"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        importButton.setEnabled(false);
+        cancelImportButton.setEnabled(true);
+        pendingCountLabel.setText("Importing " + chooser.getSelectedFile().getName() + "...");
+        importWorker = new ImportWorker(chooser.getSelectedFile().toPath());
+        importWorker.execute();
+    }
+
+    private void cancelImport() {
+        if (importWorker != null) {
+            // Interrupts the importer, which stops after the chunk it is storing
+            importWorker.cancel(true);
+        }
+    }
+
+    private class ImportWorker extends SwingWorker<RecipeImporter.Result, Long> {
+        private final java.nio.file.Path file;
+        // Written by the importing thread, read in done()
+        private volatile long imported;
+
+        ImportWorker(java.nio.file.Path file) {
+            this.file = file;
+        }
+
+        @Override
+        protected RecipeImporter.Result doInBackground() throws Exception {
+            RecipeImporter importer = new RecipeImporter(recipeRepository, "admin");
+            importer.setProgress(soFar -> {
+                imported = soFar.getImported();
+                publish(imported);
+            });
+            return importer.importFile(file);
+        }
+
+        @Override
+        protected void process(java.util.List<Long> imported) {
+            pendingCountLabel.setText(String.format("Imported %,d rows...", imported.get(imported.size() - 1)));
+        }
+
+        @Override
+        protected void done() {
+            importButton.setEnabled(true);
+            cancelImportButton.setEnabled(false);
+            importWorker = null;
+            loadRecipes();
+            if (isCancelled()) {
+                // The recipes stored before the interrupt stay imported
+                JOptionPane.showMessageDialog(AdminPanel.this,
+                        String.format("Import cancelled after %,d recipes were imported.", imported),
+                        "Import cancelled", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            try {
+                RecipeImporter.Result result = get();
+                StringBuilder message = new StringBuilder(result.toString());
+                for (String error : result.getErrors()) {
+                    message.append('\n').append(error);
+                }
+                if (result.getRejected() > result.getErrors().size()) {
+                    message.append("\n...");
+                }
+                if (activityRepository != null) {
+                    activityRepository.add("admin", ActivityEntry.Type.RECIPE_CREATED,
+                            "Admin imported " + result.getImported() + " recipes from " + file.getFileName());
+                }
+                JOptionPane.showMessageDialog(AdminPanel.this, message.toString(), "Import finished",
+                        result.getRejected() == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+            } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                JOptionPane.showMessageDialog(AdminPanel.this, "Import failed: " + cause.getMessage(),
+                        "Import error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package app;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BM25F relevance scoring over the title and ingredient fields of each recipe.
+ * Title matches are weighted more heavily than ingredient matches.
+ *
+ * <p>Terms are numbered once in a shared dictionary. Each document is one
+ * int array: the two field lengths, then (term number, counts) pairs sorted
+ * by term number, where counts packs the title count above the ingredient
+ * count. Document frequencies are an array indexed by term number.
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double TITLE_BOOST = 2.5;
+    private static final int MAX_FIELD_COUNT = 0xFFFF;
+
+    private final LongHashMap<int[]> docs = new LongHashMap<>();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private int[] docFreq = new int[1024];
+    private long titleLengthSum;
+    private long ingredientLengthSum;
+
+    public void add(long id, String title, String ingredients) {
+        remove(id);
+        Counts counts = new Counts(title, ingredients);
+        long[] pairs = new long[counts.byTerm.size()];
+        int i = 0;
+        for (Map.Entry<String, int[]> e : counts.byTerm.entrySet()) {
+            int term = termId(e.getKey());
+            docFreq[term]++;
+            int[] c = e.getValue();
+            pairs[i++] = (long) term << 32 | Math.min(c[0], MAX_FIELD_COUNT) << 16 | Math.min(c[1], MAX_FIELD_COUNT);
+        }
+        Arrays.sort(pairs);
+        int[] doc = new int[2 + pairs.length * 2];
+        doc[0] = counts.titleLength;
+        doc[1] = counts.ingredientLength;
+        for (i = 0; i < pairs.length; i++) {
+            doc[2 + i * 2] = (int) (pairs[i] >>> 32);
+            doc[3 + i * 2] = (int) pairs[i];
+        }
+        docs.put(id, doc);
+        titleLengthSum += counts.titleLength;
+        ingredientLengthSum += counts.ingredientLength;
+    }
+
+    public void remove(long id) {
+        int[] doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        titleLengthSum -= doc[0];
+        ingredientLengthSum -= doc[1];
+        for (int i = 2; i < doc.length; i += 2) {
+            docFreq[doc[i]]--;
+        }
+    }
+
+    /**
+     * BM25F score of the recipe for the given distinct query terms, or 0 when
+     * none of them occur in it.
+     */
+    public double score(long id, List<String> terms) {
+        int[] doc = docs.get(id);
+        if (doc == null || docs.isEmpty()) {
+            return 0;
+        }
+        int[] counts = new int[terms.size()];
+        int[] df = new int[terms.size()];
+        for (int t = 0; t < counts.length; t++) {
+            Integer term = termIds.get(terms.get(t));
+            if (term != null) {
+                df[t] = docFreq[term];
+                counts[t] = find(doc, term);
+            }
+        }
+        return score(doc[0], doc[1], counts, df, docs.size(), titleLengthSum, ingredientLengthSum);
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = termIds.size();
+            termIds.put(term, id);
+            if (id == docFreq.length) {
+                docFreq = Arrays.copyOf(docFreq, docFreq.length * 2);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * The packed counts of the term in the document, or 0.
+     */
+    private static int find(int[] doc, int term) {
+        int low = 0;
+        int high = (doc.length - 2) / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int at = doc[2 + mid * 2];
+            if (at < term) {
+                low = mid + 1;
+            } else if (at > term) {
+                high = mid - 1;
+            } else {
+                return doc[3 + mid * 2];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * {@code counts} and {@code df} hold, per query term, the packed field
+     * counts in this document and the number of documents with the term.
+     */
+    private static double score(int titleLength, int ingredientLength, int[] counts, int[] df, int n,
+                                long titleLengthSum, long ingredientLengthSum) {
+        double avgTitle = Math.max(1.0, (double) titleLengthSum / n);
+        double avgIngredients = Math.max(1.0, (double) ingredientLengthSum / n);
+        double titleNorm = 1 - B + B * titleLength / avgTitle;
+        double ingredientNorm = 1 - B + B * ingredientLength / avgIngredients;
+
+        double score = 0;
+        for (int t = 0; t < counts.length; t++) {
+            if (df[t] == 0) {
+                continue;
+            }
+            double tf = TITLE_BOOST * (counts[t] >>> 16) / titleNorm + (counts[t] & MAX_FIELD_COUNT) / ingredientNorm;
+            if (tf == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (n - df[t] + 0.5) / (df[t] + 0.5));
+            score += idf * tf / (K1 + tf);
+        }
+        return score;
+    }
+
+    /**
+     * BM25F over a candidate set that is read once and not indexed: the
+     * caller passes every document to {@link #count}, keeps the small array
+     * it returns, and scores those arrays once all documents are counted.
+     * Only the query terms are tracked.
+     */
+    static final class Streaming {
+        private final List<String> terms;
+        private final int[] docFreq;
+        private int n;
+        private long titleLengthSum;
+        private long ingredientLengthSum;
+
+        Streaming(List<String> terms) {
+            this.terms = terms;
+            this.docFreq = new int[terms.size()];
+        }
+
+        /**
+         * Adds the document to the statistics and returns what
+         * {@link #score} needs of it: the two field lengths, then the packed
+         * counts of each query term.
+         */
+        int[] count(String title, String ingredients) {
+            Counts counts = new Counts(title, ingredients);
+            n++;
+            titleLengthSum += counts.titleLength;
+            ingredientLengthSum += counts.ingredientLength;
+            int[] doc = new int[2 + docFreq.length];
+            doc[0] = counts.titleLength;
+            doc[1] = counts.ingredientLength;
+            for (int t = 0; t < docFreq.length; t++) {
+                int[] c = counts.byTerm.get(terms.get(t));
+                if (c != null) {
+                    docFreq[t]++;
+                    doc[2 + t] = Math.min(c[0], MAX_FIELD_COUNT) << 16 | Math.min(c[1], MAX_FIELD_COUNT);
+                }
+            }
+            return doc;
+        }
+
+        double score(int[] doc) {
+            return Bm25Index.score(doc[0], doc[1], Arrays.copyOfRange(doc, 2, doc.length), docFreq, n,
+                    titleLengthSum, ingredientLengthSum);
+        }
+    }
+
+    /**
+     * Word counts of one document while it is being added or scored: term
+     * to {title count, ingredient count}, and the length of each field.
+     */
+    private static final class Counts {
+        private final Map<String, int[]> byTerm = new HashMap<>();
+        private final int titleLength;
+        private final int ingredientLength;
+
+        Counts(String title, String ingredients) {
+            titleLength = count(InvertedIndex.words(title), 0);
+            ingredientLength = count(InvertedIndex.words(ingredients), 1);
+        }
+
+        private int count(List<String> words, int field) {
+            for (String word : words) {
+                byTerm.computeIfAbsent(word, w -> new int[2])[field]++;
+            }
+            return words.size();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package app;
+
+/**
+ * The users, recipes, reviews and favourites the application runs on, as
+ * provided by one storage backend: {@link PersistentStore} (in memory,
+ * backed by a snapshot and a write-ahead log) or {@link JdbcStore} (an
+ * embedded SQL database).
+ */
+public interface DataStore extends AutoCloseable {
+
+    UserRepository getUserRepository();
+
+    RecipeStore getRecipeStore();
+
+    ReviewStore getReviewStore();
+
+    FavoriteStore getFavoriteStore();
+
+    /**
+     * Flushes whatever the backend still holds and releases its files.
+     */
+    @Override
+    void close();
+}
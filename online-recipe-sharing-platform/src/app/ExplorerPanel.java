@@ -1,337 +1,652 @@
-package app;
-
-import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import java.awt.*;
-
-public class ExplorerPanel extends JPanel {
-    private final RecipeRepository recipeRepository;
-    private final User currentUser;
-    private final FavoriteRepository favoriteRepository;
-    private final DefaultListModel<Recipe> listModel;
-    private final JList<Recipe> recipeList;
-    private final JTextArea ingredientsArea;
-    private final JTextArea instructionsArea;
-    private final JLabel ratingLabel;
-    private final JComboBox<Integer> ratingComboBox;
-    private final JTextField searchField;
-    private final JCheckBox approvedOnlyCheckBox;
-    private final JLabel favouriteBadge;
-
-    private final ReviewRepository reviewRepository;
-    private final ActivityRepository activityRepository;
-    private final ReviewTableModel reviewTableModel;
-    private final JTable reviewTable;
-    private final JComboBox<Integer> reviewRatingComboBox;
-    private final JTextArea reviewCommentArea;
-
-    public ExplorerPanel(RecipeRepository recipeRepository,
-                         User currentUser,
-                         FavoriteRepository favoriteRepository,
-                         ReviewRepository reviewRepository,
-                         ActivityRepository activityRepository) {
-        super(new BorderLayout());
-        this.recipeRepository = recipeRepository;
-        this.currentUser = currentUser;
-        this.favoriteRepository = favoriteRepository;
-        this.reviewRepository = reviewRepository;
-        this.activityRepository = activityRepository;
-
-        listModel = new DefaultListModel<>();
-        recipeList = new JList<>(listModel);
-        recipeList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-
-        searchField = new JTextField();
-        approvedOnlyCheckBox = new JCheckBox("Approved only");
-        approvedOnlyCheckBox.setSelected(true);
-
-        ingredientsArea = new JTextArea();
-        ingredientsArea.setEditable(false);
-        ingredientsArea.setLineWrap(true);
-        ingredientsArea.setWrapStyleWord(true);
-
-        instructionsArea = new JTextArea();
-        instructionsArea.setEditable(false);
-        instructionsArea.setLineWrap(true);
-        instructionsArea.setWrapStyleWord(true);
-
-        ratingLabel = new JLabel("Rating: Not rated");
-        ratingComboBox = new JComboBox<>(new Integer[]{1, 2, 3, 4, 5});
-        favouriteBadge = new JLabel(" ");
-
-        reviewTableModel = new ReviewTableModel();
-        reviewTable = new JTable(reviewTableModel);
-        reviewRatingComboBox = new JComboBox<>(new Integer[]{1, 2, 3, 4, 5});
-        reviewCommentArea = new JTextArea(3, 20);
-        reviewCommentArea.setLineWrap(true);
-        reviewCommentArea.setWrapStyleWord(true);
-
-        buildUI();
-        loadRecipes();
-    }
-
-    private void buildUI() {
-        setBorder(new EmptyBorder(10, 10, 10, 10));
-
-        // Left: search + list of recipes
-        JPanel leftPanel = new JPanel(new BorderLayout());
-        JLabel listLabel = new JLabel("Recipes");
-        AppTheme.styleHeading(listLabel);
-
-        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
-        searchPanel.setBorder(new EmptyBorder(5, 0, 5, 0));
-        searchPanel.add(searchField, BorderLayout.CENTER);
-        JButton searchButton = new JButton("Search");
-        AppTheme.styleSecondaryButton(searchButton);
-        searchPanel.add(searchButton, BorderLayout.EAST);
-
-        JPanel leftTop = new JPanel();
-        leftTop.setLayout(new BoxLayout(leftTop, BoxLayout.Y_AXIS));
-        leftTop.add(listLabel);
-        leftTop.add(searchPanel);
-        leftTop.add(approvedOnlyCheckBox);
-
-        leftPanel.add(leftTop, BorderLayout.NORTH);
-        leftPanel.add(new JScrollPane(recipeList), BorderLayout.CENTER);
-        leftPanel.setPreferredSize(new Dimension(260, 0));
-
-        // Right: details
-        JPanel rightPanel = new JPanel();
-        rightPanel.setLayout(new BoxLayout(rightPanel, BoxLayout.Y_AXIS));
-
-        JLabel ingredientsLabel = new JLabel("Ingredients");
-        AppTheme.styleHeading(ingredientsLabel);
-        JPanel ingredientsPanel = new JPanel(new BorderLayout());
-        ingredientsPanel.add(ingredientsLabel, BorderLayout.NORTH);
-        ingredientsPanel.add(new JScrollPane(ingredientsArea), BorderLayout.CENTER);
-        ingredientsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
-
-        JLabel instructionsLabel = new JLabel("Instructions");
-        AppTheme.styleHeading(instructionsLabel);
-        JPanel instructionsPanel = new JPanel(new BorderLayout());
-        instructionsPanel.add(instructionsLabel, BorderLayout.NORTH);
-        instructionsPanel.add(new JScrollPane(instructionsArea), BorderLayout.CENTER);
-        instructionsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
-
-        JPanel ratingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        ratingPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        ratingPanel.add(ratingLabel);
-        ratingPanel.add(favouriteBadge);
-        ratingPanel.add(new JLabel("  |  Set rating:"));
-        ratingPanel.add(ratingComboBox);
-        JButton applyRatingButton = new JButton("Apply");
-        AppTheme.stylePrimaryButton(applyRatingButton);
-        ratingPanel.add(applyRatingButton);
-
-        JButton favToggleButton = new JButton("Add to favourites");
-        AppTheme.styleSecondaryButton(favToggleButton);
-        ratingPanel.add(favToggleButton);
-
-        // Reviews section
-        JLabel reviewsLabel = new JLabel("Reviews");
-        AppTheme.styleHeading(reviewsLabel);
-        JPanel reviewsPanel = new JPanel();
-        reviewsPanel.setLayout(new BoxLayout(reviewsPanel, BoxLayout.Y_AXIS));
-        reviewsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
-
-        JScrollPane tableScroll = new JScrollPane(reviewTable);
-        tableScroll.setPreferredSize(new Dimension(400, 120));
-
-        JPanel addReviewPanel = new JPanel(new BorderLayout(5, 5));
-        JPanel ratingRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        ratingRow.add(new JLabel("Rating:"));
-        ratingRow.add(reviewRatingComboBox);
-        JButton addReviewButton = new JButton("Add Review");
-        AppTheme.stylePrimaryButton(addReviewButton);
-        ratingRow.add(addReviewButton);
-
-        addReviewPanel.add(ratingRow, BorderLayout.NORTH);
-        addReviewPanel.add(new JScrollPane(reviewCommentArea), BorderLayout.CENTER);
-
-        reviewsPanel.add(reviewsLabel);
-        reviewsPanel.add(tableScroll);
-        reviewsPanel.add(addReviewPanel);
-
-        rightPanel.add(ingredientsPanel);
-        rightPanel.add(instructionsPanel);
-        rightPanel.add(ratingPanel);
-        rightPanel.add(reviewsPanel);
-
-        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, rightPanel);
-        splitPane.setResizeWeight(0.3);
-
-        add(splitPane, BorderLayout.CENTER);
-
-        // List selection handling
-        recipeList.addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
-                updateDetailsFromSelection();
-            }
-        });
-
-        // Rating handling
-        applyRatingButton.addActionListener(e -> applyRating());
-
-        // Search and filter handling
-        searchButton.addActionListener(e -> loadRecipes());
-        approvedOnlyCheckBox.addActionListener(e -> loadRecipes());
-
-        // Favourites handling
-        favToggleButton.addActionListener(e -> toggleFavourite());
-
-        // Add review handling
-        addReviewButton.addActionListener(e -> addReview());
-    }
-
-    private void loadRecipes() {
-        listModel.clear();
-        String query = searchField.getText() == null ? "" : searchField.getText().trim().toLowerCase();
-        boolean approvedOnly = approvedOnlyCheckBox.isSelected() && !currentUser.isAdmin();
-
-        for (Recipe r : recipeRepository.getAllRecipes()) {
-            if (approvedOnly && !r.isApproved()) {
-                continue;
-            }
-            if (!query.isEmpty()) {
-                String text = (r.getTitle() + " " + r.getIngredients()).toLowerCase();
-                if (!text.contains(query)) {
-                    continue;
-                }
-            }
-            listModel.addElement(r);
-        }
-
-        if (!listModel.isEmpty()) {
-            recipeList.setSelectedIndex(0);
-        } else {
-            ingredientsArea.setText("");
-            instructionsArea.setText("");
-            ratingLabel.setText("Rating: Not rated");
-            favouriteBadge.setText(" ");
-            reviewTableModel.setReviews(java.util.Collections.emptyList());
-        }
-    }
-
-    private void updateDetailsFromSelection() {
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            ingredientsArea.setText("");
-            instructionsArea.setText("");
-            ratingLabel.setText("Rating: Not rated");
-            reviewTableModel.setReviews(java.util.Collections.emptyList());
-            return;
-        }
-        ingredientsArea.setText(selected.getIngredients());
-        instructionsArea.setText(selected.getInstructions());
-
-        java.util.List<Review> reviews = reviewRepository.getReviews(selected);
-        reviewTableModel.setReviews(reviews);
-        double average = reviewRepository.getAverageRating(selected);
-        if (average < 0) {
-            ratingLabel.setText("Rating: Not rated");
-        } else {
-            ratingLabel.setText(String.format("Average rating: %.1f/5 (%d reviews)", average, reviews.size()));
-        }
-
-        boolean isFav = favoriteRepository.isFavorite(currentUser, selected);
-        favouriteBadge.setText(isFav ? "  ★ Favourite" : "");
-        favouriteBadge.setForeground(isFav ? AppTheme.ACCENT_DARK : Color.DARK_GRAY);
-    }
-
-    private void applyRating() {
-        // Keep for compatibility: directly set a quick rating without comment
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            JOptionPane.showMessageDialog(this, "Please select a recipe first.",
-                    "No recipe selected", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        Integer rating = (Integer) ratingComboBox.getSelectedItem();
-        if (rating != null) {
-            Review quickReview = new Review(currentUser.getUsername(), rating, "");
-            reviewRepository.addReview(selected, quickReview);
-            updateDetailsFromSelection();
-        }
-    }
-
-    private void addReview() {
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            JOptionPane.showMessageDialog(this, "Please select a recipe first.",
-                    "No recipe selected", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        Integer rating = (Integer) reviewRatingComboBox.getSelectedItem();
-        if (rating == null) {
-            JOptionPane.showMessageDialog(this, "Please choose a rating.",
-                    "Missing rating", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        String comment = reviewCommentArea.getText().trim();
-        Review review = new Review(currentUser.getUsername(), rating, comment);
-        reviewRepository.addReview(selected, review);
-        if (activityRepository != null) {
-            activityRepository.add(currentUser.getUsername(), ActivityEntry.Type.REVIEW_ADDED,
-                    "Reviewed recipe: " + selected.getTitle());
-        }
-        reviewCommentArea.setText("");
-        updateDetailsFromSelection();
-    }
-
-    private void toggleFavourite() {
-        Recipe selected = recipeList.getSelectedValue();
-        if (selected == null) {
-            JOptionPane.showMessageDialog(this, "Please select a recipe first.",
-                    "No recipe selected", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        boolean wasFav = favoriteRepository.isFavorite(currentUser, selected);
-        if (wasFav) {
-            favoriteRepository.removeFavorite(currentUser, selected);
-        } else {
-            favoriteRepository.addFavorite(currentUser, selected);
-        }
-        if (activityRepository != null) {
-            activityRepository.add(currentUser.getUsername(), ActivityEntry.Type.FAVOURITE_TOGGLED,
-                    (wasFav ? "Removed from" : "Added to") + " favourites: " + selected.getTitle());
-        }
-        updateDetailsFromSelection();
-    }
-
-    private static class ReviewTableModel extends javax.swing.table.AbstractTableModel {
-        private java.util.List<Review> reviews = new java.util.ArrayList<>();
-        private final String[] columns = {"User", "Rating", "Comment", "Date"};
-
-        public void setReviews(java.util.List<Review> reviews) {
-            this.reviews = new java.util.ArrayList<>(reviews);
-            fireTableDataChanged();
-        }
-
-        @Override
-        public int getRowCount() {
-            return reviews.size();
-        }
-
-        @Override
-        public int getColumnCount() {
-            return columns.length;
-        }
-
-        @Override
-        public String getColumnName(int column) {
-            return columns[column];
-        }
-
-        @Override
-        public Object getValueAt(int rowIndex, int columnIndex) {
-            Review r = reviews.get(rowIndex);
-            switch (columnIndex) {
-                case 0: return r.getAuthorUsername();
-                case 1: return r.getRating();
-                case 2: return r.getComment();
-                case 3: return r.getCreatedAt();
-                default: return "";
-            }
-        }
-    }
-}
+package app;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+public class ExplorerPanel extends JPanel {
+    private static final int MAX_RANKED_RESULTS = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_DEBOUNCE_MS = 250;
+    private static final int RECOMMENDATIONS = 5;
+
+    private final RecipeStore recipeRepository;
+    private final User currentUser;
+    private final FavoriteStore favoriteRepository;
+    private final DefaultListModel<Recipe> listModel;
+    private final JList<Recipe> recipeList;
+    private final JTextArea ingredientsArea;
+    private final JTextArea instructionsArea;
+    private final JLabel ratingLabel;
+    private final JComboBox<Integer> ratingComboBox;
+    private final JTextField searchField;
+    private final JTextField includeIngredientsField;
+    private final JTextField excludeIngredientsField;
+    private final JCheckBox approvedOnlyCheckBox;
+    private final JLabel favouriteBadge;
+    private final JLabel listLabel;
+    private final JButton loadMoreButton;
+    private String nextCursor;
+    // Fetches the page after a cursor for whatever the list is showing
+    private java.util.function.Function<String, RecipePage> nextPage;
+    private final Timer searchDebounce;
+    private SearchWorker currentSearch;
+    private PageWorker currentPage;
+
+    private final ReviewStore reviewRepository;
+    private final ActivityRepository activityRepository;
+    private final RecommendationIndex recommendationIndex;
+    private final DefaultListModel<Recipe> recommendationModel;
+    private final JList<Recipe> recommendationList;
+    private final ReviewTableModel reviewTableModel;
+    private final JTable reviewTable;
+    private final JComboBox<Integer> reviewRatingComboBox;
+    private final JTextArea reviewCommentArea;
+
+    public ExplorerPanel(RecipeStore recipeRepository,
+                         User currentUser,
+                         FavoriteStore favoriteRepository,
+                         ReviewStore reviewRepository,
+                         ActivityRepository activityRepository,
+                         RecommendationIndex recommendationIndex) {
+        super(new BorderLayout());
+        this.recipeRepository = recipeRepository;
+        this.currentUser = currentUser;
+        this.favoriteRepository = favoriteRepository;
+        this.reviewRepository = reviewRepository;
+        this.activityRepository = activityRepository;
+        this.recommendationIndex = recommendationIndex;
+
+        listModel = new DefaultListModel<>();
+        recipeList = new JList<>(listModel);
+        recipeList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        searchField = new JTextField();
+        includeIngredientsField = new JTextField();
+        includeIngredientsField.setToolTipText("Only recipes using all of these ingredients (comma separated)");
+        excludeIngredientsField = new JTextField();
+        excludeIngredientsField.setToolTipText("Hide recipes using any of these ingredients (comma separated)");
+        approvedOnlyCheckBox = new JCheckBox("Approved only");
+        approvedOnlyCheckBox.setSelected(true);
+
+        ingredientsArea = new JTextArea();
+        ingredientsArea.setEditable(false);
+        ingredientsArea.setLineWrap(true);
+        ingredientsArea.setWrapStyleWord(true);
+
+        instructionsArea = new JTextArea();
+        instructionsArea.setEditable(false);
+        instructionsArea.setLineWrap(true);
+        instructionsArea.setWrapStyleWord(true);
+
+        ratingLabel = new JLabel("Rating: Not rated");
+        ratingComboBox = new JComboBox<>(new Integer[]{1, 2, 3, 4, 5});
+        favouriteBadge = new JLabel(" ");
+        listLabel = new JLabel("Recipes");
+        loadMoreButton = new JButton("Load more");
+        loadMoreButton.setToolTipText("Fetch the next page of recipes");
+        searchDebounce = new Timer(SEARCH_DEBOUNCE_MS, e -> loadRecipes());
+        searchDebounce.setRepeats(false);
+
+        recommendationModel = new DefaultListModel<>();
+        recommendationList = new JList<>(recommendationModel);
+        recommendationList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        recommendationList.setVisibleRowCount(RECOMMENDATIONS);
+        recommendationList.setToolTipText("Double-click to open");
+
+        reviewTableModel = new ReviewTableModel(reviewRepository);
+        reviewTable = new JTable(reviewTableModel);
+        reviewRatingComboBox = new JComboBox<>(new Integer[]{1, 2, 3, 4, 5});
+        reviewCommentArea = new JTextArea(3, 20);
+        reviewCommentArea.setLineWrap(true);
+        reviewCommentArea.setWrapStyleWord(true);
+
+        buildUI();
+        loadRecipes();
+    }
+
+    private void buildUI() {
+        setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        // Left: search + list of recipes
+        JPanel leftPanel = new JPanel(new BorderLayout());
+        AppTheme.styleHeading(listLabel);
+
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        searchPanel.setBorder(new EmptyBorder(5, 0, 5, 0));
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        JButton searchButton = new JButton("Search");
+        AppTheme.styleSecondaryButton(searchButton);
+        searchPanel.add(searchButton, BorderLayout.EAST);
+
+        JPanel ingredientFilterPanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        ingredientFilterPanel.setBorder(new EmptyBorder(0, 0, 5, 0));
+        ingredientFilterPanel.add(new JLabel("Uses:"));
+        ingredientFilterPanel.add(includeIngredientsField);
+        ingredientFilterPanel.add(new JLabel("Without:"));
+        ingredientFilterPanel.add(excludeIngredientsField);
+
+        JPanel leftTop = new JPanel();
+        leftTop.setLayout(new BoxLayout(leftTop, BoxLayout.Y_AXIS));
+        leftTop.add(listLabel);
+        leftTop.add(searchPanel);
+        leftTop.add(ingredientFilterPanel);
+        leftTop.add(approvedOnlyCheckBox);
+
+        leftPanel.add(leftTop, BorderLayout.NORTH);
+        leftPanel.add(new JScrollPane(recipeList), BorderLayout.CENTER);
+        leftPanel.add(loadMoreButton, BorderLayout.SOUTH);
+        leftPanel.setPreferredSize(new Dimension(260, 0));
+
+        // Right: details
+        JPanel rightPanel = new JPanel();
+        rightPanel.setLayout(new BoxLayout(rightPanel, BoxLayout.Y_AXIS));
+
+        JLabel ingredientsLabel = new JLabel("Ingredients");
+        AppTheme.styleHeading(ingredientsLabel);
+        JPanel ingredientsPanel = new JPanel(new BorderLayout());
+        ingredientsPanel.add(ingredientsLabel, BorderLayout.NORTH);
+        ingredientsPanel.add(new JScrollPane(ingredientsArea), BorderLayout.CENTER);
+        ingredientsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        JLabel instructionsLabel = new JLabel("Instructions");
+        AppTheme.styleHeading(instructionsLabel);
+        JPanel instructionsPanel = new JPanel(new BorderLayout());
+        instructionsPanel.add(instructionsLabel, BorderLayout.NORTH);
+        instructionsPanel.add(new JScrollPane(instructionsArea), BorderLayout.CENTER);
+        instructionsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        JPanel ratingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        ratingPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        ratingPanel.add(ratingLabel);
+        ratingPanel.add(favouriteBadge);
+        ratingPanel.add(new JLabel("  |  Set rating:"));
+        ratingPanel.add(ratingComboBox);
+        JButton applyRatingButton = new JButton("Apply");
+        AppTheme.stylePrimaryButton(applyRatingButton);
+        ratingPanel.add(applyRatingButton);
+
+        JButton favToggleButton = new JButton("Add to favourites");
+        AppTheme.styleSecondaryButton(favToggleButton);
+        ratingPanel.add(favToggleButton);
+
+        JLabel alsoSavedLabel = new JLabel("People who saved this also saved…");
+        AppTheme.styleHeading(alsoSavedLabel);
+        JPanel alsoSavedPanel = new JPanel(new BorderLayout());
+        alsoSavedPanel.add(alsoSavedLabel, BorderLayout.NORTH);
+        alsoSavedPanel.add(new JScrollPane(recommendationList), BorderLayout.CENTER);
+        alsoSavedPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        // Reviews section
+        JLabel reviewsLabel = new JLabel("Reviews");
+        AppTheme.styleHeading(reviewsLabel);
+        JPanel reviewsPanel = new JPanel();
+        reviewsPanel.setLayout(new BoxLayout(reviewsPanel, BoxLayout.Y_AXIS));
+        reviewsPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+
+        JScrollPane tableScroll = new JScrollPane(reviewTable);
+        tableScroll.setPreferredSize(new Dimension(400, 120));
+
+        JPanel addReviewPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel ratingRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        ratingRow.add(new JLabel("Rating:"));
+        ratingRow.add(reviewRatingComboBox);
+        JButton addReviewButton = new JButton("Add Review");
+        AppTheme.stylePrimaryButton(addReviewButton);
+        ratingRow.add(addReviewButton);
+
+        addReviewPanel.add(ratingRow, BorderLayout.NORTH);
+        addReviewPanel.add(new JScrollPane(reviewCommentArea), BorderLayout.CENTER);
+
+        reviewsPanel.add(reviewsLabel);
+        reviewsPanel.add(tableScroll);
+        reviewsPanel.add(addReviewPanel);
+
+        rightPanel.add(ingredientsPanel);
+        rightPanel.add(instructionsPanel);
+        rightPanel.add(ratingPanel);
+        rightPanel.add(alsoSavedPanel);
+        rightPanel.add(reviewsPanel);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, rightPanel);
+        splitPane.setResizeWeight(0.3);
+
+        add(splitPane, BorderLayout.CENTER);
+
+        // List selection handling
+        recipeList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                updateDetailsFromSelection();
+            }
+        });
+
+        recommendationList.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openRecommendation();
+                }
+            }
+        });
+
+        // Rating handling
+        applyRatingButton.addActionListener(e -> applyRating());
+
+        // Search and filter handling
+        searchButton.addActionListener(e -> loadRecipes());
+        searchField.addActionListener(e -> loadRecipes());
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                searchDebounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                searchDebounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                searchDebounce.restart();
+            }
+        });
+        includeIngredientsField.addActionListener(e -> loadRecipes());
+        excludeIngredientsField.addActionListener(e -> loadRecipes());
+        approvedOnlyCheckBox.addActionListener(e -> loadRecipes());
+        loadMoreButton.addActionListener(e -> loadNextPage());
+
+        // Favourites handling
+        favToggleButton.addActionListener(e -> toggleFavourite());
+
+        // Add review handling
+        addReviewButton.addActionListener(e -> addReview());
+    }
+
+    private void loadRecipes() {
+        searchDebounce.stop();
+        String query = searchField.getText() == null ? "" : searchField.getText().trim();
+        boolean approvedOnly = approvedOnlyCheckBox.isSelected() && !currentUser.isAdmin();
+        java.util.List<String> include = IngredientIndex.splitList(includeIngredientsField.getText());
+        java.util.List<String> exclude = IngredientIndex.splitList(excludeIngredientsField.getText());
+
+        // Only the latest search may touch the list; older ones are cancelled and ignored
+        if (currentSearch != null) {
+            // No interrupt: it would close file channels the search is reading through
+            currentSearch.cancel(false);
+        }
+        if (currentPage != null) {
+            currentPage.cancel(false);
+            currentPage = null;
+        }
+        currentSearch = new SearchWorker(query, include, exclude, approvedOnly);
+        currentSearch.execute();
+    }
+
+    private SearchOutcome runSearch(String query, java.util.List<String> include,
+                                    java.util.List<String> exclude, boolean approvedOnly) {
+        if (query.isEmpty() && include.isEmpty() && exclude.isEmpty()) {
+            // Plain browsing: fetch one page at a time instead of the whole catalogue
+            return SearchOutcome.paged(cursor -> recipeRepository.getPage(cursor, PAGE_SIZE, approvedOnly),
+                    null, false);
+        }
+        // Read first: recipes indexed while the search runs may or may not be in it
+        boolean unindexed = recipeRepository.countUnindexed() > 0;
+        if (query.length() < 3) {
+            // Same substring match as longer queries, but a one- or two-letter
+            // query matches too much to rank, so it is listed page by page
+            SearchOutcome outcome = SearchOutcome.paged(cursor -> recipeRepository.search(query, include, exclude,
+                    approvedOnly, cursor, PAGE_SIZE), null, unindexed);
+            if (query.isEmpty() || !outcome.recipes.isEmpty()) {
+                return outcome;
+            }
+        } else {
+            java.util.List<Recipe> results = new java.util.ArrayList<>();
+            for (SearchResult hit : recipeRepository.searchRanked(query, include, exclude, approvedOnly, MAX_RANKED_RESULTS)) {
+                results.add(hit.getRecipe());
+            }
+            if (!results.isEmpty()) {
+                return new SearchOutcome(results, null, unindexed, null, null);
+            }
+        }
+        // No recipe contains the query as typed; words that start with each
+        // query word ("gar bas" for "garlic basil") come next, then typos
+        SearchOutcome outcome = SearchOutcome.paged(cursor -> recipeRepository.searchPrefix(query, include, exclude,
+                approvedOnly, cursor, PAGE_SIZE), "matching word starts",
+                unindexed || recipeRepository.isPrefixSearchTruncated(query));
+        if (!outcome.recipes.isEmpty()) {
+            return outcome;
+        }
+        return SearchOutcome.paged(cursor -> recipeRepository.fuzzySearch(query, include, exclude, approvedOnly,
+                cursor, PAGE_SIZE), "similar matches", unindexed);
+    }
+
+    private void applySearch(SearchOutcome outcome) {
+        listModel.clear();
+        if (outcome.truncated) {
+            listLabel.setText("Recipes (some matches may be missing)");
+        } else if (outcome.note != null && !outcome.recipes.isEmpty()) {
+            listLabel.setText("Recipes (" + outcome.note + ")");
+        } else {
+            listLabel.setText("Recipes");
+        }
+        for (Recipe r : outcome.recipes) {
+            listModel.addElement(r);
+        }
+        nextPage = outcome.nextPage;
+        nextCursor = outcome.nextCursor;
+        loadMoreButton.setVisible(nextCursor != null);
+        loadMoreButton.setEnabled(true);
+
+        if (!listModel.isEmpty()) {
+            recipeList.setSelectedIndex(0);
+        } else {
+            ingredientsArea.setText("");
+            instructionsArea.setText("");
+            ratingLabel.setText("Rating: Not rated");
+            favouriteBadge.setText(" ");
+            recommendationModel.clear();
+            reviewTableModel.setRecipe(null);
+        }
+    }
+
+    private void loadNextPage() {
+        if (nextPage == null || nextCursor == null || currentPage != null) {
+            return;
+        }
+        // The page may come from a database query, so fetch it like a search
+        loadMoreButton.setEnabled(false);
+        currentPage = new PageWorker(nextPage, nextCursor);
+        currentPage.execute();
+    }
+
+    private void applyNextPage(RecipePage page) {
+        for (Recipe r : page.getRecipes()) {
+            listModel.addElement(r);
+        }
+        nextCursor = page.getNextCursor();
+        loadMoreButton.setVisible(page.hasMore());
+    }
+
+    private void updateDetailsFromSelection() {
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            ingredientsArea.setText("");
+            instructionsArea.setText("");
+            ratingLabel.setText("Rating: Not rated");
+            recommendationModel.clear();
+            reviewTableModel.setRecipe(null);
+            return;
+        }
+        ingredientsArea.setText(selected.getIngredients());
+        instructionsArea.setText(selected.getInstructions());
+
+        reviewTableModel.setRecipe(selected);
+        double average = reviewRepository.getAverageRating(selected);
+        if (average < 0) {
+            ratingLabel.setText("Rating: Not rated");
+        } else {
+            ratingLabel.setText(String.format("Average rating: %.1f/5 (%d reviews)", average,
+                    reviewRepository.getReviewCount(selected)));
+        }
+
+        boolean isFav = favoriteRepository.isFavorite(currentUser, selected);
+        int savedBy = favoriteRepository.getFavoriteCount(selected);
+        favouriteBadge.setText((isFav ? "  ★ Favourite" : "") + (savedBy > 0 ? "  (saved by " + savedBy + ")" : ""));
+        favouriteBadge.setForeground(isFav ? AppTheme.ACCENT_DARK : Color.DARK_GRAY);
+
+        recommendationModel.clear();
+        boolean approvedOnly = !currentUser.isAdmin();
+        for (Recipe r : recommendationIndex.getRecommendations(selected, RECOMMENDATIONS * 2)) {
+            if (recommendationModel.size() < RECOMMENDATIONS && (r.isApproved() || !approvedOnly)) {
+                recommendationModel.addElement(r);
+            }
+        }
+    }
+
+    private void openRecommendation() {
+        Recipe recommended = recommendationList.getSelectedValue();
+        if (recommended == null) {
+            return;
+        }
+        if (!listModel.contains(recommended)) {
+            listModel.addElement(recommended);
+        }
+        recipeList.setSelectedValue(recommended, true);
+    }
+
+    private void applyRating() {
+        // Keep for compatibility: directly set a quick rating without comment
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this, "Please select a recipe first.",
+                    "No recipe selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        Integer rating = (Integer) ratingComboBox.getSelectedItem();
+        if (rating != null) {
+            // Re-rating replaces the user's earlier review; keep its comment
+            Review existing = reviewRepository.getReviewByUser(selected, currentUser.getUsername());
+            Review quickReview = new Review(currentUser.getUsername(), rating,
+                    existing == null ? "" : existing.getComment());
+            reviewRepository.addReview(selected, quickReview);
+            recommendationIndex.ratingChanged(currentUser, selected, rating);
+            updateDetailsFromSelection();
+        }
+    }
+
+    private void addReview() {
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this, "Please select a recipe first.",
+                    "No recipe selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        Integer rating = (Integer) reviewRatingComboBox.getSelectedItem();
+        if (rating == null) {
+            JOptionPane.showMessageDialog(this, "Please choose a rating.",
+                    "Missing rating", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        String comment = reviewCommentArea.getText().trim();
+        Review review = new Review(currentUser.getUsername(), rating, comment);
+        reviewRepository.addReview(selected, review);
+        recommendationIndex.ratingChanged(currentUser, selected, rating);
+        if (activityRepository != null) {
+            activityRepository.add(currentUser.getUsername(), ActivityEntry.Type.REVIEW_ADDED,
+                    "Reviewed recipe: " + selected.getTitle());
+        }
+        reviewCommentArea.setText("");
+        updateDetailsFromSelection();
+    }
+
+    private void toggleFavourite() {
+        Recipe selected = recipeList.getSelectedValue();
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this, "Please select a recipe first.",
+                    "No recipe selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        boolean wasFav = favoriteRepository.isFavorite(currentUser, selected);
+        if (wasFav) {
+            favoriteRepository.removeFavorite(currentUser, selected);
+        } else {
+            favoriteRepository.addFavorite(currentUser, selected);
+        }
+        recommendationIndex.favoriteChanged(currentUser, selected, !wasFav);
+        if (activityRepository != null) {
+            activityRepository.add(currentUser.getUsername(), ActivityEntry.Type.FAVOURITE_TOGGLED,
+                    (wasFav ? "Removed from" : "Added to") + " favourites: " + selected.getTitle());
+        }
+        updateDetailsFromSelection();
+    }
+
+    private static class SearchOutcome {
+        private final java.util.List<Recipe> recipes;
+        // Shown next to the list heading when the matches are not exact; null if they are
+        private final String note;
+        private final boolean truncated;
+        private final String nextCursor;
+        private final java.util.function.Function<String, RecipePage> nextPage;
+
+        SearchOutcome(java.util.List<Recipe> recipes, String note, boolean truncated, String nextCursor,
+                      java.util.function.Function<String, RecipePage> nextPage) {
+            this.recipes = recipes;
+            this.note = note;
+            this.truncated = truncated;
+            this.nextCursor = nextCursor;
+            this.nextPage = nextPage;
+        }
+
+        /**
+         * The first page from {@code pages}, which also fetches the rest on demand.
+         */
+        static SearchOutcome paged(java.util.function.Function<String, RecipePage> pages, String note,
+                                   boolean truncated) {
+            RecipePage first = pages.apply(null);
+            return new SearchOutcome(first.getRecipes(), note, truncated, first.getNextCursor(), pages);
+        }
+    }
+
+    private class SearchWorker extends SwingWorker<SearchOutcome, Void> {
+        private final String query;
+        private final java.util.List<String> include;
+        private final java.util.List<String> exclude;
+        private final boolean approvedOnly;
+
+        SearchWorker(String query, java.util.List<String> include,
+                     java.util.List<String> exclude, boolean approvedOnly) {
+            this.query = query;
+            this.include = include;
+            this.exclude = exclude;
+            this.approvedOnly = approvedOnly;
+        }
+
+        @Override
+        protected SearchOutcome doInBackground() {
+            return runSearch(query, include, exclude, approvedOnly);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || currentSearch != this) {
+                return;
+            }
+            try {
+                applySearch(get());
+            } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                JOptionPane.showMessageDialog(ExplorerPanel.this, "Search failed: " + e.getMessage(),
+                        "Search error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Fetches the next page of the current list. Dropped if a new search has
+     * replaced the list in the meantime.
+     */
+    private class PageWorker extends SwingWorker<RecipePage, Void> {
+        private final java.util.function.Function<String, RecipePage> pages;
+        private final String cursor;
+
+        PageWorker(java.util.function.Function<String, RecipePage> pages, String cursor) {
+            this.pages = pages;
+            this.cursor = cursor;
+        }
+
+        @Override
+        protected RecipePage doInBackground() {
+            return pages.apply(cursor);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || currentPage != this) {
+                return;
+            }
+            currentPage = null;
+            loadMoreButton.setEnabled(true);
+            try {
+                applyNextPage(get());
+            } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                JOptionPane.showMessageDialog(ExplorerPanel.this, "Could not load more recipes: " + e.getMessage(),
+                        "Search error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Shows a recipe's reviews newest first, fetching them from the repository
+     * one page at a time as rows scroll into view.
+     */
+    private static class ReviewTableModel extends javax.swing.table.AbstractTableModel {
+        private static final java.time.format.DateTimeFormatter DATE_FORMAT =
+                java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(java.time.ZoneId.systemDefault());
+        private static final int PAGE_SIZE = 100;
+        private static final int CACHED_PAGES = 8;
+
+        private final ReviewStore reviewRepository;
+        private final String[] columns = {"User", "Rating", "Comment", "Date"};
+        private final java.util.Map<Integer, java.util.List<Review>> pages =
+                new java.util.LinkedHashMap<Integer, java.util.List<Review>>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(java.util.Map.Entry<Integer, java.util.List<Review>> eldest) {
+                        return size() > CACHED_PAGES;
+                    }
+                };
+        private Recipe recipe;
+        private int rowCount;
+
+        ReviewTableModel(ReviewStore reviewRepository) {
+            this.reviewRepository = reviewRepository;
+        }
+
+        public void setRecipe(Recipe recipe) {
+            this.recipe = recipe;
+            this.rowCount = recipe == null ? 0 : reviewRepository.getReviewCount(recipe);
+            pages.clear();
+            fireTableDataChanged();
+        }
+
+        private Review reviewAt(int rowIndex) {
+            int page = rowIndex / PAGE_SIZE;
+            java.util.List<Review> reviews = pages.get(page);
+            if (reviews == null) {
+                reviews = reviewRepository.getReviews(recipe, page * PAGE_SIZE, PAGE_SIZE);
+                pages.put(page, reviews);
+            }
+            int offset = rowIndex - page * PAGE_SIZE;
+            return offset < reviews.size() ? reviews.get(offset) : null;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Review r = reviewAt(rowIndex);
+            if (r == null) {
+                return "";
+            }
+            switch (columnIndex) {
+                case 0: return r.getAuthorUsername();
+                case 1: return r.getRating();
+                case 2: return r.getComment();
+                case 3: return DATE_FORMAT.format(java.time.Instant.ofEpochMilli(r.getCreatedAt()));
+                default: return "";
+            }
+        }
+    }
+}
@@ -1,45 +1,230 @@
-package app;
-
-import java.util.*;
-
-public class FavoriteRepository {
-
-    private final Map<String, List<Recipe>> favoritesByUser = new HashMap<>();
-
-    public List<Recipe> getFavorites(User user) {
-        if (user == null) {
-            return Collections.emptyList();
-        }
-        return new ArrayList<>(favoritesByUser.getOrDefault(user.getUsername().toLowerCase(), Collections.emptyList()));
-    }
-
-    public boolean isFavorite(User user, Recipe recipe) {
-        if (user == null || recipe == null) {
-            return false;
-        }
-        List<Recipe> list = favoritesByUser.get(user.getUsername().toLowerCase());
-        return list != null && list.contains(recipe);
-    }
-
-    public void addFavorite(User user, Recipe recipe) {
-        if (user == null || recipe == null) {
-            return;
-        }
-        String key = user.getUsername().toLowerCase();
-        List<Recipe> list = favoritesByUser.computeIfAbsent(key, k -> new ArrayList<>());
-        if (!list.contains(recipe)) {
-            list.add(recipe);
-        }
-    }
-
-    public void removeFavorite(User user, Recipe recipe) {
-        if (user == null || recipe == null) {
-            return;
-        }
-        String key = user.getUsername().toLowerCase();
-        List<Recipe> list = favoritesByUser.get(key);
-        if (list != null) {
-            list.remove(recipe);
-        }
-    }
-}
+package app;
+
+import java.util.*;
+
+public class FavoriteRepository implements FavoriteStore {
+
+    // Per-user favourites keyed by recipe id, iterated in the order they were added
+    private final Map<String, LongHashMap<Recipe>> favoritesByUser = new HashMap<>();
+    // Reverse index: how many users saved each recipe
+    private final FavoriteCounts counts = new FavoriteCounts();
+    // Set once persistence is running; null for a purely in-memory repository
+    private volatile Journal journal;
+
+    public synchronized List<Recipe> getFavorites(User user) {
+        if (user == null) {
+            return Collections.emptyList();
+        }
+        LongHashMap<Recipe> favorites = favoritesByUser.get(user.getUsernameKey());
+        return favorites == null ? new ArrayList<>() : favorites.values();
+    }
+
+    public synchronized int countFavorites(User user) {
+        LongHashMap<Recipe> favorites = user == null ? null : favoritesByUser.get(user.getUsernameKey());
+        return favorites == null ? 0 : favorites.size();
+    }
+
+    public synchronized boolean isFavorite(User user, Recipe recipe) {
+        if (user == null || recipe == null) {
+            return false;
+        }
+        LongHashMap<Recipe> favorites = favoritesByUser.get(user.getUsernameKey());
+        return favorites != null && favorites.containsKey(recipe.getId());
+    }
+
+    public void addFavorite(User user, Recipe recipe) {
+        if (user != null) {
+            addFavorite(user.getUsernameKey(), recipe);
+        }
+    }
+
+    void addFavorite(String userKey, Recipe recipe) {
+        if (recipe == null) {
+            return;
+        }
+        long seq = 0;
+        synchronized (this) {
+            LongHashMap<Recipe> favorites = favoritesByUser.computeIfAbsent(userKey, k -> new LongHashMap<>());
+            if (!favorites.containsKey(recipe.getId())) {
+                favorites.put(recipe.getId(), recipe);
+                counts.increment(recipe);
+                seq = journal == null ? 0 : journal.favoriteAdded(userKey, recipe.getId());
+            }
+        }
+        if (seq > 0) {
+            journal.sync(seq);
+        }
+    }
+
+    public void removeFavorite(User user, Recipe recipe) {
+        if (user != null) {
+            removeFavorite(user.getUsernameKey(), recipe);
+        }
+    }
+
+    void removeFavorite(String userKey, Recipe recipe) {
+        if (recipe == null) {
+            return;
+        }
+        long seq = 0;
+        synchronized (this) {
+            LongHashMap<Recipe> favorites = favoritesByUser.get(userKey);
+            if (favorites != null && favorites.remove(recipe.getId()) != null) {
+                counts.decrement(recipe.getId());
+                seq = journal == null ? 0 : journal.favoriteRemoved(userKey, recipe.getId());
+            }
+        }
+        if (seq > 0) {
+            journal.sync(seq);
+        }
+    }
+
+    /**
+     * Takes the recipe out of every user's favourites, as when it is
+     * deleted. Not journaled; see {@link RecipeRepository#setRemovalHandler}.
+     */
+    synchronized void removeRecipe(long recipeId) {
+        if (counts.count(recipeId) == 0) {
+            return;
+        }
+        for (LongHashMap<Recipe> favorites : favoritesByUser.values()) {
+            favorites.remove(recipeId);
+        }
+        counts.clear(recipeId);
+    }
+
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Saved recipe ids per lowercased username, for building recommendations.
+     */
+    public synchronized Map<String, long[]> getFavoriteIdsByUser() {
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<String, LongHashMap<Recipe>> e : favoritesByUser.entrySet()) {
+            if (!e.getValue().isEmpty()) {
+                result.put(e.getKey(), e.getValue().keys());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of users who saved the recipe.
+     */
+    public synchronized int getFavoriteCount(Recipe recipe) {
+        return recipe == null ? 0 : counts.count(recipe.getId());
+    }
+
+    /**
+     * The {@code n} recipes saved by the most users, most saved first.
+     */
+    public synchronized List<Recipe> getMostFavorited(int n) {
+        return counts.top(n);
+    }
+
+    /**
+     * Favourite counts per recipe, with recipes grouped into buckets by count.
+     * Counts only ever move by one, so a recipe hops to a neighbouring bucket
+     * and the highest non-empty bucket is tracked without searching.
+     */
+    private static class FavoriteCounts {
+        private final LongHashMap<Node> nodes = new LongHashMap<>();
+        private final List<Node> bucketHeads = new ArrayList<>(Collections.singletonList(null));
+        private int maxCount;
+
+        int count(long recipeId) {
+            Node node = nodes.get(recipeId);
+            return node == null ? 0 : node.count;
+        }
+
+        void increment(Recipe recipe) {
+            Node node = nodes.get(recipe.getId());
+            if (node == null) {
+                node = new Node(recipe);
+                nodes.put(recipe.getId(), node);
+            } else {
+                unlink(node);
+            }
+            node.count++;
+            link(node);
+            maxCount = Math.max(maxCount, node.count);
+        }
+
+        void decrement(long recipeId) {
+            Node node = nodes.get(recipeId);
+            if (node == null) {
+                return;
+            }
+            unlink(node);
+            node.count--;
+            if (node.count == 0) {
+                nodes.remove(recipeId);
+            } else {
+                link(node);
+            }
+            while (maxCount > 0 && bucketHeads.get(maxCount) == null) {
+                maxCount--;
+            }
+        }
+
+        void clear(long recipeId) {
+            Node node = nodes.remove(recipeId);
+            if (node == null) {
+                return;
+            }
+            unlink(node);
+            while (maxCount > 0 && bucketHeads.get(maxCount) == null) {
+                maxCount--;
+            }
+        }
+
+        List<Recipe> top(int n) {
+            List<Recipe> result = new ArrayList<>();
+            for (int c = maxCount; c > 0 && result.size() < n; c--) {
+                for (Node node = bucketHeads.get(c); node != null && result.size() < n; node = node.next) {
+                    result.add(node.recipe);
+                }
+            }
+            return result;
+        }
+
+        private void link(Node node) {
+            while (bucketHeads.size() <= node.count) {
+                bucketHeads.add(null);
+            }
+            Node head = bucketHeads.get(node.count);
+            node.prev = null;
+            node.next = head;
+            if (head != null) {
+                head.prev = node;
+            }
+            bucketHeads.set(node.count, node);
+        }
+
+        private void unlink(Node node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                bucketHeads.set(node.count, node.next);
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        private static class Node {
+            private final Recipe recipe;
+            private int count;
+            private Node prev;
+            private Node next;
+
+            Node(Recipe recipe) {
+                this.recipe = recipe;
+            }
+        }
+    }
+}
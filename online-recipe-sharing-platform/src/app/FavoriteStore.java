@@ -0,0 +1,38 @@
+package app;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for the recipes each user saved to their collection.
+ */
+public interface FavoriteStore {
+
+    /**
+     * The user's saved recipes in the order they were saved.
+     */
+    List<Recipe> getFavorites(User user);
+
+    int countFavorites(User user);
+
+    boolean isFavorite(User user, Recipe recipe);
+
+    void addFavorite(User user, Recipe recipe);
+
+    void removeFavorite(User user, Recipe recipe);
+
+    /**
+     * Saved recipe ids per lowercased username, for building recommendations.
+     */
+    Map<String, long[]> getFavoriteIdsByUser();
+
+    /**
+     * Number of users who saved the recipe.
+     */
+    int getFavoriteCount(Recipe recipe);
+
+    /**
+     * The {@code n} recipes saved by the most users, most saved first.
+     */
+    List<Recipe> getMostFavorited(int n);
+}
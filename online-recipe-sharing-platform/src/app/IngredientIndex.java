@@ -0,0 +1,141 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dictionary of normalized ingredient names with a bitmap of recipe ids per
+ * ingredient. Filter terms match an ingredient by its full name or by any of
+ * its words, so "beef" finds recipes listing "minced beef".
+ */
+public class IngredientIndex {
+
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<RecipeBitmap> recipesByIngredient = new ArrayList<>();
+    private final Map<String, List<Integer>> ingredientsByWord = new HashMap<>();
+    private final LongHashMap<int[]> ingredientsByRecipe = new LongHashMap<>();
+    private final RecipeBitmap allRecipes = new RecipeBitmap();
+
+    public void add(long recipeId, String ingredients) {
+        remove(recipeId);
+        Set<String> names = parse(ingredients);
+        int[] ids = new int[names.size()];
+        int n = 0;
+        for (String name : names) {
+            ids[n] = ingredientId(name);
+            recipesByIngredient.get(ids[n++]).add(recipeId);
+        }
+        ingredientsByRecipe.put(recipeId, ids);
+        allRecipes.add(recipeId);
+    }
+
+    public void remove(long recipeId) {
+        int[] ids = ingredientsByRecipe.remove(recipeId);
+        if (ids == null) {
+            return;
+        }
+        for (int id : ids) {
+            recipesByIngredient.get(id).remove(recipeId);
+        }
+        allRecipes.remove(recipeId);
+    }
+
+    /**
+     * Recipes that use every included ingredient and none of the excluded ones.
+     */
+    public RecipeBitmap filter(Collection<String> include, Collection<String> exclude) {
+        RecipeBitmap result = allRecipes;
+        for (String term : include) {
+            result = RecipeBitmap.and(result, matching(term));
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        for (String term : exclude) {
+            result = RecipeBitmap.andNot(result, matching(term));
+        }
+        return result == allRecipes ? allRecipes.copy() : result;
+    }
+
+    private RecipeBitmap matching(String term) {
+        String name = normalize(term);
+        RecipeBitmap result = new RecipeBitmap();
+        Set<Integer> ids = new LinkedHashSet<>();
+        Integer exact = ingredientIds.get(name);
+        if (exact != null) {
+            ids.add(exact);
+        }
+        ids.addAll(ingredientsByWord.getOrDefault(name, new ArrayList<>()));
+        for (int id : ids) {
+            result = RecipeBitmap.or(result, recipesByIngredient.get(id));
+        }
+        return result;
+    }
+
+    private int ingredientId(String name) {
+        Integer id = ingredientIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = recipesByIngredient.size();
+        ingredientIds.put(name, newId);
+        recipesByIngredient.add(new RecipeBitmap());
+        String[] words = name.split(" ");
+        if (words.length > 1) {
+            for (String word : words) {
+                ingredientsByWord.computeIfAbsent(word, w -> new ArrayList<>()).add(newId);
+            }
+        }
+        return newId;
+    }
+
+    /**
+     * Splits a comma or newline separated ingredient list into normalized names.
+     */
+    public static Set<String> parse(String ingredients) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String part : splitList(ingredients)) {
+            names.add(normalize(part));
+        }
+        names.remove("");
+        return names;
+    }
+
+    /**
+     * Splits user input on commas and newlines, dropping blank entries.
+     */
+    public static List<String> splitList(String text) {
+        List<String> parts = new ArrayList<>();
+        if (text == null) {
+            return parts;
+        }
+        for (String part : text.split("[,\\n]")) {
+            if (!part.trim().isEmpty()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Lowercases, keeps letters and digits, and drops a plural "s" from each word.
+     */
+    public static String normalize(String ingredient) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : InvertedIndex.tokenize(ingredient)) {
+            if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+                word = word.substring(0, word.length() - 1);
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(word);
+        }
+        return sb.toString();
+    }
+}
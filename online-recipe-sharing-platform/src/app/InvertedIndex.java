@@ -0,0 +1,176 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Word-level index from lowercase term to the ids of the recipes containing it.
+ */
+public class InvertedIndex {
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    // Holds every term ever indexed; terms whose postings emptied are skipped on lookup
+    private final BkTree vocabulary = new BkTree();
+    private final PrefixTrie prefixes = new PrefixTrie();
+
+    public void add(long id, String text) {
+        for (String term : tokenize(text)) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(term, list);
+                vocabulary.add(term);
+                prefixes.add(term);
+            }
+            list.add(id);
+        }
+    }
+
+    public void remove(long id, String text) {
+        for (String term : tokenize(text)) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    public PostingList get(String term) {
+        return postings.get(term);
+    }
+
+    /**
+     * Ids of recipes containing every term of the query, or null when the
+     * query has no terms.
+     */
+    public PostingList matchAll(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new PostingList();
+            }
+            lists.add(list);
+        }
+        // Intersect smallest lists first so intermediate results stay small
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        PostingList result = lists.get(0);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result = PostingList.intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #matchAll(String)}, but each query word also matches indexed
+     * terms within a small edit distance (one edit up to five letters, two
+     * beyond that).
+     */
+    public PostingList fuzzyMatchAll(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        PostingList result = null;
+        for (String term : terms) {
+            List<PostingList> lists = new ArrayList<>();
+            for (String candidate : vocabulary.find(term, maxEdits(term))) {
+                PostingList list = postings.get(candidate);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            PostingList matches = PostingList.union(lists);
+            result = result == null ? matches : PostingList.intersect(result, matches);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of recipes where every query word is the start of some indexed
+     * word. Each query word expands to at most {@code maxExpansions} terms.
+     */
+    public PostingList prefixMatchAll(String query, int maxExpansions) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        PostingList result = null;
+        for (String term : terms) {
+            List<PostingList> lists = new ArrayList<>();
+            for (String candidate : prefixes.withPrefix(term, maxExpansions)) {
+                PostingList list = postings.get(candidate);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            PostingList matches = PostingList.union(lists);
+            result = result == null ? matches : PostingList.intersect(result, matches);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether some word of the query starts more than {@code maxExpansions}
+     * indexed terms, so {@link #prefixMatchAll} left matches out.
+     */
+    public boolean prefixExpansionsExceed(String query, int maxExpansions) {
+        for (String term : tokenize(query)) {
+            if (prefixes.withPrefix(term, maxExpansions + 1).size() > maxExpansions) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int maxEdits(String term) {
+        if (term.length() <= 2) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Distinct lowercase words of the text, in order of first appearance.
+     */
+    public static List<String> tokenize(String text) {
+        return new ArrayList<>(new LinkedHashSet<>(words(text)));
+    }
+
+    /**
+     * All lowercase words of the text, including repeats.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,131 @@
+package app;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link FavoriteStore} on the {@code favorites} table of a
+ * {@link JdbcStore}. A sequence number keeps each user's collection in the
+ * order recipes were saved.
+ */
+public class JdbcFavoriteStore implements FavoriteStore {
+
+    private final JdbcStore db;
+    private final JdbcRecipeStore recipes;
+    private long nextSeq;
+
+    JdbcFavoriteStore(JdbcStore db, JdbcRecipeStore recipes) {
+        this.db = db;
+        this.recipes = recipes;
+        this.nextSeq = db.query(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT MAX(seq) FROM favorites")) {
+                rs.next();
+                return rs.getLong(1) + 1;
+            }
+        });
+    }
+
+    public List<Recipe> getFavorites(User user) {
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        return recipeList("SELECT " + JdbcRecipeStore.COLUMNS + " FROM favorites f JOIN recipes r ON r.id = f.recipe_id "
+                + "WHERE f.user_key = ? ORDER BY f.seq", user.getUsernameKey());
+    }
+
+    public int countFavorites(User user) {
+        if (user == null) {
+            return 0;
+        }
+        return db.query(connection -> JdbcRecipeStore.count(connection,
+                "SELECT COUNT(*) FROM favorites WHERE user_key = ?", user.getUsernameKey()));
+    }
+
+    public boolean isFavorite(User user, Recipe recipe) {
+        if (user == null || recipe == null) {
+            return false;
+        }
+        return db.query(connection -> JdbcRecipeStore.count(connection,
+                "SELECT COUNT(*) FROM favorites WHERE user_key = ? AND recipe_id = ?",
+                user.getUsernameKey(), recipe.getId())) > 0;
+    }
+
+    public void addFavorite(User user, Recipe recipe) {
+        if (user == null || recipe == null) {
+            return;
+        }
+        long seq;
+        synchronized (this) {
+            seq = nextSeq++;
+        }
+        db.upsert(connection -> {
+            if (JdbcRecipeStore.count(connection, "SELECT COUNT(*) FROM favorites WHERE user_key = ? AND recipe_id = ?",
+                    user.getUsernameKey(), recipe.getId()) > 0) {
+                return 0;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO favorites (user_key, recipe_id, seq) VALUES (?, ?, ?)")) {
+                JdbcRecipeStore.bind(insert, user.getUsernameKey(), recipe.getId(), seq);
+                return insert.executeUpdate();
+            }
+        });
+    }
+
+    public void removeFavorite(User user, Recipe recipe) {
+        if (user == null || recipe == null) {
+            return;
+        }
+        db.update(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM favorites WHERE user_key = ? AND recipe_id = ?")) {
+                JdbcRecipeStore.bind(delete, user.getUsernameKey(), recipe.getId());
+                return delete.executeUpdate();
+            }
+        });
+    }
+
+    public Map<String, long[]> getFavoriteIdsByUser() {
+        return db.query(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT user_key, recipe_id FROM favorites ORDER BY user_key, seq")) {
+                return JdbcStore.idsByUser(rs);
+            }
+        });
+    }
+
+    public int getFavoriteCount(Recipe recipe) {
+        if (recipe == null) {
+            return 0;
+        }
+        return db.query(connection -> JdbcRecipeStore.count(connection,
+                "SELECT COUNT(*) FROM favorites WHERE recipe_id = ?", recipe.getId()));
+    }
+
+    public List<Recipe> getMostFavorited(int n) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        return recipeList("SELECT " + JdbcRecipeStore.COLUMNS + " FROM recipes r JOIN (SELECT recipe_id, COUNT(*) AS saves "
+                + "FROM favorites GROUP BY recipe_id) c ON c.recipe_id = r.id ORDER BY c.saves DESC, r.id LIMIT ?", n);
+    }
+
+    private List<Recipe> recipeList(String sql, Object... params) {
+        return db.query(connection -> {
+            List<Recipe> result = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                JdbcRecipeStore.bind(statement, params);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(recipes.read(rs));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+}
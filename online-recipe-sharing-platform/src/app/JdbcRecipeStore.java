@@ -0,0 +1,568 @@
+package app;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * {@link RecipeStore} on the {@code recipes} table of a {@link JdbcStore}.
+ *
+ * <p>Substring search runs as {@code LIKE} over a stored lowercase
+ * "title ingredients" column; prefix and fuzzy search go through the
+ * {@code recipe_terms} table, and ingredient filters through
+ * {@code recipe_ingredients}. Only the term vocabulary for fuzzy matching is
+ * kept in memory.
+ */
+public class JdbcRecipeStore implements RecipeStore {
+
+    // Recipe columns in the order read() expects; queries alias recipes as r
+    static final String COLUMNS = "r.id, r.title, r.ingredients, r.instructions, r.author, r.approved, r.rating";
+
+    private static final String INSERT_RECIPE = "INSERT INTO recipes (id, title, ingredients, instructions, author, "
+            + "author_key, approved, rating, search_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TERM = "INSERT INTO recipe_terms (term, recipe_id) VALUES (?, ?)";
+    private static final String INSERT_INGREDIENT = "INSERT INTO recipe_ingredients (ingredient, recipe_id) VALUES (?, ?)";
+    // Rows a driver may buffer per round trip when a query is scanned rather than collected
+    private static final int SCAN_FETCH_SIZE = 500;
+
+    private final JdbcStore db;
+    private long nextId;
+    // Every term ever written, built on the first fuzzy search; guarded by this
+    private BkTree vocabulary;
+
+    JdbcRecipeStore(JdbcStore db) {
+        this.db = db;
+        this.nextId = db.query(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT MAX(id) FROM recipes")) {
+                rs.next();
+                return rs.getLong(1) + 1;
+            }
+        });
+    }
+
+    public List<Recipe> getAllRecipes() {
+        return list("SELECT " + COLUMNS + " FROM recipes r ORDER BY r.id");
+    }
+
+    public int count() {
+        return db.query(connection -> count(connection, "SELECT COUNT(*) FROM recipes"));
+    }
+
+    public RecipePage getPage(String cursor, int pageSize, boolean approvedOnly) {
+        return page("SELECT " + COLUMNS + " FROM recipes r WHERE r.id > ?"
+                + (approvedOnly ? " AND r.approved = TRUE" : "") + " ORDER BY r.id LIMIT ?", cursor, pageSize);
+    }
+
+    public List<Recipe> getRecipesByAuthor(String username) {
+        if (username == null) {
+            return new ArrayList<>();
+        }
+        return list("SELECT " + COLUMNS + " FROM recipes r WHERE r.author_key = ? ORDER BY r.id",
+                username.toLowerCase());
+    }
+
+    public int countByAuthor(String username) {
+        if (username == null) {
+            return 0;
+        }
+        return db.query(connection -> count(connection, "SELECT COUNT(*) FROM recipes WHERE author_key = ?",
+                username.toLowerCase()));
+    }
+
+    public int countPending() {
+        return db.query(connection -> count(connection, "SELECT COUNT(*) FROM recipes WHERE approved = FALSE"));
+    }
+
+    public RecipePage getPendingPage(String cursor, int pageSize) {
+        return page("SELECT " + COLUMNS + " FROM recipes r WHERE r.id > ? AND r.approved = FALSE"
+                + " ORDER BY r.id LIMIT ?", cursor, pageSize);
+    }
+
+    public Recipe getRecipe(long id) {
+        List<Recipe> found = list("SELECT " + COLUMNS + " FROM recipes r WHERE r.id = ?", id);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public RecipePage search(String query, Collection<String> include, Collection<String> exclude,
+                             boolean approvedOnly, String cursor, int pageSize) {
+        return textFilter(query, include, exclude, approvedOnly).page(cursor, pageSize);
+    }
+
+    /**
+     * Candidates are the matches of {@link #search}; they are scored by BM25
+     * with document statistics taken from the candidates themselves, since
+     * the store keeps no corpus-wide term counts. The candidates are read
+     * once; only their ids and query-term counts are kept until the
+     * statistics are complete, then the best {@code k} are fetched.
+     */
+    public List<SearchResult> searchRanked(String query, Collection<String> include, Collection<String> exclude,
+                                           boolean approvedOnly, int k) {
+        List<SearchResult> ranked = new ArrayList<>();
+        if (k <= 0) {
+            return ranked;
+        }
+        Filter filter = textFilter(query, include, exclude, approvedOnly);
+        Bm25Index.Streaming scores = new Bm25Index.Streaming(InvertedIndex.tokenize(query));
+        List<Long> ids = new ArrayList<>();
+        List<int[]> docs = new ArrayList<>();
+        filter.scan("r.id, r.title, r.ingredients", rs -> {
+            ids.add(rs.getLong(1));
+            docs.add(scores.count(rs.getString(2), rs.getString(3)));
+        });
+
+        Comparator<Hit> worstFirst = Comparator.comparingDouble((Hit hit) -> hit.score)
+                .thenComparing(hit -> -hit.id);
+        PriorityQueue<Hit> best = new PriorityQueue<>(k, worstFirst);
+        for (int i = 0; i < ids.size(); i++) {
+            Hit hit = new Hit(ids.get(i), scores.score(docs.get(i)));
+            if (best.size() < k) {
+                best.add(hit);
+            } else if (worstFirst.compare(hit, best.peek()) > 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+        if (best.isEmpty()) {
+            return ranked;
+        }
+        Map<Long, Recipe> byId = new HashMap<>();
+        for (Recipe recipe : list("SELECT " + COLUMNS + " FROM recipes r WHERE r.id IN ("
+                + String.join(", ", Collections.nCopies(best.size(), "?")) + ")",
+                best.stream().map(hit -> hit.id).toArray())) {
+            byId.put(recipe.getId(), recipe);
+        }
+        while (!best.isEmpty()) {
+            Hit hit = best.poll();
+            Recipe recipe = byId.get(hit.id);
+            // Skip a recipe removed between the passes
+            if (recipe != null) {
+                ranked.add(new SearchResult(recipe, hit.score));
+            }
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    public RecipePage searchPrefix(String query, Collection<String> include, Collection<String> exclude,
+                                   boolean approvedOnly, String cursor, int pageSize) {
+        List<String> terms = InvertedIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return search(query, include, exclude, approvedOnly, cursor, pageSize);
+        }
+        Filter filter = new Filter(include, exclude, approvedOnly);
+        for (String term : terms) {
+            filter.where("r.id IN (SELECT recipe_id FROM recipe_terms WHERE term LIKE ? ESCAPE '\\')",
+                    JdbcStore.likeEscape(term) + "%");
+        }
+        return filter.page(cursor, pageSize);
+    }
+
+    public RecipePage fuzzySearch(String query, Collection<String> include, Collection<String> exclude,
+                                  boolean approvedOnly, String cursor, int pageSize) {
+        List<String> terms = InvertedIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return new RecipePage(new ArrayList<>(), null);
+        }
+        Filter filter = new Filter(include, exclude, approvedOnly);
+        for (String term : terms) {
+            List<String> similar = similarTerms(term);
+            if (similar.isEmpty()) {
+                return new RecipePage(new ArrayList<>(), null);
+            }
+            filter.where("r.id IN (SELECT recipe_id FROM recipe_terms WHERE term IN ("
+                    + String.join(", ", Collections.nCopies(similar.size(), "?")) + "))", similar.toArray());
+        }
+        return filter.page(cursor, pageSize);
+    }
+
+    public void addRecipe(Recipe recipe) {
+        if (recipe != null) {
+            addRecipes(Collections.singletonList(recipe));
+        }
+    }
+
+    /**
+     * Inserts the recipes, their search terms and their ingredients with one
+     * prepared-statement batch per table, all in a single transaction.
+     */
+    public synchronized void addRecipes(List<Recipe> recipes) {
+        if (recipes.isEmpty()) {
+            return;
+        }
+        long[] ids = db.update(connection -> {
+            long[] assigned = new long[recipes.size()];
+            Set<Long> batchIds = new HashSet<>();
+            long next = nextId;
+            try (PreparedStatement exists = connection.prepareStatement("SELECT 1 FROM recipes WHERE id = ?");
+                 PreparedStatement insert = connection.prepareStatement(INSERT_RECIPE);
+                 PreparedStatement terms = connection.prepareStatement(INSERT_TERM);
+                 PreparedStatement ingredients = connection.prepareStatement(INSERT_INGREDIENT)) {
+                for (int i = 0; i < recipes.size(); i++) {
+                    Recipe recipe = recipes.get(i);
+                    long id = recipe.getId();
+                    if (id <= 0 || id < next && (batchIds.contains(id) || taken(exists, id))) {
+                        id = next;
+                    }
+                    next = Math.max(next, id + 1);
+                    batchIds.add(id);
+                    assigned[i] = id;
+                    insert.setLong(1, id);
+                    insert.setString(2, recipe.getTitle());
+                    insert.setString(3, recipe.getIngredients());
+                    insert.setString(4, recipe.getInstructions());
+                    insert.setString(5, recipe.getAuthorUsername());
+                    insert.setString(6, authorKey(recipe.getAuthorUsername()));
+                    insert.setBoolean(7, recipe.isApproved());
+                    insert.setInt(8, recipe.getRating());
+                    insert.setString(9, indexedText(recipe));
+                    insert.addBatch();
+                    addSearchRows(terms, ingredients, id, recipe);
+                }
+                insert.executeBatch();
+                terms.executeBatch();
+                ingredients.executeBatch();
+            }
+            return assigned;
+        });
+        for (int i = 0; i < recipes.size(); i++) {
+            Recipe recipe = recipes.get(i);
+            recipe.attach(this, ids[i]);
+            nextId = Math.max(nextId, ids[i] + 1);
+            if (vocabulary != null) {
+                for (String term : InvertedIndex.tokenize(indexedText(recipe))) {
+                    vocabulary.add(term);
+                }
+            }
+        }
+    }
+
+    public void removeRecipe(Recipe recipe) {
+        if (recipe == null || recipe.getId() <= 0) {
+            return;
+        }
+        db.update(connection -> {
+            deleteSearchRows(connection, recipe.getId());
+            // Its reviews, rating and favourites go in the same transaction
+            for (String table : new String[]{"reviews", "recipe_ratings", "favorites"}) {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE recipe_id = ?")) {
+                    delete.setLong(1, recipe.getId());
+                    delete.executeUpdate();
+                }
+            }
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM recipes WHERE id = ?")) {
+                delete.setLong(1, recipe.getId());
+                return delete.executeUpdate();
+            }
+        });
+        recipe.detach();
+    }
+
+    /**
+     * Writes the fields that differ from the recipe's current values, and
+     * its search rows if the text changed, in one transaction.
+     */
+    public void updateRecipe(Recipe recipe, String title, String ingredients, String instructions,
+                             boolean approved) {
+        if (recipe.getId() <= 0) {
+            recipe.apply(title, ingredients, instructions, approved);
+            return;
+        }
+        boolean textChanged = !Objects.equals(recipe.getTitle(), title)
+                || !Objects.equals(recipe.getIngredients(), ingredients);
+        StringBuilder set = new StringBuilder();
+        List<Object> values = new ArrayList<>();
+        if (!Objects.equals(recipe.getTitle(), title)) {
+            set.append(", title = ?");
+            values.add(title);
+        }
+        if (!Objects.equals(recipe.getIngredients(), ingredients)) {
+            set.append(", ingredients = ?");
+            values.add(ingredients);
+        }
+        if (!Objects.equals(recipe.getInstructions(), instructions)) {
+            set.append(", instructions = ?");
+            values.add(instructions);
+        }
+        if (recipe.isApproved() != approved) {
+            set.append(", approved = ?");
+            values.add(approved);
+        }
+        if (textChanged) {
+            set.append(", search_text = ?");
+            values.add(indexedText(title, ingredients));
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+        values.add(recipe.getId());
+        recipe.apply(title, ingredients, instructions, approved);
+        db.update(connection -> {
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE recipes SET " + set.substring(2) + " WHERE id = ?")) {
+                bind(update, values.toArray());
+                update.executeUpdate();
+            }
+            if (textChanged) {
+                replaceSearchRows(connection, recipe);
+            }
+            return null;
+        });
+        if (textChanged) {
+            addToVocabulary(recipe);
+        }
+    }
+
+    public void ratingChanged(Recipe recipe) {
+        db.update(connection -> {
+            try (PreparedStatement update = connection.prepareStatement("UPDATE recipes SET rating = ? WHERE id = ?")) {
+                bind(update, recipe.getRating(), recipe.getId());
+                return update.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Builds a recipe from the {@link #COLUMNS} starting at the current row,
+     * attached to this store.
+     */
+    Recipe read(ResultSet rs) throws SQLException {
+        Recipe recipe = new Recipe(rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getBoolean(6));
+        // Set the rating before attaching, so it is not written back
+        recipe.setRating(rs.getInt(7));
+        recipe.attach(this, rs.getLong(1));
+        return recipe;
+    }
+
+    private void replaceSearchRows(Connection connection, Recipe recipe) throws SQLException {
+        deleteSearchRows(connection, recipe.getId());
+        try (PreparedStatement terms = connection.prepareStatement(INSERT_TERM);
+             PreparedStatement ingredients = connection.prepareStatement(INSERT_INGREDIENT)) {
+            addSearchRows(terms, ingredients, recipe.getId(), recipe);
+            terms.executeBatch();
+            ingredients.executeBatch();
+        }
+    }
+
+    private synchronized void addToVocabulary(Recipe recipe) {
+        if (vocabulary != null) {
+            for (String term : InvertedIndex.tokenize(indexedText(recipe))) {
+                vocabulary.add(term);
+            }
+        }
+    }
+
+    private synchronized List<String> similarTerms(String term) {
+        if (vocabulary == null) {
+            BkTree loaded = new BkTree();
+            db.query(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT DISTINCT term FROM recipe_terms")) {
+                    while (rs.next()) {
+                        loaded.add(rs.getString(1));
+                    }
+                }
+                return null;
+            });
+            vocabulary = loaded;
+        }
+        return vocabulary.find(term, InvertedIndex.maxEdits(term));
+    }
+
+    private RecipePage page(String sql, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            return new RecipePage(new ArrayList<>(), null);
+        }
+        // One extra row tells whether another page follows
+        return RecipePage.of(list(sql, RecipePage.decodeCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    private List<Recipe> list(String sql, Object... params) {
+        return db.query(connection -> {
+            List<Recipe> result = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, params);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(read(rs));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    private Filter textFilter(String query, Collection<String> include, Collection<String> exclude,
+                              boolean approvedOnly) {
+        String needle = query == null ? "" : query.trim().toLowerCase();
+        Filter filter = new Filter(include, exclude, approvedOnly);
+        if (!needle.isEmpty()) {
+            filter.where("r.search_text LIKE ? ESCAPE '\\'", "%" + JdbcStore.likeEscape(needle) + "%");
+        }
+        return filter;
+    }
+
+    private static void addSearchRows(PreparedStatement terms, PreparedStatement ingredients, long id, Recipe recipe)
+            throws SQLException {
+        for (String term : InvertedIndex.tokenize(indexedText(recipe))) {
+            terms.setString(1, term);
+            terms.setLong(2, id);
+            terms.addBatch();
+        }
+        for (String name : ingredientKeys(recipe.getIngredients())) {
+            ingredients.setString(1, name);
+            ingredients.setLong(2, id);
+            ingredients.addBatch();
+        }
+    }
+
+    private static void deleteSearchRows(Connection connection, long id) throws SQLException {
+        for (String table : new String[]{"recipe_terms", "recipe_ingredients"}) {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE recipe_id = ?")) {
+                delete.setLong(1, id);
+                delete.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * The keys an ingredient filter term can match, as in
+     * {@link IngredientIndex}: each normalized name, and each word of a
+     * multi-word name.
+     */
+    private static Set<String> ingredientKeys(String ingredients) {
+        Set<String> keys = IngredientIndex.parse(ingredients);
+        for (String name : new ArrayList<>(keys)) {
+            if (name.indexOf(' ') >= 0) {
+                Collections.addAll(keys, name.split(" "));
+            }
+        }
+        return keys;
+    }
+
+    private static boolean taken(PreparedStatement exists, long id) throws SQLException {
+        exists.setLong(1, id);
+        try (ResultSet rs = exists.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    static int count(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, params);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+
+    private static String authorKey(String username) {
+        return username == null ? "" : username.toLowerCase();
+    }
+
+    private static String indexedText(Recipe recipe) {
+        return indexedText(recipe.getTitle(), recipe.getIngredients());
+    }
+
+    private static String indexedText(String title, String ingredients) {
+        return (title + " " + ingredients).toLowerCase();
+    }
+
+    /**
+     * WHERE clause with ingredient and approval filters, built up one
+     * condition at a time.
+     */
+    private final class Filter {
+        private final StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        private final List<Object> params = new ArrayList<>();
+
+        Filter(Collection<String> include, Collection<String> exclude, boolean approvedOnly) {
+            if (approvedOnly) {
+                where.append(" AND r.approved = TRUE");
+            }
+            for (String term : include) {
+                where("r.id IN (SELECT recipe_id FROM recipe_ingredients WHERE ingredient = ?)",
+                        IngredientIndex.normalize(term));
+            }
+            for (String term : exclude) {
+                where("r.id NOT IN (SELECT recipe_id FROM recipe_ingredients WHERE ingredient = ?)",
+                        IngredientIndex.normalize(term));
+            }
+        }
+
+        void where(String condition, Object... values) {
+            where.append(" AND ").append(condition);
+            Collections.addAll(params, values);
+        }
+
+        /**
+         * The matches following the cursor; the limit is applied by the
+         * database, so only one page of rows is ever read.
+         */
+        RecipePage page(String cursor, int pageSize) {
+            if (pageSize <= 0) {
+                return new RecipePage(new ArrayList<>(), null);
+            }
+            List<Object> values = new ArrayList<>(params);
+            values.add(RecipePage.decodeCursor(cursor));
+            values.add(pageSize + 1);
+            return RecipePage.of(list("SELECT " + COLUMNS + " FROM recipes r" + where
+                    + " AND r.id > ? ORDER BY r.id LIMIT ?", values.toArray()), pageSize);
+        }
+
+        /**
+         * Hands every match to {@code reader} as it is fetched, without
+         * collecting them.
+         */
+        void scan(String columns, RowReader reader) {
+            db.query(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT " + columns + " FROM recipes r" + where)) {
+                    bind(statement, params.toArray());
+                    statement.setFetchSize(SCAN_FETCH_SIZE);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            reader.read(rs);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    private interface RowReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    private static final class Hit {
+        private final long id;
+        private final double score;
+
+        Hit(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package app;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ReviewStore} on the {@code reviews} table of a {@link JdbcStore}.
+ * Rows are keyed by recipe and user; a store-wide sequence number orders
+ * them, and a replaced review takes a new one so it becomes the newest.
+ * Each write also updates the recipe's row in {@code recipe_ratings}, which
+ * holds its rating histogram and leaderboard score.
+ */
+public class JdbcReviewStore implements ReviewStore {
+
+    private static final String REVIEW_COLUMNS = "author, rating, review_text, created_at";
+
+    private static final double PRIOR_SUM = RatingLeaderboard.PRIOR_MEAN * RatingLeaderboard.PRIOR_WEIGHT;
+
+    private final JdbcStore db;
+    private long nextSeq;
+
+    JdbcReviewStore(JdbcStore db) {
+        this.db = db;
+        this.nextSeq = db.query(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT MAX(seq) FROM reviews")) {
+                rs.next();
+                return rs.getLong(1) + 1;
+            }
+        });
+    }
+
+    public List<Review> getReviews(Recipe recipe) {
+        if (recipe == null) {
+            return new ArrayList<>();
+        }
+        return list("SELECT " + REVIEW_COLUMNS + " FROM reviews WHERE recipe_id = ? ORDER BY seq", recipe.getId());
+    }
+
+    public List<Review> getReviews(Recipe recipe, int offset, int limit) {
+        if (recipe == null || offset < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return list("SELECT " + REVIEW_COLUMNS + " FROM reviews WHERE recipe_id = ? ORDER BY seq DESC LIMIT ? OFFSET ?",
+                recipe.getId(), limit, offset);
+    }
+
+    public void addReview(Recipe recipe, Review review) {
+        if (recipe == null || review == null) {
+            return;
+        }
+        long seq;
+        synchronized (this) {
+            seq = nextSeq++;
+        }
+        db.upsert(connection -> {
+            Integer oldRating = null;
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT rating FROM reviews WHERE recipe_id = ? AND user_key = ? FOR UPDATE")) {
+                JdbcRecipeStore.bind(select, recipe.getId(), userKey(review.getAuthorUsername()));
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        oldRating = rs.getInt(1);
+                    }
+                }
+            }
+            if (oldRating != null) {
+                try (PreparedStatement update = connection.prepareStatement("UPDATE reviews SET author = ?, "
+                        + "rating = ?, review_text = ?, created_at = ?, seq = ? WHERE recipe_id = ? AND user_key = ?")) {
+                    JdbcRecipeStore.bind(update, review.getAuthorUsername(), review.getRating(), review.getComment(),
+                            review.getCreatedAt(), seq, recipe.getId(), userKey(review.getAuthorUsername()));
+                    update.executeUpdate();
+                }
+                countRating(connection, recipe.getId(), oldRating, -1);
+            } else {
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO reviews (recipe_id, "
+                        + "user_key, author, rating, review_text, created_at, seq) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                    JdbcRecipeStore.bind(insert, recipe.getId(), userKey(review.getAuthorUsername()),
+                            review.getAuthorUsername(), review.getRating(), review.getComment(),
+                            review.getCreatedAt(), seq);
+                    insert.executeUpdate();
+                }
+            }
+            countRating(connection, recipe.getId(), review.getRating(), 1);
+            return null;
+        });
+    }
+
+    /**
+     * Adds {@code delta} (1 or -1) ratings of {@code rating} stars to the
+     * recipe's row in {@code recipe_ratings} and rescores it, creating the
+     * row on the first rating.
+     */
+    private static void countRating(Connection connection, long recipeId, int rating, int delta)
+            throws SQLException {
+        int stars = RatingLeaderboard.Entry.stars(rating);
+        String column = "stars_" + stars;
+        try (PreparedStatement update = connection.prepareStatement("UPDATE recipe_ratings SET " + column + " = "
+                + column + " + ?, review_count = review_count + ?, rating_sum = rating_sum + ?, "
+                + "score = CAST(rating_sum + ? AS DOUBLE PRECISION) / CAST(review_count + ? AS DOUBLE PRECISION) "
+                + "WHERE recipe_id = ?")) {
+            // The prior is folded into the parameters so the division stays in floating point
+            JdbcRecipeStore.bind(update, delta, delta, delta * stars, PRIOR_SUM + delta * stars,
+                    RatingLeaderboard.PRIOR_WEIGHT + delta, recipeId);
+            if (update.executeUpdate() > 0 || delta < 0) {
+                return;
+            }
+        }
+        int[] histogram = new int[5];
+        histogram[stars - 1] = 1;
+        RatingLeaderboard.Entry entry = new RatingLeaderboard.Entry(recipeId, histogram);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO recipe_ratings (recipe_id, "
+                + "stars_1, stars_2, stars_3, stars_4, stars_5, review_count, rating_sum, score) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            JdbcRecipeStore.bind(insert, recipeId, histogram[0], histogram[1], histogram[2], histogram[3],
+                    histogram[4], 1, stars, entry.getScore());
+            insert.executeUpdate();
+        }
+    }
+
+    public Review getReviewByUser(Recipe recipe, String username) {
+        if (recipe == null || username == null) {
+            return null;
+        }
+        List<Review> found = list("SELECT " + REVIEW_COLUMNS + " FROM reviews WHERE recipe_id = ? AND user_key = ?",
+                recipe.getId(), userKey(username));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public int getTotalReviewCount() {
+        return db.query(connection -> JdbcRecipeStore.count(connection, "SELECT COUNT(*) FROM reviews"));
+    }
+
+    public int getReviewCountByUser(String username) {
+        if (username == null) {
+            return 0;
+        }
+        return db.query(connection -> JdbcRecipeStore.count(connection,
+                "SELECT COUNT(*) FROM reviews WHERE user_key = ?", userKey(username)));
+    }
+
+    /**
+     * Read from {@code recipe_ratings}, whose score column holds the same
+     * Bayesian average as {@link RatingLeaderboard}; only the top rows of its
+     * score index are fetched.
+     */
+    public List<RatingLeaderboard.Entry> getTopRated(int n) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        return db.query(connection -> {
+            List<RatingLeaderboard.Entry> result = new ArrayList<>();
+            try (PreparedStatement top = connection.prepareStatement("SELECT recipe_id, stars_1, stars_2, stars_3, "
+                    + "stars_4, stars_5 FROM recipe_ratings WHERE review_count > 0 "
+                    + "ORDER BY score DESC, recipe_id LIMIT ?")) {
+                top.setInt(1, n);
+                try (ResultSet rs = top.executeQuery()) {
+                    while (rs.next()) {
+                        int[] histogram = new int[5];
+                        for (int i = 0; i < histogram.length; i++) {
+                            histogram[i] = rs.getInt(2 + i);
+                        }
+                        result.add(new RatingLeaderboard.Entry(rs.getLong(1), histogram));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    public Map<String, long[]> getRatedIdsByUser(int minRating) {
+        return db.query(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT user_key, recipe_id FROM reviews WHERE rating >= ? ORDER BY user_key, seq")) {
+                statement.setInt(1, minRating);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return JdbcStore.idsByUser(rs);
+                }
+            }
+        });
+    }
+
+    public int getReviewCount(Recipe recipe) {
+        if (recipe == null) {
+            return 0;
+        }
+        return db.query(connection -> JdbcRecipeStore.count(connection,
+                "SELECT COUNT(*) FROM reviews WHERE recipe_id = ?", recipe.getId()));
+    }
+
+    public double getAverageRating(Recipe recipe) {
+        if (recipe == null) {
+            return -1;
+        }
+        return db.query(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT AVG(CAST(rating AS DOUBLE)), COUNT(*) FROM reviews WHERE recipe_id = ?")) {
+                statement.setLong(1, recipe.getId());
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getInt(2) == 0 ? -1 : rs.getDouble(1);
+                }
+            }
+        });
+    }
+
+    private List<Review> list(String sql, Object... params) {
+        return db.query(connection -> {
+            List<Review> result = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                JdbcRecipeStore.bind(statement, params);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(read(rs));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    private static Review read(ResultSet rs) throws SQLException {
+        return new Review(rs.getString(1), rs.getInt(2), rs.getString(3), rs.getLong(4));
+    }
+
+    private static String userKey(String username) {
+        return username == null ? "" : username.toLowerCase();
+    }
+}
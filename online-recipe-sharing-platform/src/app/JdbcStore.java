@@ -0,0 +1,309 @@
+package app;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps recipes, reviews, favourites and users in an embedded SQL database,
+ * so the catalogue is not limited by the heap. Only the rows a query asks
+ * for are turned into objects; {@link Recipe}s handed out are attached to
+ * the store, so their setters write straight back to their row.
+ *
+ * <p>Written against H2 (any JDBC URL works if the driver is on the class
+ * path and understands {@code CREATE ... IF NOT EXISTS} and
+ * {@code LIMIT/OFFSET}). Connections come from a small fixed pool; each
+ * write runs in one transaction, and multi-row writes use prepared
+ * statement batches.
+ */
+public class JdbcStore implements DataStore {
+
+    static final int POOL_SIZE = 4;
+
+    // SQLSTATE for a duplicate primary or unique key
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final int UPSERT_ATTEMPTS = 3;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS users (user_key VARCHAR PRIMARY KEY, username VARCHAR NOT NULL, "
+                    + "password_hash VARCHAR, user_role INT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS recipes (id BIGINT PRIMARY KEY, title VARCHAR, ingredients VARCHAR, "
+                    + "instructions VARCHAR, author VARCHAR, author_key VARCHAR NOT NULL, "
+                    + "approved BOOLEAN NOT NULL, rating INT NOT NULL, search_text VARCHAR)",
+            "CREATE INDEX IF NOT EXISTS recipes_author ON recipes (author_key, id)",
+            "CREATE INDEX IF NOT EXISTS recipes_approved ON recipes (approved, id)",
+            // One row per distinct title/ingredient word, for prefix and fuzzy search
+            "CREATE TABLE IF NOT EXISTS recipe_terms (term VARCHAR NOT NULL, recipe_id BIGINT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS recipe_terms_term ON recipe_terms (term, recipe_id)",
+            "CREATE INDEX IF NOT EXISTS recipe_terms_recipe ON recipe_terms (recipe_id)",
+            // Normalized ingredient names, plus each word of multi-word names
+            "CREATE TABLE IF NOT EXISTS recipe_ingredients (ingredient VARCHAR NOT NULL, recipe_id BIGINT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS recipe_ingredients_name ON recipe_ingredients (ingredient, recipe_id)",
+            "CREATE INDEX IF NOT EXISTS recipe_ingredients_recipe ON recipe_ingredients (recipe_id)",
+            "CREATE TABLE IF NOT EXISTS reviews (recipe_id BIGINT NOT NULL, user_key VARCHAR NOT NULL, "
+                    + "author VARCHAR, rating INT NOT NULL, review_text VARCHAR, created_at BIGINT NOT NULL, "
+                    + "seq BIGINT NOT NULL, PRIMARY KEY (recipe_id, user_key))",
+            "CREATE INDEX IF NOT EXISTS reviews_recipe ON reviews (recipe_id, seq)",
+            "CREATE INDEX IF NOT EXISTS reviews_user ON reviews (user_key)",
+            // Per-recipe rating histogram and Bayesian score, kept up to date by every review write
+            "CREATE TABLE IF NOT EXISTS recipe_ratings (recipe_id BIGINT PRIMARY KEY, stars_1 INT NOT NULL, "
+                    + "stars_2 INT NOT NULL, stars_3 INT NOT NULL, stars_4 INT NOT NULL, stars_5 INT NOT NULL, "
+                    + "review_count INT NOT NULL, rating_sum BIGINT NOT NULL, score DOUBLE NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS recipe_ratings_score ON recipe_ratings (score DESC, recipe_id)",
+            "CREATE TABLE IF NOT EXISTS favorites (user_key VARCHAR NOT NULL, recipe_id BIGINT NOT NULL, "
+                    + "seq BIGINT NOT NULL, PRIMARY KEY (user_key, recipe_id))",
+            "CREATE INDEX IF NOT EXISTS favorites_recipe ON favorites (recipe_id)",
+            "CREATE INDEX IF NOT EXISTS favorites_user ON favorites (user_key, seq)"
+    };
+
+    private final BlockingQueue<Connection> pool;
+    private final List<Connection> connections = new ArrayList<>();
+    private final UserRepository users;
+    private final JdbcRecipeStore recipes;
+    private final JdbcReviewStore reviews;
+    private final JdbcFavoriteStore favorites;
+
+    private JdbcStore(String url) throws SQLException {
+        pool = new ArrayBlockingQueue<>(POOL_SIZE);
+        try {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                connections.add(connection);
+                pool.add(connection);
+            }
+            boolean empty = inTransaction(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String ddl : SCHEMA) {
+                        statement.execute(ddl);
+                    }
+                    try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+                        rs.next();
+                        return rs.getInt(1) == 0;
+                    }
+                }
+            });
+            recipes = new JdbcRecipeStore(this);
+            reviews = new JdbcReviewStore(this);
+            favorites = new JdbcFavoriteStore(this, recipes);
+            users = new JdbcUserRepository(this, loadUsers());
+            if (empty) {
+                // A fresh database starts with the same demo data as the in-memory store
+                for (User user : new UserRepository().getUsers()) {
+                    users.addUser(user);
+                }
+                recipes.addRecipes(new RecipeRepository().getAllRecipes());
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeConnections();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens (and if needed creates) the database at {@code url}.
+     */
+    public static JdbcStore open(String url) throws SQLException {
+        return new JdbcStore(url);
+    }
+
+    public UserRepository getUserRepository() {
+        return users;
+    }
+
+    public JdbcRecipeStore getRecipeStore() {
+        return recipes;
+    }
+
+    public JdbcReviewStore getReviewStore() {
+        return reviews;
+    }
+
+    public JdbcFavoriteStore getFavoriteStore() {
+        return favorites;
+    }
+
+    @Override
+    public void close() {
+        closeConnections();
+    }
+
+    /**
+     * Runs {@code work} on a pooled connection with auto-commit on.
+     */
+    <T> T query(SqlWork<T> work) {
+        Connection connection = borrow();
+        try {
+            return work.run(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database query failed: " + e.getMessage(), e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    /**
+     * Runs {@code work} on a pooled connection as one transaction, rolled
+     * back if it throws.
+     */
+    <T> T update(SqlWork<T> work) {
+        try {
+            return inTransaction(work);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database update failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Like {@link #update}, for writes that check for a row and insert it if
+     * missing: when another connection inserts the same key in between, the
+     * insert fails on the duplicate and {@code work} is run again, which then
+     * finds the row.
+     */
+    <T> T upsert(SqlWork<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return inTransaction(work);
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState()) || attempt == UPSERT_ATTEMPTS) {
+                    throw new IllegalStateException("Database update failed: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        Connection connection = borrow();
+        try {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    private Connection borrow() {
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private List<User> loadUsers() {
+        return query(connection -> {
+            List<User> result = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT username, password_hash, user_role FROM users")) {
+                while (rs.next()) {
+                    result.add(User.withPasswordHash(rs.getString(1), rs.getString(2), User.Role.values()[rs.getInt(3)]));
+                }
+            }
+            return result;
+        });
+    }
+
+    private void closeConnections() {
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Could not close a database connection: " + e.getMessage());
+            }
+        }
+        connections.clear();
+    }
+
+    /**
+     * Escapes {@code %}, {@code _} and the escape character itself for use
+     * in a {@code LIKE ... ESCAPE '\'} pattern.
+     */
+    static String likeEscape(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Collects (user key, recipe id) rows, sorted by user key, into one id
+     * array per user.
+     */
+    static Map<String, long[]> idsByUser(ResultSet rs) throws SQLException {
+        Map<String, long[]> result = new HashMap<>();
+        String user = null;
+        long[] ids = new long[8];
+        int n = 0;
+        while (rs.next()) {
+            if (!rs.getString(1).equals(user)) {
+                if (user != null) {
+                    result.put(user, Arrays.copyOf(ids, n));
+                }
+                user = rs.getString(1);
+                n = 0;
+            }
+            if (n == ids.length) {
+                ids = Arrays.copyOf(ids, n * 2);
+            }
+            ids[n++] = rs.getLong(2);
+        }
+        if (user != null) {
+            result.put(user, Arrays.copyOf(ids, n));
+        }
+        return result;
+    }
+
+    interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Users stay in memory, as they do for the other backend; new ones are
+     * also written to the users table.
+     */
+    private static final class JdbcUserRepository extends UserRepository {
+        private final JdbcStore store;
+
+        JdbcUserRepository(JdbcStore store, List<User> existing) {
+            super(false);
+            for (User user : existing) {
+                super.addUser(user);
+            }
+            this.store = store;
+        }
+
+        @Override
+        public synchronized void addUser(User user) {
+            if (user == null || usernameExists(user.getUsername())) {
+                return;
+            }
+            store.update(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO users (user_key, username, password_hash, user_role) VALUES (?, ?, ?, ?)")) {
+                    insert.setString(1, user.getUsernameKey());
+                    insert.setString(2, user.getUsername());
+                    insert.setString(3, user.getPasswordHash());
+                    insert.setInt(4, user.getRole().ordinal());
+                    return insert.executeUpdate();
+                }
+            });
+            super.addUser(user);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes repository mutations as write-ahead log records and applies them
+ * again during recovery.
+ *
+ * <p>Every record describes the resulting state rather than the change
+ * ("recipe 7 now looks like this", "user x saved recipe 7"), so applying a
+ * record twice has the same effect as applying it once. Recovery relies on
+ * that: a snapshot may already contain some effects of the records that
+ * follow it in the log.
+ *
+ * <p>Repositories append while holding their own lock, which keeps the log
+ * in the same order as the in-memory changes, and call {@link #sync(long)}
+ * after releasing it.
+ */
+public class Journal {
+
+    private static final byte RECIPE_PUT = 1;
+    private static final byte RECIPE_REMOVED = 2;
+    private static final byte REVIEW_PUT = 3;
+    private static final byte FAVORITE_ADDED = 4;
+    private static final byte FAVORITE_REMOVED = 5;
+    private static final byte USER_PUT = 6;
+
+    private final WriteAheadLog log;
+
+    public Journal(WriteAheadLog log) {
+        this.log = log;
+    }
+
+    public long recipePut(Recipe recipe) {
+        return log.append(record(RECIPE_PUT, out -> writeRecipe(out, recipe)));
+    }
+
+    public long recipeRemoved(long recipeId) {
+        return log.append(record(RECIPE_REMOVED, out -> out.writeLong(recipeId)));
+    }
+
+    public long reviewPut(long recipeId, Review review) {
+        return log.append(record(REVIEW_PUT, out -> {
+            out.writeLong(recipeId);
+            writeReview(out, review);
+        }));
+    }
+
+    public long favoriteAdded(String userKey, long recipeId) {
+        return log.append(record(FAVORITE_ADDED, out -> {
+            writeString(out, userKey);
+            out.writeLong(recipeId);
+        }));
+    }
+
+    public long favoriteRemoved(String userKey, long recipeId) {
+        return log.append(record(FAVORITE_REMOVED, out -> {
+            writeString(out, userKey);
+            out.writeLong(recipeId);
+        }));
+    }
+
+    public long userPut(User user) {
+        return log.append(record(USER_PUT, out -> writeUser(out, user)));
+    }
+
+    public void sync(long seq) {
+        log.sync(seq);
+    }
+
+    /**
+     * Replays one record against the repositories. Repositories must not
+     * have a journal attached while replaying, or the record would be
+     * logged again.
+     */
+    public static void apply(byte[] record, UserRepository users, RecipeRepository recipes,
+                             ReviewRepository reviews, FavoriteRepository favorites) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        switch (type) {
+            case RECIPE_PUT:
+                readRecipe(in, recipes);
+                break;
+            case RECIPE_REMOVED:
+                recipes.removeRecipe(recipes.getRecipe(in.readLong()));
+                break;
+            case REVIEW_PUT:
+                long recipeId = in.readLong();
+                Review review = readReview(in);
+                // Skip reviews that outlived their recipe, as older logs have them
+                if (recipes.getRecipe(recipeId) != null) {
+                    reviews.addReview(recipeId, review);
+                }
+                break;
+            case FAVORITE_ADDED:
+            case FAVORITE_REMOVED:
+                String userKey = readString(in);
+                Recipe recipe = recipes.getRecipe(in.readLong());
+                if (type == FAVORITE_ADDED) {
+                    favorites.addFavorite(userKey, recipe);
+                } else {
+                    favorites.removeFavorite(userKey, recipe);
+                }
+                break;
+            case USER_PUT:
+                users.addUser(readUser(in));
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    static void writeRecipe(DataOutputStream out, Recipe recipe) throws IOException {
+        out.writeLong(recipe.getId());
+        writeString(out, recipe.getTitle());
+        writeString(out, recipe.getIngredients());
+        writeString(out, recipe.getInstructions());
+        writeString(out, recipe.getAuthorUsername());
+        out.writeBoolean(recipe.isApproved());
+        out.writeInt(recipe.getRating());
+    }
+
+    static Recipe readRecipe(DataInputStream in, RecipeRepository recipes) throws IOException {
+        long id = in.readLong();
+        String title = readString(in);
+        String ingredients = readString(in);
+        String instructions = readString(in);
+        String author = readString(in);
+        boolean approved = in.readBoolean();
+        int rating = in.readInt();
+        return recipes.restoreRecipe(id, title, ingredients, instructions, author, approved, rating);
+    }
+
+    static void writeReview(DataOutputStream out, Review review) throws IOException {
+        writeString(out, review.getAuthorUsername());
+        out.writeInt(review.getRating());
+        writeString(out, review.getComment());
+        out.writeLong(review.getCreatedAt());
+    }
+
+    static Review readReview(DataInputStream in) throws IOException {
+        String author = readString(in);
+        int rating = in.readInt();
+        String comment = readString(in);
+        return new Review(author, rating, comment, in.readLong());
+    }
+
+    static void writeUser(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getPasswordHash());
+        out.writeByte(user.getRole().ordinal());
+    }
+
+    static User readUser(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String passwordHash = readString(in);
+        return User.withPasswordHash(username, passwordHash, User.Role.values()[in.readByte()]);
+    }
+
+    /**
+     * Strings are written as a length and UTF-8 bytes; -1 stands for null.
+     * Unlike {@code writeUTF} this has no 64 KB limit.
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] record(byte type, RecordBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream; cannot happen
+        }
+        return bytes.toByteArray();
+    }
+
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,178 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash map from primitive {@code long} keys to values, using open addressing
+ * so keys are never boxed. Entries live in dense arrays in insertion order and
+ * a linear-probing table points into them, which also makes iteration order
+ * predictable.
+ */
+public class LongHashMap<V> {
+
+    private static final Object REMOVED = new Object();
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    // table[slot] is EMPTY, DELETED, or entry index + 1
+    private int[] table;
+    private long[] keys;
+    private Object[] values;
+    private int entries;
+    private int size;
+
+    public LongHashMap() {
+        this(8);
+    }
+
+    public LongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) - 1) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        table = new int[capacity * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[table[slot] - 1];
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            int entry = table[slot] - 1;
+            V old = (V) values[entry];
+            values[entry] = value;
+            return old;
+        }
+        if (entries == keys.length) {
+            // Reclaim removed entries first; only grow when the map is really full
+            rebuild(size >= keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        keys[entries] = key;
+        values[entries] = value;
+        table[i] = ++entries;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        int entry = table[slot] - 1;
+        V old = (V) values[entry];
+        values[entry] = REMOVED;
+        table[slot] = DELETED;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(values, 0, entries, null);
+        entries = 0;
+        size = 0;
+    }
+
+    /**
+     * Keys in insertion order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < entries; i++) {
+            if (values[i] != REMOVED) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values in insertion order of their keys.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (int i = 0; i < entries; i++) {
+            if (values[i] != REMOVED) {
+                result.add((V) values[i]);
+            }
+        }
+        return result;
+    }
+
+    private int find(long key) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            int t = table[i];
+            if (t == EMPTY) {
+                return -1;
+            }
+            if (t > 0 && keys[t - 1] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void rebuild(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldEntries = entries;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        table = new int[capacity * 2];
+        entries = 0;
+        size = 0;
+        int mask = table.length - 1;
+        for (int e = 0; e < oldEntries; e++) {
+            if (oldValues[e] == REMOVED) {
+                continue;
+            }
+            int i = hash(oldKeys[e]) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[entries] = oldKeys[e];
+            values[entries] = oldValues[e];
+            table[i] = ++entries;
+            size++;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,161 @@
+package app;
+
+/**
+ * {@link LongHashMap} for non-negative {@code int} values, such as row
+ * numbers, so neither keys nor values are boxed. {@link #get} returns -1 for
+ * a missing key.
+ */
+public class LongIntHashMap {
+
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int REMOVED = -1;
+
+    // table[slot] is EMPTY, DELETED, or entry index + 1
+    private int[] table;
+    private long[] keys;
+    private int[] values;
+    private int entries;
+    private int size;
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        table = new int[capacity * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(long key) {
+        int slot = find(key);
+        return slot < 0 ? -1 : values[table[slot] - 1];
+    }
+
+    /**
+     * Maps the key to {@code value}, which must not be negative, and returns
+     * the previous value or -1.
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            int entry = table[slot] - 1;
+            int old = values[entry];
+            values[entry] = value;
+            return old;
+        }
+        if (entries == keys.length) {
+            // Reclaim removed entries first; only grow when the map is really full
+            rebuild(size >= keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        keys[entries] = key;
+        values[entries] = value;
+        table[i] = ++entries;
+        size++;
+        return -1;
+    }
+
+    public int remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return -1;
+        }
+        int entry = table[slot] - 1;
+        int old = values[entry];
+        values[entry] = REMOVED;
+        table[slot] = DELETED;
+        size--;
+        return old;
+    }
+
+    /**
+     * Keys in insertion order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < entries; i++) {
+            if (values[i] != REMOVED) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values in insertion order of their keys.
+     */
+    public int[] values() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = 0; i < entries; i++) {
+            if (values[i] != REMOVED) {
+                result[n++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    private int find(long key) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            int t = table[i];
+            if (t == EMPTY) {
+                return -1;
+            }
+            if (t > 0 && keys[t - 1] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void rebuild(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int oldEntries = entries;
+        keys = new long[capacity];
+        values = new int[capacity];
+        table = new int[capacity * 2];
+        entries = 0;
+        size = 0;
+        int mask = table.length - 1;
+        for (int e = 0; e < oldEntries; e++) {
+            if (oldValues[e] == REMOVED) {
+                continue;
+            }
+            int i = hash(oldKeys[e]) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[entries] = oldKeys[e];
+            values[entries] = oldValues[e];
+            table[i] = ++entries;
+            size++;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
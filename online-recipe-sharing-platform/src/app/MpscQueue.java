@@ -0,0 +1,56 @@
+package app;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock-free queue for many producers and a single consumer.
+ * Producers swap themselves onto the tail with one atomic exchange and then
+ * link the previous node to theirs; the consumer follows the links from the
+ * head. Only the consumer thread may call {@link #poll()}.
+ */
+public class MpscQueue<E> {
+
+    private final AtomicReference<Node<E>> tail;
+    private Node<E> head; // consumer-only
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    public void offer(E item) {
+        Node<E> node = new Node<>(item);
+        Node<E> previous = tail.getAndSet(node);
+        // Between the exchange and this store the consumer sees the queue end at previous
+        previous.next = node;
+    }
+
+    /**
+     * The oldest item, or null if the queue is empty or the newest producer
+     * has not finished linking its node yet.
+     */
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        E item = next.item;
+        next.item = null;
+        head = next;
+        return item;
+    }
+
+    public boolean isEmpty() {
+        return head.next == null && tail.get() == head;
+    }
+
+    private static final class Node<E> {
+        private E item;
+        private volatile Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+}
@@ -1,110 +1,172 @@
-package app;
-
-import javax.swing.*;
-import java.awt.*;
-
-public class OnlineRecipeApp extends JFrame {
-
-    private final RecipeRepository recipeRepository;
-    private final FavoriteRepository favoriteRepository;
-    private final ReviewRepository reviewRepository;
-    private final ActivityRepository activityRepository;
-    private final User currentUser;
-    private final JTabbedPane tabbedPane;
-
-    public OnlineRecipeApp(User currentUser) {
-        super("Online Recipe Sharing Platform");
-        this.currentUser = currentUser;
-        this.recipeRepository = new RecipeRepository();
-        this.favoriteRepository = new FavoriteRepository();
-        this.reviewRepository = new ReviewRepository();
-        this.activityRepository = new ActivityRepository();
-
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(900, 600);
-        setLocationRelativeTo(null); // center on screen
-
-        setJMenuBar(createMenuBar());
-
-        tabbedPane = new JTabbedPane();
-        configureTabsForRole();
-
-        setContentPane(tabbedPane);
-    }
-
-    private JMenuBar createMenuBar() {
-        JMenuBar menuBar = new JMenuBar();
-
-        JMenu fileMenu = new JMenu("File");
-        JMenuItem logoutItem = new JMenuItem("Logout");
-        logoutItem.addActionListener(e -> {
-            dispose();
-            // Restart login flow
-            main(new String[0]);
-        });
-        JMenuItem exitItem = new JMenuItem("Exit");
-        exitItem.addActionListener(e -> System.exit(0));
-        fileMenu.add(logoutItem);
-        fileMenu.addSeparator();
-        fileMenu.add(exitItem);
-
-        JMenu helpMenu = new JMenu("Help");
-        JMenuItem aboutItem = new JMenuItem("About");
-        aboutItem.addActionListener(e -> JOptionPane.showMessageDialog(this,
-                "Online Recipe Sharing Platform\n" +
-                        "Roles: Admin, Contributor, Explorer\n" +
-                        "Demo build with Java Swing.",
-                "About",
-                JOptionPane.INFORMATION_MESSAGE));
-        helpMenu.add(aboutItem);
-
-        menuBar.add(fileMenu);
-        menuBar.add(helpMenu);
-
-        return menuBar;
-    }
-
-    private void configureTabsForRole() {
-        tabbedPane.removeAll();
-
-        // High-level dashboard with charts
-        tabbedPane.addTab("Dashboard", new DashboardPanel(recipeRepository, favoriteRepository, reviewRepository, currentUser));
-
-        // All roles can explore recipes
-        tabbedPane.addTab("Explorer", new ExplorerPanel(recipeRepository, currentUser, favoriteRepository, reviewRepository, activityRepository));
-
-        if (currentUser.isContributor() || currentUser.isAdmin()) {
-            tabbedPane.addTab("My Recipes", new ContributorPanel(recipeRepository, currentUser, activityRepository));
-        }
-
-        // Personal favourites collection for all roles
-        tabbedPane.addTab("My Collection", new FavoritesPanel(favoriteRepository, currentUser));
-
-        if (currentUser.isAdmin()) {
-            tabbedPane.addTab("Admin", new AdminPanel(recipeRepository, activityRepository));
-        }
-
-        tabbedPane.addTab("Profile", createProfilePanel());
-    }
-
-    private JPanel createProfilePanel() {
-        return new ProfilePanel(currentUser, recipeRepository, favoriteRepository, reviewRepository, activityRepository);
-    }
-
-    public static void main(String[] args) {
-        AppTheme.applyLookAndFeel();
-
-        SwingUtilities.invokeLater(() -> {
-            UserRepository userRepository = new UserRepository();
-            LoginDialog loginDialog = new LoginDialog(null, userRepository);
-            User user = loginDialog.showDialog();
-            if (user == null) {
-                // User cancelled or failed login
-                System.exit(0);
-            }
-
-            OnlineRecipeApp app = new OnlineRecipeApp(user);
-            app.setVisible(true);
-        });
-    }
-}
+package app;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class OnlineRecipeApp extends JFrame {
+
+    // Where persistent data lives; override with -Drecipes.dataDir=<path>
+    static final java.nio.file.Path DATA_DIR = java.nio.file.Paths.get(System.getProperty("recipes.dataDir",
+            System.getProperty("user.home") + java.io.File.separator + ".online-recipes"));
+    // Storage backend: "file" (in memory, snapshot plus log) or "jdbc" (-Drecipes.jdbcUrl, H2 by default)
+    static final String BACKEND = System.getProperty("recipes.backend", "file");
+    static final String JDBC_URL = System.getProperty("recipes.jdbcUrl",
+            "jdbc:h2:file:" + DATA_DIR.resolve("db").resolve("recipes").toAbsolutePath());
+
+    private final RecipeStore recipeRepository;
+    private final FavoriteStore favoriteRepository;
+    private final ReviewStore reviewRepository;
+    private final ActivityRepository activityRepository;
+    private final RecommendationIndex recommendationIndex;
+    private final User currentUser;
+    private final JTabbedPane tabbedPane;
+
+    // Opened once per process and shared across logins
+    private static DataStore store;
+    private static ActivityRepository activity;
+    private static RecommendationIndex recommendations;
+
+    public OnlineRecipeApp(User currentUser, DataStore store, ActivityRepository activityRepository,
+                           RecommendationIndex recommendationIndex) {
+        super("Online Recipe Sharing Platform");
+        this.currentUser = currentUser;
+        this.recipeRepository = store.getRecipeStore();
+        this.favoriteRepository = store.getFavoriteStore();
+        this.reviewRepository = store.getReviewStore();
+        this.activityRepository = activityRepository;
+        this.recommendationIndex = recommendationIndex;
+
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(900, 600);
+        setLocationRelativeTo(null); // center on screen
+
+        setJMenuBar(createMenuBar());
+
+        tabbedPane = new JTabbedPane();
+        configureTabsForRole();
+
+        setContentPane(tabbedPane);
+    }
+
+    private static DataStore openStore() {
+        if (BACKEND.equals("jdbc")) {
+            try {
+                JdbcStore opened = JdbcStore.open(JDBC_URL);
+                Runtime.getRuntime().addShutdownHook(new Thread(opened::close));
+                return opened;
+            } catch (java.sql.SQLException e) {
+                // DriverManager reports a driver missing from the class path as SQLSTATE 08001
+                String reason = "08001".equals(e.getSQLState())
+                        ? "no JDBC driver on the class path (the default URL needs com.h2database:h2, see README)"
+                        : e.getMessage();
+                System.err.println("Could not open the database " + JDBC_URL + ", using the file store: " + reason);
+            }
+        }
+        try {
+            PersistentStore opened = PersistentStore.open(DATA_DIR.resolve("store"));
+            Runtime.getRuntime().addShutdownHook(new Thread(opened::close));
+            return opened;
+        } catch (java.io.IOException e) {
+            // Keep running on the demo data; nothing will be saved
+            System.err.println("Could not open the data store, changes will not be saved: " + e.getMessage());
+            return PersistentStore.inMemory();
+        }
+    }
+
+    private static ActivityRepository openActivity() {
+        ActivityLog log = null;
+        try {
+            log = ActivityLog.open(DATA_DIR.resolve("activity"));
+        } catch (java.io.IOException e) {
+            // Keep running with in-memory activity only
+            System.err.println("Activity history will not be saved: " + e.getMessage());
+        }
+        ActivityRepository opened = new ActivityRepository(log);
+        Runtime.getRuntime().addShutdownHook(new Thread(opened::close));
+        return opened;
+    }
+
+    private JMenuBar createMenuBar() {
+        JMenuBar menuBar = new JMenuBar();
+
+        JMenu fileMenu = new JMenu("File");
+        JMenuItem logoutItem = new JMenuItem("Logout");
+        logoutItem.addActionListener(e -> {
+            dispose();
+            // Restart login flow
+            main(new String[0]);
+        });
+        JMenuItem exitItem = new JMenuItem("Exit");
+        exitItem.addActionListener(e -> System.exit(0));
+        fileMenu.add(logoutItem);
+        fileMenu.addSeparator();
+        fileMenu.add(exitItem);
+
+        JMenu helpMenu = new JMenu("Help");
+        JMenuItem aboutItem = new JMenuItem("About");
+        aboutItem.addActionListener(e -> JOptionPane.showMessageDialog(this,
+                "Online Recipe Sharing Platform\n" +
+                        "Roles: Admin, Contributor, Explorer\n" +
+                        "Demo build with Java Swing.",
+                "About",
+                JOptionPane.INFORMATION_MESSAGE));
+        helpMenu.add(aboutItem);
+
+        menuBar.add(fileMenu);
+        menuBar.add(helpMenu);
+
+        return menuBar;
+    }
+
+    private void configureTabsForRole() {
+        tabbedPane.removeAll();
+
+        // High-level dashboard with charts
+        tabbedPane.addTab("Dashboard", new DashboardPanel(recipeRepository, favoriteRepository, reviewRepository, currentUser));
+
+        // All roles can explore recipes
+        tabbedPane.addTab("Explorer", new ExplorerPanel(recipeRepository, currentUser, favoriteRepository, reviewRepository,
+                activityRepository, recommendationIndex));
+
+        if (currentUser.isContributor() || currentUser.isAdmin()) {
+            tabbedPane.addTab("My Recipes", new ContributorPanel(recipeRepository, currentUser, activityRepository));
+        }
+
+        // Personal favourites collection for all roles
+        tabbedPane.addTab("My Collection", new FavoritesPanel(favoriteRepository, currentUser));
+
+        if (currentUser.isAdmin()) {
+            tabbedPane.addTab("Admin", new AdminPanel(recipeRepository, activityRepository));
+        }
+
+        tabbedPane.addTab("Profile", createProfilePanel());
+    }
+
+    private JPanel createProfilePanel() {
+        return new ProfilePanel(currentUser, recipeRepository, favoriteRepository, reviewRepository, activityRepository);
+    }
+
+    public static void main(String[] args) {
+        AppTheme.applyLookAndFeel();
+
+        SwingUtilities.invokeLater(() -> {
+            if (store == null) {
+                store = openStore();
+                activity = openActivity();
+                // Builds in the background while the user logs in
+                recommendations = new RecommendationIndex(store.getRecipeStore(), store.getFavoriteStore(),
+                        store.getReviewStore());
+            }
+            UserRepository userRepository = store.getUserRepository();
+            LoginDialog loginDialog = new LoginDialog(null, userRepository);
+            User user = loginDialog.showDialog();
+            if (user == null) {
+                // User cancelled or failed login
+                System.exit(0);
+            }
+
+            OnlineRecipeApp app = new OnlineRecipeApp(user, store, activity, recommendations);
+            app.setVisible(true);
+        });
+    }
+}
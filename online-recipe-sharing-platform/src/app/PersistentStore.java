@@ -0,0 +1,319 @@
+package app;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the user, recipe, review and favourite repositories on disk as a
+ * snapshot plus a write-ahead log.
+ *
+ * <p>Every mutation is journaled before the call that made it returns (see
+ * {@link Journal}). A checkpoint briefly locks all four repositories, moves
+ * the log on to a new generation and captures their contents; the snapshot
+ * is written after the lock is released and then replaces the older
+ * snapshot and log files. {@code snapshot-G} holds everything logged in
+ * generations up to G, so recovery loads the newest readable snapshot and
+ * replays only the log generations after it. Snapshots are written in the
+ * {@link SnapshotFile} format. Recipe text is kept out of the heap by a
+ * {@link RecipeBodyStore}: it is read in place from the current snapshot,
+ * and only text changed since then is written to a spill file. After each
+ * checkpoint the recipes it captured are pointed at the new snapshot.
+ *
+ * <p>Activity history is not part of this store; {@link ActivityLog} keeps
+ * it durable on its own.
+ */
+public class PersistentStore implements DataStore {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".dat";
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_SUFFIX = ".log";
+
+    private static final long CHECKPOINT_LOG_BYTES = 64L * 1024 * 1024;
+    private static final long CHECKPOINT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long CHECKPOINT_POLL_SECONDS = 30;
+    private static final long CLOSE_WAIT_SECONDS = 60;
+    private static final int INDEX_CHUNK = 2000;
+
+    private final Path directory;
+    private final UserRepository users;
+    private final RecipeRepository recipes;
+    private final ReviewRepository reviews;
+    private final FavoriteRepository favorites;
+    private final WriteAheadLog wal;
+    // Off-heap recipe text; null for the in-memory store
+    private RecipeBodyStore bodies;
+    private final ScheduledExecutorService checkpointer;
+    private final Object checkpointLock = new Object();
+    private long lastCheckpointMillis = System.currentTimeMillis();
+    private Thread indexer;
+    private volatile boolean closing;
+
+    private PersistentStore(Path directory, UserRepository users, RecipeRepository recipes,
+                            ReviewRepository reviews, FavoriteRepository favorites, WriteAheadLog wal) {
+        this.directory = directory;
+        this.users = users;
+        this.recipes = recipes;
+        this.reviews = reviews;
+        this.favorites = favorites;
+        this.wal = wal;
+        cascadeRemovals(recipes, reviews, favorites);
+        if (wal == null) {
+            checkpointer = null;
+            return;
+        }
+        Journal journal = new Journal(wal);
+        users.setJournal(journal);
+        recipes.setJournal(journal);
+        reviews.setJournal(journal);
+        favorites.setJournal(journal);
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "store-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointIfDue,
+                CHECKPOINT_POLL_SECONDS, CHECKPOINT_POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Repositories with the demo data and no persistence.
+     */
+    public static PersistentStore inMemory() {
+        return new PersistentStore(null, new UserRepository(), new RecipeRepository(),
+                new ReviewRepository(), new FavoriteRepository(), null);
+    }
+
+    /**
+     * Recovers the repositories from {@code directory}, or seeds them with
+     * the demo data and writes a first snapshot if the directory is empty.
+     */
+    public static PersistentStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> snapshots = list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeMap<Long, Path> logs = list(directory, WAL_PREFIX, WAL_SUFFIX);
+
+        RecipeBodyStore bodies = RecipeBodyStore.open(directory);
+        if (snapshots.isEmpty() && logs.isEmpty()) {
+            RecipeRepository recipes = new RecipeRepository();
+            recipes.setBodyStore(bodies);
+            PersistentStore store = new PersistentStore(directory, new UserRepository(), recipes,
+                    new ReviewRepository(), new FavoriteRepository(), new WriteAheadLog(directory, 1));
+            store.bodies = bodies;
+            store.checkpoint();
+            return store;
+        }
+
+        UserRepository users = new UserRepository(false);
+        RecipeRepository recipes = new RecipeRepository(false);
+        recipes.setBodyStore(bodies);
+        ReviewRepository reviews = new ReviewRepository();
+        FavoriteRepository favorites = new FavoriteRepository();
+        // Replayed removals must drop reviews and favourites as the live ones did
+        cascadeRemovals(recipes, reviews, favorites);
+        // Recipes become browsable straight away; the search indexes are
+        // built in the background afterwards
+        recipes.setDeferIndexing(true);
+        long snapshotGeneration = 0;
+        for (Map.Entry<Long, Path> snapshot : snapshots.descendingMap().entrySet()) {
+            if (SnapshotFile.isReadable(snapshot.getValue())) {
+                SnapshotFile.read(snapshot.getValue(), users, recipes, reviews, favorites);
+                snapshotGeneration = snapshot.getKey();
+                break;
+            }
+        }
+        long lastGeneration = snapshotGeneration;
+        for (Map.Entry<Long, Path> log : logs.tailMap(snapshotGeneration, false).entrySet()) {
+            for (byte[] record : WriteAheadLog.read(log.getValue())) {
+                Journal.apply(record, users, recipes, reviews, favorites);
+            }
+            lastGeneration = log.getKey();
+        }
+        recipes.setDeferIndexing(false);
+        PersistentStore store = new PersistentStore(directory, users, recipes, reviews, favorites,
+                new WriteAheadLog(directory, lastGeneration + 1));
+        store.bodies = bodies;
+        store.startIndexer();
+        return store;
+    }
+
+    public UserRepository getUserRepository() {
+        return users;
+    }
+
+    public RecipeRepository getRecipeStore() {
+        return recipes;
+    }
+
+    public ReviewRepository getReviewStore() {
+        return reviews;
+    }
+
+    public FavoriteRepository getFavoriteStore() {
+        return favorites;
+    }
+
+    /**
+     * Writes a snapshot of all repositories and drops the log generations it
+     * covers. Writers are only held up while the contents are captured, not
+     * while the file is written.
+     */
+    public void checkpoint() throws IOException {
+        if (wal == null) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            long generation;
+            long lastSeq;
+            List<User> userList;
+            List<Recipe> recipeList;
+            long[] bodyHandles;
+            long nextId;
+            LongHashMap<List<Review>> reviewsByRecipe;
+            Map<String, long[]> favoriteIds;
+            // Same lock order as any writer: repository first, then the log
+            synchronized (users) {
+                synchronized (recipes) {
+                    synchronized (reviews) {
+                        synchronized (favorites) {
+                            generation = wal.getGeneration();
+                            lastSeq = wal.rotate(generation + 1);
+                            // Text changed from here on goes to a new spill
+                            // file, so the handles captured below stay put
+                            bodies.rotateSpill();
+                            userList = users.getUsers();
+                            recipeList = recipes.getAllRecipes();
+                            bodyHandles = new long[recipeList.size()];
+                            for (int i = 0; i < bodyHandles.length; i++) {
+                                bodyHandles[i] = recipeList.get(i).getBodyHandle();
+                            }
+                            nextId = recipes.getNextId();
+                            reviewsByRecipe = reviews.getAllReviewsByRecipe();
+                            favoriteIds = favorites.getFavoriteIdsByUser();
+                        }
+                    }
+                }
+            }
+            Path target = directory.resolve(String.format("%s%016d%s", SNAPSHOT_PREFIX, generation, SNAPSHOT_SUFFIX));
+            long[] bodyOffsets = SnapshotFile.write(target, generation, userList, recipeList, bodyHandles, bodies,
+                    nextId, reviewsByRecipe, favoriteIds);
+            wal.snapshotWritten(lastSeq);
+            int bodySource = bodies.addSnapshot(SnapshotFile.mapBodies(target));
+            for (int i = 0; i < bodyOffsets.length; i++) {
+                recipeList.get(i).moveBodyHandle(bodyHandles[i], RecipeBodyStore.handle(bodySource, bodyOffsets[i]));
+            }
+            bodies.releaseReplaced();
+            for (Path old : list(directory, WAL_PREFIX, WAL_SUFFIX).headMap(generation, true).values()) {
+                Files.deleteIfExists(old);
+            }
+            for (Path old : list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(generation, false).values()) {
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    // Some platforms refuse to delete a file that is still
+                    // mapped; the next checkpoint tries again
+                    System.err.println("Could not remove " + old + ": " + e.getMessage());
+                }
+            }
+            lastCheckpointMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Stops background checkpoints, writes a final snapshot if anything was
+     * logged since the last one, and closes the log and the recipe text
+     * file.
+     */
+    @Override
+    public void close() {
+        if (wal == null) {
+            return;
+        }
+        // Let a running checkpoint and index chunk finish: an interrupt would
+        // close the file channels they read and write through
+        closing = true;
+        checkpointer.shutdown();
+        try {
+            if (indexer != null) {
+                indexer.join();
+            }
+            if (!checkpointer.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Gave up waiting for a background checkpoint");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (wal.getFileBytes() > 0 || wal.hasFailed()) {
+                checkpoint();
+            }
+            wal.close();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not close the data store: " + e.getMessage());
+        } finally {
+            bodies.close();
+        }
+    }
+
+    private void checkpointIfDue() {
+        long logBytes = wal.getFileBytes();
+        // A failed log write is only made good by a snapshot, so take one at once
+        boolean due = wal.hasFailed() || logBytes >= CHECKPOINT_LOG_BYTES
+                || (logBytes > 0 && System.currentTimeMillis() - lastCheckpointMillis >= CHECKPOINT_INTERVAL_MS);
+        if (!due) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes recipes left unindexed by recovery a chunk at a time, letting
+     * go of the repository between chunks so searches, page loads and edits
+     * are never held up for long. Searches in the meantime miss the recipes
+     * not indexed yet.
+     */
+    private void startIndexer() {
+        indexer = new Thread(() -> {
+            while (!closing && recipes.indexPending(INDEX_CHUNK) > 0) {
+                Thread.yield();
+            }
+        }, "recipe-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Removing a recipe also removes its reviews, rating and favourites.
+     */
+    private static void cascadeRemovals(RecipeRepository recipes, ReviewRepository reviews,
+                                        FavoriteRepository favorites) {
+        recipes.setRemovalHandler(id -> {
+            reviews.removeRecipe(id);
+            favorites.removeRecipe(id);
+        });
+    }
+
+    private static TreeMap<Long, Path> list(Path directory, String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,162 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted, duplicate-free list of recipe ids backed by a primitive array.
+ */
+public class PostingList {
+    private long[] ids = new long[4];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Index of the first id greater than {@code id}, or {@link #size()} if none.
+     */
+    public int indexAfter(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public void add(long id) {
+        // Ids are handed out in increasing order, so appending is the common case
+        if (size > 0 && ids[size - 1] >= id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            insertAt(-pos - 1, id);
+            return;
+        }
+        insertAt(size, id);
+    }
+
+    public void remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+    }
+
+    /**
+     * Drops the {@code n} smallest ids.
+     */
+    public void removeFirst(int n) {
+        int count = Math.min(Math.max(n, 0), size);
+        System.arraycopy(ids, count, ids, 0, size - count);
+        size -= count;
+    }
+
+    private void insertAt(int pos, long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+    }
+
+    /**
+     * Returns the ids present in both lists. Walks the smaller list and
+     * binary-searches the larger one.
+     */
+    public static PostingList intersect(PostingList a, PostingList b) {
+        PostingList small = a.size <= b.size ? a : b;
+        PostingList large = small == a ? b : a;
+        PostingList result = new PostingList();
+        for (int i = 0; i < small.size; i++) {
+            long id = small.ids[i];
+            if (large.contains(id)) {
+                result.insertAt(result.size, id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wraps ids that are already sorted and distinct, such as those of a
+     * {@link RecipeBitmap}.
+     */
+    static PostingList ofSorted(long[] ids) {
+        PostingList result = new PostingList();
+        result.ids = ids.length == 0 ? new long[4] : ids;
+        result.size = ids.length;
+        return result;
+    }
+
+    /**
+     * Returns the ids present in any of the lists. Lists are merged in pairs,
+     * so each id is copied about log(k) times rather than inserted one by one.
+     */
+    public static PostingList union(List<PostingList> lists) {
+        List<PostingList> round = new ArrayList<>(lists);
+        if (round.isEmpty()) {
+            return new PostingList();
+        }
+        while (round.size() > 1) {
+            List<PostingList> next = new ArrayList<>((round.size() + 1) / 2);
+            for (int i = 0; i < round.size(); i += 2) {
+                next.add(i + 1 < round.size() ? merge(round.get(i), round.get(i + 1)) : round.get(i));
+            }
+            round = next;
+        }
+        PostingList only = round.get(0);
+        return only == lists.get(0) ? copy(only) : only;
+    }
+
+    private static PostingList merge(PostingList a, PostingList b) {
+        PostingList result = new PostingList();
+        result.ids = new long[Math.max(4, a.size + b.size)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.size && j < b.size) {
+            long x = a.ids[i];
+            long y = b.ids[j];
+            if (x <= y) {
+                i++;
+                if (x == y) {
+                    j++;
+                }
+                result.ids[n++] = x;
+            } else {
+                j++;
+                result.ids[n++] = y;
+            }
+        }
+        while (i < a.size) {
+            result.ids[n++] = a.ids[i++];
+        }
+        while (j < b.size) {
+            result.ids[n++] = b.ids[j++];
+        }
+        result.size = n;
+        return result;
+    }
+
+    private static PostingList copy(PostingList list) {
+        PostingList result = new PostingList();
+        result.ids = Arrays.copyOf(list.ids, Math.max(4, list.size));
+        result.size = list.size;
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package app;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Character trie over words. Children are kept in small sorted arrays rather
+ * than maps, which keeps nodes compact for a mostly sparse alphabet.
+ */
+public class PrefixTrie {
+
+    private final Node root = new Node();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.childOrCreate(word.charAt(i));
+        }
+        if (node.word == null) {
+            node.word = word;
+            size++;
+        }
+    }
+
+    /**
+     * Words starting with {@code prefix}, shortest first within each branch,
+     * stopping after {@code limit} words.
+     */
+    public List<String> withPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return result;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.add(node);
+        while (!pending.isEmpty() && result.size() < limit) {
+            Node current = pending.poll();
+            if (current.word != null) {
+                result.add(current.word);
+            }
+            for (int i = 0; i < current.childCount; i++) {
+                pending.add(current.children[i]);
+            }
+        }
+        return result;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+        private String word;
+
+        Node child(char c) {
+            int pos = Arrays.binarySearch(keys, 0, childCount, c);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int pos = Arrays.binarySearch(keys, 0, childCount, c);
+            if (pos >= 0) {
+                return children[pos];
+            }
+            pos = -pos - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, pos, keys, pos + 1, childCount - pos);
+            System.arraycopy(children, pos, children, pos + 1, childCount - pos);
+            Node node = new Node();
+            keys[pos] = c;
+            children[pos] = node;
+            childCount++;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Ranks rated recipes by a Bayesian average: every recipe starts with a few
+ * imaginary middle-of-the-road ratings, so one 5-star review cannot outrank
+ * a dish with dozens of 4- and 5-star reviews. The ranking is updated in
+ * place on every rating, so reading the top N never scans or sorts.
+ */
+public class RatingLeaderboard {
+
+    static final double PRIOR_MEAN = 3.0;
+    static final int PRIOR_WEIGHT = 5;
+
+    private final LongHashMap<Entry> entries = new LongHashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(
+            Comparator.comparingDouble(Entry::getScore).reversed().thenComparingLong(Entry::getRecipeId));
+
+    public synchronized void record(long recipeId, int rating) {
+        Entry entry = entries.get(recipeId);
+        if (entry == null) {
+            entry = new Entry(recipeId);
+            entries.put(recipeId, entry);
+        } else {
+            ranking.remove(entry);
+        }
+        entry.add(rating);
+        ranking.add(entry);
+    }
+
+    /**
+     * Swaps one earlier rating of the recipe for a new one, as when a user
+     * changes their review.
+     */
+    public synchronized void replace(long recipeId, int oldRating, int newRating) {
+        Entry entry = entries.get(recipeId);
+        if (entry == null) {
+            record(recipeId, newRating);
+            return;
+        }
+        ranking.remove(entry);
+        entry.remove(oldRating);
+        entry.add(newRating);
+        ranking.add(entry);
+    }
+
+    /**
+     * Drops the recipe from the ranking, as when it is deleted.
+     */
+    public synchronized void remove(long recipeId) {
+        Entry entry = entries.remove(recipeId);
+        if (entry != null) {
+            ranking.remove(entry);
+        }
+    }
+
+    /**
+     * The {@code n} highest-scoring recipes, best first.
+     */
+    public synchronized List<Entry> top(int n) {
+        List<Entry> result = new ArrayList<>(Math.min(n, ranking.size()));
+        Iterator<Entry> it = ranking.iterator();
+        while (it.hasNext() && result.size() < n) {
+            result.add(it.next().copy());
+        }
+        return result;
+    }
+
+    public static class Entry {
+        private final long recipeId;
+        private final int[] histogram = new int[5]; // counts of 1..5 star ratings
+        private int count;
+        private long sum;
+        private double score;
+
+        Entry(long recipeId) {
+            this.recipeId = recipeId;
+        }
+
+        /**
+         * An entry with the given counts of 1..5 star ratings.
+         */
+        Entry(long recipeId, int[] histogram) {
+            this.recipeId = recipeId;
+            for (int i = 0; i < this.histogram.length; i++) {
+                this.histogram[i] = histogram[i];
+                count += histogram[i];
+                sum += (long) histogram[i] * (i + 1);
+            }
+            rescore();
+        }
+
+        void add(int rating) {
+            int stars = stars(rating);
+            histogram[stars - 1]++;
+            count++;
+            sum += stars;
+            rescore();
+        }
+
+        void remove(int rating) {
+            int stars = stars(rating);
+            if (histogram[stars - 1] == 0) {
+                return;
+            }
+            histogram[stars - 1]--;
+            count--;
+            sum -= stars;
+            rescore();
+        }
+
+        static int stars(int rating) {
+            return Math.max(1, Math.min(5, rating));
+        }
+
+        private void rescore() {
+            score = (PRIOR_MEAN * PRIOR_WEIGHT + sum) / (PRIOR_WEIGHT + count);
+        }
+
+        Entry copy() {
+            Entry copy = new Entry(recipeId);
+            System.arraycopy(histogram, 0, copy.histogram, 0, histogram.length);
+            copy.count = count;
+            copy.sum = sum;
+            copy.score = score;
+            return copy;
+        }
+
+        public long getRecipeId() {
+            return recipeId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getReviewCount() {
+            return count;
+        }
+
+        public double getAverageRating() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+}
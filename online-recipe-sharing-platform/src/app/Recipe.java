@@ -1,72 +1,211 @@
-package app;
-
-public class Recipe {
-    private String title;
-    private String ingredients;
-    private String instructions;
-    private int rating; // 0 means not rated yet
-    private final String authorUsername;
-    private boolean approved;
-
-    public Recipe(String title, String ingredients, String instructions, String authorUsername, boolean approved) {
-        this.title = title;
-        this.ingredients = ingredients;
-        this.instructions = instructions;
-        this.authorUsername = authorUsername;
-        this.approved = approved;
-        this.rating = 0;
-    }
-
-    public String getTitle() {
-        return title;
-    }
-
-    public void setTitle(String title) {
-        this.title = title;
-    }
-
-    public String getIngredients() {
-        return ingredients;
-    }
-
-    public void setIngredients(String ingredients) {
-        this.ingredients = ingredients;
-    }
-
-    public String getInstructions() {
-        return instructions;
-    }
-
-    public void setInstructions(String instructions) {
-        this.instructions = instructions;
-    }
-
-    public int getRating() {
-        return rating;
-    }
-
-    public void setRating(int rating) {
-        this.rating = rating;
-    }
-
-    public String getAuthorUsername() {
-        return authorUsername;
-    }
-
-    public boolean isApproved() {
-        return approved;
-    }
-
-    public void setApproved(boolean approved) {
-        this.approved = approved;
-    }
-
-    public boolean isOwnedBy(User user) {
-        return user != null && user.getUsername().equalsIgnoreCase(authorUsername);
-    }
-
-    @Override
-    public String toString() {
-        return title + " (by " + authorUsername + (approved ? ", approved" : ", pending") + ")";
-    }
-}
+package app;
+
+import java.util.Objects;
+
+public class Recipe {
+    private long id; // 0 until added to a RecipeStore
+    private RecipeStore repository;
+    private String title;
+    private String ingredients; // null while the text is in bodyStore
+    private String instructions;
+    private RecipeBodyStore bodyStore;
+    private long bodyHandle;
+    private int rating; // 0 means not rated yet
+    private final String authorUsername;
+    private boolean approved;
+
+    public Recipe(String title, String ingredients, String instructions, String authorUsername, boolean approved) {
+        this.title = title;
+        this.ingredients = ingredients;
+        this.instructions = instructions;
+        this.authorUsername = authorUsername;
+        this.approved = approved;
+        this.rating = 0;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    void attach(RecipeStore repository, long id) {
+        this.repository = repository;
+        this.id = id;
+    }
+
+    void detach() {
+        this.repository = null;
+        restoreBody();
+    }
+
+    /**
+     * Moves the ingredients and instructions out of this object into the
+     * store, leaving only the header fields on the heap.
+     */
+    synchronized void moveBody(RecipeBodyStore store) {
+        if (store == null || store == bodyStore) {
+            return;
+        }
+        String currentIngredients = getIngredients();
+        String currentInstructions = getInstructions();
+        bodyHandle = store.write(currentIngredients, currentInstructions);
+        bodyStore = store;
+        ingredients = null;
+        instructions = null;
+    }
+
+    /**
+     * Points this recipe at text already in the store, as recovery does for
+     * text read in place from a snapshot.
+     */
+    synchronized void setBody(RecipeBodyStore store, long handle) {
+        bodyStore = store;
+        bodyHandle = handle;
+        ingredients = null;
+        instructions = null;
+    }
+
+    /**
+     * The handle of the text in the store, or -1 if it is on the heap.
+     */
+    synchronized long getBodyHandle() {
+        return bodyStore == null ? -1 : bodyHandle;
+    }
+
+    /**
+     * Swaps the handle for one to the same text elsewhere, unless the text
+     * was changed or moved back to the heap since {@code expected} was read.
+     */
+    synchronized void moveBodyHandle(long expected, long replacement) {
+        if (bodyStore != null && bodyHandle == expected) {
+            bodyHandle = replacement;
+        }
+    }
+
+    private synchronized void restoreBody() {
+        if (bodyStore != null) {
+            RecipeBodyStore.Body body = bodyStore.read(bodyHandle);
+            ingredients = body.getIngredients();
+            instructions = body.getInstructions();
+            bodyStore = null;
+        }
+    }
+
+    private synchronized void writeBody(String newIngredients, String newInstructions) {
+        if (bodyStore != null) {
+            bodyHandle = bodyStore.write(newIngredients, newInstructions);
+        } else {
+            ingredients = newIngredients;
+            instructions = newInstructions;
+        }
+    }
+
+    /**
+     * Sets the editable fields together, for {@link RecipeStore#updateRecipe};
+     * changed text is written to the body store once.
+     */
+    synchronized void apply(String title, String ingredients, String instructions, boolean approved) {
+        this.title = title;
+        if (!Objects.equals(ingredients, getIngredients()) || !Objects.equals(instructions, getInstructions())) {
+            writeBody(ingredients, instructions);
+        }
+        this.approved = approved;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        if (repository != null) {
+            repository.updateRecipe(this, title, getIngredients(), getInstructions(), approved);
+        } else {
+            this.title = title;
+        }
+    }
+
+    public synchronized String getIngredients() {
+        return bodyStore == null ? ingredients : bodyStore.read(bodyHandle).getIngredients();
+    }
+
+    public void setIngredients(String ingredients) {
+        if (repository != null) {
+            repository.updateRecipe(this, title, ingredients, getInstructions(), approved);
+        } else {
+            apply(title, ingredients, getInstructions(), approved);
+        }
+    }
+
+    public synchronized String getInstructions() {
+        return bodyStore == null ? instructions : bodyStore.read(bodyHandle).getInstructions();
+    }
+
+    public void setInstructions(String instructions) {
+        if (repository != null) {
+            repository.updateRecipe(this, title, getIngredients(), instructions, approved);
+        } else {
+            apply(title, getIngredients(), instructions, approved);
+        }
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public void setRating(int rating) {
+        this.rating = rating;
+        if (repository != null) {
+            repository.ratingChanged(this);
+        }
+    }
+
+    public String getAuthorUsername() {
+        return authorUsername;
+    }
+
+    public boolean isApproved() {
+        return approved;
+    }
+
+    public void setApproved(boolean approved) {
+        if (repository != null) {
+            repository.updateRecipe(this, title, getIngredients(), getInstructions(), approved);
+        } else {
+            this.approved = approved;
+        }
+    }
+
+    public boolean isOwnedBy(User user) {
+        return user != null && user.getUsername().equalsIgnoreCase(authorUsername);
+    }
+
+    /**
+     * Recipes are equal when they carry the same repository id, so copies
+     * loaded separately from a JDBC store compare equal. Recipes that have
+     * never been added to a repository are only equal to themselves.
+     *
+     * <p>Adding a recipe to a store assigns its id and so changes its hash
+     * code. Only put a recipe in a hash-based set or map key after it has
+     * been added; one placed there before can no longer be found.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Recipe)) {
+            return false;
+        }
+        Recipe other = (Recipe) o;
+        return id != 0 && id == other.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id != 0 ? Long.hashCode(id) : System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return title + " (by " + authorUsername + (approved ? ", approved" : ", pending") + ")";
+    }
+}
@@ -0,0 +1,349 @@
+package app;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of recipe ids in the style of a Roaring bitmap. Ids are split
+ * into 64K-wide chunks by their high 16 bits; each chunk stores its low bits
+ * as a sorted char array while sparse and as a 1024-word bitset once it holds
+ * more than 4096 ids.
+ */
+public class RecipeBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+
+    private int[] keys = new int[2];
+    private Container[] containers = new Container[2];
+    private int size;
+
+    public boolean contains(long id) {
+        int pos = Arrays.binarySearch(keys, 0, size, high(id));
+        return pos >= 0 && containers[pos].contains(low(id));
+    }
+
+    public void add(long id) {
+        int key = high(id);
+        int pos = Arrays.binarySearch(keys, 0, size, key);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertContainer(pos, key, new Container());
+        }
+        containers[pos].add(low(id));
+    }
+
+    public void remove(long id) {
+        int pos = Arrays.binarySearch(keys, 0, size, high(id));
+        if (pos < 0) {
+            return;
+        }
+        containers[pos].remove(low(id));
+        if (containers[pos].cardinality == 0) {
+            System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+            System.arraycopy(containers, pos + 1, containers, pos, size - pos - 1);
+            size--;
+            containers[size] = null;
+        }
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RecipeBitmap copy() {
+        RecipeBitmap result = new RecipeBitmap();
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    public static RecipeBitmap and(RecipeBitmap a, RecipeBitmap b) {
+        RecipeBitmap result = new RecipeBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality > 0) {
+                    result.append(a.keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static RecipeBitmap andNot(RecipeBitmap a, RecipeBitmap b) {
+        RecipeBitmap result = new RecipeBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container c = j < b.size && b.keys[j] == a.keys[i]
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy();
+            if (c.cardinality > 0) {
+                result.append(a.keys[i], c);
+            }
+        }
+        return result;
+    }
+
+    public static RecipeBitmap or(RecipeBitmap a, RecipeBitmap b) {
+        RecipeBitmap result = new RecipeBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i++].copy());
+            } else if (i >= a.size || b.keys[j] < a.keys[i]) {
+                result.append(b.keys[j], b.containers[j++].copy());
+            } else {
+                result.append(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids in ascending order.
+     */
+    public long[] toArray() {
+        long[] result = new long[cardinality()];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n = containers[i].copyTo(((long) keys[i]) << 16, result, n);
+        }
+        return result;
+    }
+
+    private void append(int key, Container container) {
+        insertContainer(size, key, container);
+    }
+
+    private void insertContainer(int pos, int key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = key;
+        containers[pos] = container;
+        size++;
+    }
+
+    private static int high(long id) {
+        if (id < 0 || id > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Recipe id out of bitmap range: " + id);
+        }
+        return (int) (id >>> 16);
+    }
+
+    private static char low(long id) {
+        return (char) id;
+    }
+
+    private static final class Container {
+        private char[] array = new char[4];
+        private long[] bits;
+        private int cardinality;
+
+        boolean contains(char v) {
+            if (bits != null) {
+                return (bits[v >>> 6] & (1L << v)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, v) >= 0;
+        }
+
+        void add(char v) {
+            if (bits != null) {
+                long before = bits[v >>> 6];
+                bits[v >>> 6] |= 1L << v;
+                if (before != bits[v >>> 6]) {
+                    cardinality++;
+                }
+                return;
+            }
+            int pos = Arrays.binarySearch(array, 0, cardinality, v);
+            if (pos >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmap();
+                add(v);
+                return;
+            }
+            pos = -pos - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(array, pos, array, pos + 1, cardinality - pos);
+            array[pos] = v;
+            cardinality++;
+        }
+
+        void remove(char v) {
+            if (bits != null) {
+                long before = bits[v >>> 6];
+                bits[v >>> 6] &= ~(1L << v);
+                if (before != bits[v >>> 6]) {
+                    cardinality--;
+                    if (cardinality <= ARRAY_LIMIT) {
+                        toArray();
+                    }
+                }
+                return;
+            }
+            int pos = Arrays.binarySearch(array, 0, cardinality, v);
+            if (pos >= 0) {
+                System.arraycopy(array, pos + 1, array, pos, cardinality - pos - 1);
+                cardinality--;
+            }
+        }
+
+        Container and(Container other) {
+            if (bits != null && other.bits != null) {
+                Container result = new Container();
+                result.bits = new long[1024];
+                for (int k = 0; k < 1024; k++) {
+                    result.bits[k] = bits[k] & other.bits[k];
+                }
+                return result.recount();
+            }
+            Container small = bits == null ? this : other;
+            Container large = small == this ? other : this;
+            Container result = new Container();
+            result.array = new char[Math.max(4, small.cardinality)];
+            for (int k = 0; k < small.cardinality; k++) {
+                if (large.contains(small.array[k])) {
+                    result.array[result.cardinality++] = small.array[k];
+                }
+            }
+            return result;
+        }
+
+        Container andNot(Container other) {
+            if (bits != null && other.bits != null) {
+                Container result = new Container();
+                result.bits = new long[1024];
+                for (int k = 0; k < 1024; k++) {
+                    result.bits[k] = bits[k] & ~other.bits[k];
+                }
+                return result.recount();
+            }
+            if (bits == null) {
+                Container result = new Container();
+                result.array = new char[Math.max(4, cardinality)];
+                for (int k = 0; k < cardinality; k++) {
+                    if (!other.contains(array[k])) {
+                        result.array[result.cardinality++] = array[k];
+                    }
+                }
+                return result;
+            }
+            Container result = copy();
+            for (int k = 0; k < other.cardinality; k++) {
+                result.remove(other.array[k]);
+            }
+            return result;
+        }
+
+        Container or(Container other) {
+            if (bits != null && other.bits != null) {
+                Container result = new Container();
+                result.bits = new long[1024];
+                for (int k = 0; k < 1024; k++) {
+                    result.bits[k] = bits[k] | other.bits[k];
+                }
+                return result.recount();
+            }
+            Container base = bits != null ? this : other;
+            Container extra = base == this ? other : this;
+            if (base.bits == null && extra.cardinality > base.cardinality) {
+                base = extra;
+                extra = base == this ? other : this;
+            }
+            Container result = base.copy();
+            for (int k = 0; k < extra.cardinality; k++) {
+                result.add(extra.array[k]);
+            }
+            return result;
+        }
+
+        Container copy() {
+            Container result = new Container();
+            result.cardinality = cardinality;
+            if (bits != null) {
+                result.bits = bits.clone();
+            } else {
+                result.array = Arrays.copyOf(array, Math.max(4, cardinality));
+            }
+            return result;
+        }
+
+        int copyTo(long base, long[] out, int n) {
+            if (bits == null) {
+                for (int k = 0; k < cardinality; k++) {
+                    out[n++] = base | array[k];
+                }
+                return n;
+            }
+            for (int k = 0; k < 1024; k++) {
+                long word = bits[k];
+                while (word != 0) {
+                    out[n++] = base | (k << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return n;
+        }
+
+        private Container recount() {
+            cardinality = 0;
+            for (long word : bits) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality <= ARRAY_LIMIT) {
+                toArray();
+            }
+            return this;
+        }
+
+        private void toBitmap() {
+            bits = new long[1024];
+            for (int k = 0; k < cardinality; k++) {
+                bits[array[k] >>> 6] |= 1L << array[k];
+            }
+            array = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int k = 0; k < 1024; k++) {
+                long word = bits[k];
+                while (word != 0) {
+                    values[n++] = (char) ((k << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            array = values;
+            bits = null;
+        }
+    }
+}
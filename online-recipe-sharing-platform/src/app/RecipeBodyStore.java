@@ -0,0 +1,338 @@
+package app;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the large text of recipes (ingredients and instructions) off the
+ * heap, with the most recently used bodies cached in memory up to a fixed
+ * number of characters.
+ *
+ * <p>Text comes from a few sources. The {@code BODIES} section of the
+ * current snapshot is read in place, so recovery does not copy it anywhere.
+ * Text added or edited since then is appended to a spill file. A recipe
+ * refers to its text by a handle that names the source and the offset in
+ * it; handles never go stale while their source is open, and the cache is
+ * keyed by them.
+ *
+ * <p>A checkpoint starts a new spill file ({@link #rotateSpill}), writes the
+ * snapshot, registers its {@code BODIES} section ({@link #addSnapshot}) and
+ * moves the recipes it captured over to it. The sources it replaced are
+ * closed one checkpoint later ({@link #releaseReplaced}), so a reader that
+ * picked up an old handle just before the move can still use it. Spill
+ * files are not durable; the snapshot and write-ahead log are, so spill
+ * files left over from an earlier run are deleted on open.
+ */
+public class RecipeBodyStore implements AutoCloseable {
+
+    static final long DEFAULT_CACHE_CHARS = 4L * 1024 * 1024;
+
+    private static final String SPILL_PREFIX = "recipe-bodies-";
+    private static final String SPILL_SUFFIX = ".dat";
+    private static final int WRITE_BUFFER_BYTES = 256 * 1024;
+    private static final int OFFSET_BITS = 48;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int MAX_SOURCES = 16;
+
+    private final Path directory;
+    private final long maxCachedChars;
+    private final LinkedHashMap<Long, Body> cache = new LinkedHashMap<>(1024, 0.75f, true);
+    private long cachedChars;
+    // Indexed by the source number in a handle; null slots are free
+    private final Source[] sources = new Source[MAX_SOURCES];
+    private int spill = -1;
+    private int snapshot = -1;
+    private long spillCount;
+    // Sources no longer handed out; replaced ones are closed on the next release
+    private List<Integer> replaced = new ArrayList<>();
+    private List<Integer> retiring = new ArrayList<>();
+
+    private RecipeBodyStore(Path directory, long maxCachedChars) {
+        this.directory = directory;
+        this.maxCachedChars = maxCachedChars;
+    }
+
+    public static RecipeBodyStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_CACHE_CHARS);
+    }
+
+    public static RecipeBodyStore open(Path directory, long maxCachedChars) throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SPILL_PREFIX + "*" + SPILL_SUFFIX)) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        RecipeBodyStore store = new RecipeBodyStore(directory, maxCachedChars);
+        store.rotateSpill();
+        return store;
+    }
+
+    /**
+     * Appends the body to the spill file and returns the handle to read it
+     * back with.
+     */
+    public synchronized long write(String ingredients, String instructions) {
+        long offset = ((SpillFile) sources[spill]).append(ingredients, instructions);
+        long handle = handle(spill, offset);
+        cache(handle, new Body(ingredients, instructions));
+        return handle;
+    }
+
+    public synchronized Body read(long handle) {
+        Body body = cache.get(handle);
+        if (body != null) {
+            return body;
+        }
+        Source source = sources[(int) (handle >>> OFFSET_BITS)];
+        if (source == null) {
+            throw new IllegalStateException("Recipe text handle " + handle + " refers to a closed source");
+        }
+        try {
+            body = source.read(handle & OFFSET_MASK);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read recipe text from " + directory, e);
+        }
+        cache(handle, body);
+        return body;
+    }
+
+    /**
+     * Sends later writes to a new spill file. The current one stays readable
+     * until it is released.
+     */
+    synchronized void rotateSpill() throws IOException {
+        if (!replaced.isEmpty()) {
+            // A failed checkpoint already rotated, and recipes still refer to
+            // the spill file it replaced; keep both until one succeeds
+            return;
+        }
+        Path file = directory.resolve(SPILL_PREFIX + ++spillCount + SPILL_SUFFIX);
+        int slot = register(new SpillFile(file));
+        if (spill >= 0) {
+            replaced.add(spill);
+        }
+        spill = slot;
+    }
+
+    /**
+     * Serves the {@code BODIES} section of a snapshot in place of the
+     * previous snapshot's, and returns the source number to build handles
+     * with.
+     */
+    synchronized int addSnapshot(Source section) {
+        int slot = register(section);
+        if (snapshot >= 0) {
+            replaced.add(snapshot);
+        }
+        snapshot = slot;
+        return slot;
+    }
+
+    /**
+     * Called once recipes no longer refer to the sources replaced so far.
+     * Closes the ones held back by the previous call and holds these back in
+     * turn.
+     */
+    synchronized void releaseReplaced() {
+        for (int slot : retiring) {
+            sources[slot].close();
+            sources[slot] = null;
+            for (Iterator<Map.Entry<Long, Body>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Body> cached = it.next();
+                if (cached.getKey() >>> OFFSET_BITS == slot) {
+                    cachedChars -= cached.getValue().chars();
+                    it.remove();
+                }
+            }
+        }
+        retiring = replaced;
+        replaced = new ArrayList<>();
+    }
+
+    static long handle(int source, long offset) {
+        return (long) source << OFFSET_BITS | offset;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] != null) {
+                sources[i].close();
+                sources[i] = null;
+            }
+        }
+        cache.clear();
+    }
+
+    private int register(Source source) {
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] == null) {
+                sources[i] = source;
+                return i;
+            }
+        }
+        source.close();
+        throw new IllegalStateException("Too many open recipe text sources in " + directory);
+    }
+
+    private void cache(long handle, Body body) {
+        Body old = cache.put(handle, body);
+        if (old != null) {
+            cachedChars -= old.chars();
+        }
+        cachedChars += body.chars();
+        Iterator<Map.Entry<Long, Body>> eldest = cache.entrySet().iterator();
+        while (cachedChars > maxCachedChars && eldest.hasNext()) {
+            cachedChars -= eldest.next().getValue().chars();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Somewhere recipe text can be read back from by offset.
+     */
+    interface Source {
+        Body read(long offset) throws IOException;
+
+        void close();
+    }
+
+    /**
+     * Append-only file of (length, ingredients, instructions) records. A
+     * changed body is written again at a new offset.
+     */
+    private static final class SpillFile implements Source {
+        private final Path file;
+        private final FileChannel channel;
+        // Appends are buffered; bytes before flushedEnd are in the file
+        private ByteBuffer pending = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        private long flushedEnd;
+
+        SpillFile(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        long append(String ingredients, String instructions) {
+            byte[] a = encode(ingredients);
+            byte[] b = encode(instructions);
+            int length = 8 + (a == null ? 0 : a.length) + (b == null ? 0 : b.length);
+            if (pending.remaining() < 4 + length) {
+                flush();
+                if (pending.capacity() < 4 + length) {
+                    pending = ByteBuffer.allocate(4 + length);
+                }
+            }
+            long offset = flushedEnd + pending.position();
+            pending.putInt(length);
+            put(a);
+            put(b);
+            return offset;
+        }
+
+        @Override
+        public Body read(long offset) throws IOException {
+            if (offset >= flushedEnd) {
+                flush();
+            }
+            ByteBuffer header = ByteBuffer.allocate(4);
+            readFully(header, offset);
+            ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+            readFully(record, offset + 4);
+            record.flip();
+            return new Body(decode(record), decode(record));
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not remove " + file + ": " + e.getMessage());
+            }
+        }
+
+        private void flush() {
+            pending.flip();
+            try {
+                while (pending.hasRemaining()) {
+                    flushedEnd += channel.write(pending, flushedEnd);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write recipe text to " + file, e);
+            } finally {
+                pending.clear();
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+        }
+
+        private void put(byte[] bytes) {
+            if (bytes == null) {
+                pending.putInt(-1);
+            } else {
+                pending.putInt(bytes.length).put(bytes);
+            }
+        }
+
+        private static byte[] encode(String s) {
+            return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static String decode(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String s = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return s;
+        }
+    }
+
+    /**
+     * Ingredients and instructions of one recipe.
+     */
+    public static final class Body {
+        private final String ingredients;
+        private final String instructions;
+
+        Body(String ingredients, String instructions) {
+            this.ingredients = ingredients;
+            this.instructions = instructions;
+        }
+
+        public String getIngredients() {
+            return ingredients;
+        }
+
+        public String getInstructions() {
+            return instructions;
+        }
+
+        long chars() {
+            return (ingredients == null ? 0 : ingredients.length()) + (instructions == null ? 0 : instructions.length());
+        }
+    }
+}
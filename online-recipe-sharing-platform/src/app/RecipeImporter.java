@@ -0,0 +1,623 @@
+package app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads recipes in bulk from a CSV file (with a header row) or a JSON Lines
+ * file (one flat object per line).
+ *
+ * <p>The calling thread reads the file a chunk of rows at a time and hands
+ * each chunk to a pool of parser threads. Parsed chunks are added to the
+ * store in file order with {@link RecipeStore#addRecipes}, so the search
+ * indexes and the journal are updated once per chunk rather than once per
+ * row. At most a few chunks per parser thread are in flight at once, so
+ * memory use does not depend on the size of the file.
+ *
+ * <p>Recognised fields are {@code title}, {@code ingredients},
+ * {@code instructions}, {@code author} and {@code approved}. The first three
+ * are required; a row without an author is credited to the importing user,
+ * and a row without an approval flag waits for approval.
+ */
+public class RecipeImporter {
+
+    static final int DEFAULT_CHUNK_ROWS = 1000;
+    static final int MAX_REPORTED_ERRORS = 20;
+    // Longest CSV record whose quoted fields span lines
+    static final int MAX_RECORD_CHARS = 1 << 20;
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * Picks the format from the file extension, or null if it is not one
+         * of .csv, .jsonl or .ndjson.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Called on the importing thread after each chunk is stored.
+     */
+    public interface Progress {
+        void update(Result soFar);
+    }
+
+    private final RecipeStore store;
+    private final String defaultAuthor;
+    private final int threads;
+    private final int chunkRows;
+    private Progress progress;
+
+    public RecipeImporter(RecipeStore store, String defaultAuthor) {
+        this(store, defaultAuthor, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_ROWS);
+    }
+
+    public RecipeImporter(RecipeStore store, String defaultAuthor, int threads, int chunkRows) {
+        this.store = store;
+        this.defaultAuthor = defaultAuthor;
+        this.threads = Math.max(1, threads);
+        this.chunkRows = Math.max(1, chunkRows);
+    }
+
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    public Result importFile(Path file) throws IOException {
+        Format format = Format.of(file);
+        if (format == null) {
+            throw new IOException("Unsupported file type: " + file.getFileName()
+                    + " (expected .csv, .jsonl or .ndjson)");
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format);
+        }
+    }
+
+    /**
+     * Imports every row the reader yields. Rows that fail validation are
+     * counted and skipped; the first few are described in the result.
+     *
+     * @throws InterruptedIOException if the thread is interrupted; the import
+     *         stops after the chunk being stored, and the recipes stored
+     *         before that are kept
+     */
+    public Result importFrom(Reader in, Format format) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        Result result = new Result();
+        RecordReader records = new RecordReader(reader, format);
+        Map<String, Integer> columns = format == Format.CSV ? readHeader(records) : null;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "recipe-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try {
+            Chunk chunk;
+            while ((chunk = next(records)) != null && !Thread.currentThread().isInterrupted()) {
+                Chunk toParse = chunk;
+                inFlight.add(parsers.submit(() -> parse(toParse, format, columns)));
+                if (inFlight.size() >= 2 * threads) {
+                    store(inFlight.poll(), result);
+                }
+            }
+            while (!inFlight.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                store(inFlight.poll(), result);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        result.finish();
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException(String.format(Locale.ROOT,
+                    "Import cancelled after %,d recipes were imported", result.getImported()));
+        }
+        return result;
+    }
+
+    /**
+     * The next chunk, or null once the file is read or the thread is
+     * interrupted. An interrupt during a read closes a file channel, and that
+     * is reported as the cancellation it is.
+     */
+    private Chunk next(RecordReader records) throws IOException {
+        try {
+            return records.next(chunkRows);
+        } catch (ClosedByInterruptException e) {
+            return null;
+        }
+    }
+
+    private void store(Future<Chunk> pending, Result result) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IOException("Could not parse import file", e.getCause());
+        }
+        store.addRecipes(chunk.recipes);
+        result.add(chunk);
+        if (progress != null) {
+            progress.update(result);
+        }
+    }
+
+    private static Map<String, Integer> readHeader(RecordReader records) throws IOException {
+        Chunk header = records.next(1);
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        List<String> names = parseCsv(header.records.get(0));
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[] {"title", "ingredients", "instructions"}) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("The header row has no \"" + required + "\" column");
+            }
+        }
+        return columns;
+    }
+
+    // Runs on a parser thread
+    private Chunk parse(Chunk chunk, Format format, Map<String, Integer> columns) {
+        for (int i = 0; i < chunk.records.size(); i++) {
+            int line = chunk.lines[i];
+            try {
+                Map<String, String> fields = format == Format.CSV
+                        ? csvFields(parseCsv(chunk.records.get(i)), columns)
+                        : new JsonLine(chunk.records.get(i)).parseObject();
+                chunk.recipes.add(validate(fields));
+            } catch (IllegalArgumentException e) {
+                chunk.errors.add("Line " + line + ": " + e.getMessage());
+                chunk.rejected++;
+            }
+        }
+        chunk.records.clear();
+        return chunk;
+    }
+
+    private Recipe validate(Map<String, String> fields) {
+        String title = required(fields, "title");
+        String ingredients = required(fields, "ingredients");
+        String instructions = required(fields, "instructions");
+        String author = trimmed(fields.get("author"));
+        return new Recipe(title, ingredients, instructions, author.isEmpty() ? defaultAuthor : author,
+                parseApproved(trimmed(fields.get("approved"))));
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = trimmed(fields.get(name));
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("missing " + name);
+        }
+        return value;
+    }
+
+    private static String trimmed(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static boolean parseApproved(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "":
+            case "false":
+            case "no":
+            case "0":
+                return false;
+            case "true":
+            case "yes":
+            case "1":
+                return true;
+            default:
+                throw new IllegalArgumentException("approved must be true or false, not \"" + value + "\"");
+        }
+    }
+
+    private static Map<String, String> csvFields(List<String> values, Map<String, Integer> columns) {
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            if (column.getValue() < values.size()) {
+                fields.put(column.getKey(), values.get(column.getValue()));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Splits one CSV record (RFC 4180: quoted fields may hold commas, line
+     * breaks and doubled quotes) into its fields. A quote only opens a quoted
+     * field at the start of the field; anywhere else it is kept as text.
+     */
+    static List<String> parseCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+            fieldStart = !quoted && c == ',';
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Raw records of one chunk, then the recipes parsed from them.
+     */
+    private static final class Chunk {
+        final List<String> records;
+        // First line of each record, for error messages
+        final int[] lines;
+        final List<Recipe> recipes;
+        final List<String> errors = new ArrayList<>();
+        int rejected;
+
+        Chunk(List<String> records, int[] lines) {
+            this.records = records;
+            this.lines = lines;
+            this.recipes = new ArrayList<>(records.size());
+        }
+    }
+
+    /**
+     * Groups lines into records, keeping a CSV record whose quoted field
+     * spans lines together, and skips blank lines.
+     */
+    private static final class RecordReader {
+        private final BufferedReader reader;
+        private final Format format;
+        // Lines read ahead for a record that was then rejected, to be read again
+        private final ArrayDeque<String> pushedBack = new ArrayDeque<>();
+        private int lineNumber;
+
+        RecordReader(BufferedReader reader, Format format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        Chunk next(int maxRecords) throws IOException {
+            List<String> records = new ArrayList<>(maxRecords);
+            int[] lines = new int[maxRecords];
+            String line;
+            while (records.size() < maxRecords && (line = readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines[records.size()] = lineNumber;
+                if (format == Format.CSV && endsQuoted(line, false)) {
+                    line = joinQuotedLines(line);
+                }
+                records.add(line);
+            }
+            return records.isEmpty() ? null : new Chunk(records, lines);
+        }
+
+        /**
+         * The record starting with {@code first}, whose quoted field runs on
+         * over the following lines. If the quote is not closed within
+         * {@link #MAX_RECORD_CHARS}, or at all, only {@code first} is returned
+         * (and rejected when parsed); the lines read past it are read again
+         * as rows of their own, so a stray quote costs one row rather than
+         * the rest of the file.
+         */
+        private String joinQuotedLines(String first) throws IOException {
+            List<String> more = new ArrayList<>();
+            long chars = first.length();
+            boolean open = true;
+            String line;
+            while (open && chars <= MAX_RECORD_CHARS && (line = readLine()) != null) {
+                more.add(line);
+                chars += 1 + line.length();
+                open = endsQuoted(line, true);
+            }
+            if (!open && chars <= MAX_RECORD_CHARS) {
+                StringBuilder record = new StringBuilder(first);
+                for (String next : more) {
+                    record.append('\n').append(next);
+                }
+                return record.toString();
+            }
+            for (int i = more.size() - 1; i >= 0; i--) {
+                pushedBack.push(more.get(i));
+            }
+            lineNumber -= more.size();
+            return first;
+        }
+
+        private String readLine() throws IOException {
+            String line = pushedBack.isEmpty() ? reader.readLine() : pushedBack.pop();
+            if (line == null) {
+                return null;
+            }
+            // Excel and Notepad start UTF-8 files with a byte order mark
+            if (lineNumber++ == 0 && line.startsWith(BYTE_ORDER_MARK)) {
+                line = line.substring(1);
+            }
+            return line;
+        }
+
+        /**
+         * Whether a record is inside a quoted field at the end of
+         * {@code line}, given whether it was at the start. Quotes are read as
+         * {@link #parseCsv} reads them.
+         */
+        private static boolean endsQuoted(String line, boolean quoted) {
+            boolean fieldStart = !quoted;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    }
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                }
+                fieldStart = !quoted && c == ',';
+            }
+            return quoted;
+        }
+    }
+
+    /**
+     * Parser for one JSON Lines record: a flat object whose values are
+     * strings, numbers, booleans, null or arrays of those. Arrays are joined
+     * with ", " so an ingredient list reads like the form field.
+     */
+    private static final class JsonLine {
+        private final String text;
+        private int pos;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> parseObject() {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    skipSpace();
+                    String key = parseString();
+                    expect(':');
+                    fields.put(key.toLowerCase(Locale.ROOT), parseValue());
+                } while (consume(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error("unexpected text after the object");
+            }
+            return fields;
+        }
+
+        private String parseValue() {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            if (c == '[') {
+                pos++;
+                List<String> items = new ArrayList<>();
+                if (peek() == ']') {
+                    pos++;
+                    return "";
+                }
+                do {
+                    String item = parseValue();
+                    if (item != null) {
+                        items.add(item);
+                    }
+                } while (consume(','));
+                expect(']');
+                return String.join(", ", items);
+            }
+            if (c == '{') {
+                throw error("nested objects are not supported");
+            }
+            int start = pos;
+            while (pos < text.length() && "+-.0123456789eEtrufalsn".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw error("unexpected value");
+        }
+
+        private String parseString() {
+            if (peek() != '"') {
+                throw error("expected a string");
+            }
+            pos++;
+            StringBuilder s = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return s.toString();
+                }
+                if (c != '\\') {
+                    s.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escape = text.charAt(pos++);
+                switch (escape) {
+                    case 'n': s.append('\n'); break;
+                    case 't': s.append('\t'); break;
+                    case 'r': s.append('\r'); break;
+                    case 'b': s.append('\b'); break;
+                    case 'f': s.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("bad \\u escape");
+                        }
+                        try {
+                            s.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: s.append(escape);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private char peek() {
+            skipSpace();
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1));
+        }
+    }
+
+    /**
+     * Counts for an import, updated as chunks are stored.
+     */
+    public static final class Result {
+        private final long startNanos = System.nanoTime();
+        private long endNanos;
+        private long imported;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        private void add(Chunk chunk) {
+            imported += chunk.recipes.size();
+            rejected += chunk.rejected;
+            for (String error : chunk.errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(error);
+                }
+            }
+        }
+
+        private void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        public long getRowsRead() {
+            return imported + rejected;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * The first few rejected rows and why.
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        public double getElapsedSeconds() {
+            return ((endNanos == 0 ? System.nanoTime() : endNanos) - startNanos) / 1e9;
+        }
+
+        public double getRowsPerSecond() {
+            double seconds = getElapsedSeconds();
+            return seconds <= 0 ? 0 : getRowsRead() / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%,d rows read, %,d imported, %,d rejected in %.1f s (%,.0f rows/s)",
+                    getRowsRead(), imported, rejected, getElapsedSeconds(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of recipes in insertion order plus the cursor for the next page.
+ * Cursors encode the last recipe id seen, so pages stay stable while other
+ * recipes are added or removed.
+ */
+public class RecipePage {
+    private static final String CURSOR_PREFIX = "r";
+
+    private final List<Recipe> recipes;
+    private final String nextCursor;
+
+    public RecipePage(List<Recipe> recipes, String nextCursor) {
+        this.recipes = recipes;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Recipe> getRecipes() {
+        return recipes;
+    }
+
+    /**
+     * Cursor to pass back for the following page, or null when this is the last one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * The page for up to {@code pageSize + 1} rows fetched after a cursor; the
+     * extra row only tells whether another page follows.
+     */
+    static RecipePage of(List<Recipe> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new RecipePage(rows, null);
+        }
+        List<Recipe> page = new ArrayList<>(rows.subList(0, pageSize));
+        return new RecipePage(page, pageSize == 0 ? null : encodeCursor(page.get(pageSize - 1).getId()));
+    }
+
+    static String encodeCursor(long lastId) {
+        return CURSOR_PREFIX + Long.toString(lastId, 36);
+    }
+
+    static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        if (!cursor.startsWith(CURSOR_PREFIX)) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        try {
+            return Long.parseLong(cursor.substring(CURSOR_PREFIX.length()), 36);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,48 +1,537 @@
-package app;
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class RecipeRepository {
-    private final List<Recipe> recipes = new ArrayList<>();
-
-    public RecipeRepository() {
-        // Seed with a few sample recipes owned by admin and already approved
-        addRecipe(new Recipe(
-                "Spaghetti Bolognese",
-                "Spaghetti, minced beef, tomato sauce, onions, garlic, olive oil, salt, pepper",
-                "1. Cook spaghetti.\n2. Brown minced beef with onions and garlic.\n3. Add tomato sauce and simmer.\n4. Serve sauce over spaghetti.",
-                "admin",
-                true
-        ));
-        addRecipe(new Recipe(
-                "Classic Pancakes",
-                "Flour, milk, eggs, sugar, baking powder, butter, salt",
-                "1. Mix dry ingredients.\n2. Whisk in milk and eggs.\n3. Cook batter on a greased pan until golden.",
-                "admin",
-                true
-        ));
-    }
-
-    public List<Recipe> getAllRecipes() {
-        return new ArrayList<>(recipes);
-    }
-
-    public List<Recipe> getRecipesByAuthor(String username) {
-        List<Recipe> result = new ArrayList<>();
-        for (Recipe recipe : recipes) {
-            if (recipe.getAuthorUsername().equalsIgnoreCase(username)) {
-                result.add(recipe);
-            }
-        }
-        return result;
-    }
-
-    public void addRecipe(Recipe recipe) {
-        recipes.add(recipe);
-    }
-
-    public void removeRecipe(Recipe recipe) {
-        recipes.remove(recipe);
-    }
-}
+package app;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+public class RecipeRepository implements RecipeStore {
+    private static final int MAX_PREFIX_EXPANSIONS = 256;
+
+    private final LongHashMap<Recipe> recipesById = new LongHashMap<>();
+    // All recipe ids in ascending order; new recipes get the next id, so this is insertion order
+    private final PostingList recipeIds = new PostingList();
+    private final InvertedIndex termIndex = new InvertedIndex();
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+    private final Bm25Index bm25Index = new Bm25Index();
+    private final Map<String, PostingList> recipesByAuthor = new HashMap<>();
+    // Unapproved recipe ids; id order is submission order
+    private final PostingList pendingIds = new PostingList();
+    private long nextId = 1;
+    // Recipes stored but not yet in the search indexes; see setDeferIndexing
+    private final PostingList unindexedIds = new PostingList();
+    private boolean deferIndexing;
+    // Set once persistence is running; null for a purely in-memory repository
+    private volatile Journal journal;
+    // Drops what other repositories hold for a removed recipe; see setRemovalHandler
+    private volatile LongConsumer removalHandler;
+    // Where ingredients and instructions of added recipes live; null keeps them on the heap
+    private RecipeBodyStore bodyStore;
+
+    public RecipeRepository() {
+        this(true);
+    }
+
+    public RecipeRepository(boolean withSampleRecipes) {
+        if (!withSampleRecipes) {
+            return;
+        }
+        // Seed with a few sample recipes owned by admin and already approved
+        addRecipe(new Recipe(
+                "Spaghetti Bolognese",
+                "Spaghetti, minced beef, tomato sauce, onions, garlic, olive oil, salt, pepper",
+                "1. Cook spaghetti.\n2. Brown minced beef with onions and garlic.\n3. Add tomato sauce and simmer.\n4. Serve sauce over spaghetti.",
+                "admin",
+                true
+        ));
+        addRecipe(new Recipe(
+                "Classic Pancakes",
+                "Flour, milk, eggs, sugar, baking powder, butter, salt",
+                "1. Mix dry ingredients.\n2. Whisk in milk and eggs.\n3. Cook batter on a greased pan until golden.",
+                "admin",
+                true
+        ));
+    }
+
+    public synchronized List<Recipe> getAllRecipes() {
+        List<Recipe> result = new ArrayList<>(recipeIds.size());
+        for (int i = 0; i < recipeIds.size(); i++) {
+            result.add(recipesById.get(recipeIds.get(i)));
+        }
+        return result;
+    }
+
+    public synchronized int count() {
+        return recipesById.size();
+    }
+
+    /**
+     * Up to {@code pageSize} recipes following the given cursor, in insertion
+     * order. Pass a null cursor for the first page.
+     */
+    public synchronized RecipePage getPage(String cursor, int pageSize, boolean approvedOnly) {
+        long afterId = RecipePage.decodeCursor(cursor);
+        int size = Math.max(0, pageSize);
+        // One extra matching row tells whether another page follows
+        List<Recipe> rows = new ArrayList<>(size + 1);
+        for (int i = recipeIds.indexAfter(afterId); i < recipeIds.size() && rows.size() <= size; i++) {
+            Recipe recipe = recipesById.get(recipeIds.get(i));
+            if (!approvedOnly || recipe.isApproved()) {
+                rows.add(recipe);
+            }
+        }
+        return RecipePage.of(rows, size);
+    }
+
+    public synchronized List<Recipe> getRecipesByAuthor(String username) {
+        PostingList ids = username == null ? null : recipesByAuthor.get(authorKey(username));
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Recipe> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(recipesById.get(ids.get(i)));
+        }
+        return result;
+    }
+
+    public synchronized int countByAuthor(String username) {
+        PostingList ids = username == null ? null : recipesByAuthor.get(authorKey(username));
+        return ids == null ? 0 : ids.size();
+    }
+
+    public synchronized int countPending() {
+        return pendingIds.size();
+    }
+
+    /**
+     * Unapproved recipes, oldest submission first, following the given cursor.
+     */
+    public synchronized RecipePage getPendingPage(String cursor, int pageSize) {
+        long afterId = RecipePage.decodeCursor(cursor);
+        List<Recipe> page = new ArrayList<>(Math.max(0, pageSize));
+        int i = pendingIds.indexAfter(afterId);
+        while (i < pendingIds.size() && page.size() < pageSize) {
+            page.add(recipesById.get(pendingIds.get(i++)));
+        }
+        String next = i < pendingIds.size() && !page.isEmpty()
+                ? RecipePage.encodeCursor(page.get(page.size() - 1).getId())
+                : null;
+        return new RecipePage(page, next);
+    }
+
+    public synchronized Recipe getRecipe(long id) {
+        return recipesById.get(id);
+    }
+
+    /**
+     * Text search further restricted to recipes that use every ingredient in
+     * {@code include} and none in {@code exclude}.
+     */
+    public synchronized RecipePage search(String query, Collection<String> include, Collection<String> exclude,
+                                          boolean approvedOnly, String cursor, int pageSize) {
+        return RecipePage.of(search(query, include, exclude, approvedOnly,
+                RecipePage.decodeCursor(cursor), Math.max(0, pageSize) + 1), Math.max(0, pageSize));
+    }
+
+    /**
+     * The {@code k} best matches of {@link #search} ordered by BM25 score,
+     * highest first. Only a k-sized heap is kept, so the full candidate set is
+     * never sorted; equal scores keep insertion order.
+     */
+    public synchronized List<SearchResult> searchRanked(String query, Collection<String> include,
+                                                        Collection<String> exclude, boolean approvedOnly, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        List<String> terms = InvertedIndex.tokenize(query);
+        return SearchResult.top(search(query, include, exclude, approvedOnly, 0, Integer.MAX_VALUE),
+                recipe -> bm25Index.score(recipe.getId(), terms), k);
+    }
+
+    /**
+     * Word-prefix lookup: every query word must be the prefix of a title or
+     * ingredient word, so "gar bas" finds "garlic basil".
+     */
+    public synchronized RecipePage searchPrefix(String query, Collection<String> include, Collection<String> exclude,
+                                                boolean approvedOnly, String cursor, int pageSize) {
+        PostingList ids = termIndex.prefixMatchAll(query, MAX_PREFIX_EXPANSIONS);
+        if (ids == null) {
+            return search(query, include, exclude, approvedOnly, cursor, pageSize);
+        }
+        return page(ids, ingredientFilter(include, exclude), approvedOnly, cursor, pageSize);
+    }
+
+    public synchronized boolean isPrefixSearchTruncated(String query) {
+        return termIndex.prefixExpansionsExceed(query, MAX_PREFIX_EXPANSIONS);
+    }
+
+    /**
+     * Typo-tolerant search: every query word must be within a few edits of a
+     * title or ingredient word. Meant as a fallback when {@link #search}
+     * finds nothing.
+     */
+    public synchronized RecipePage fuzzySearch(String query, Collection<String> include, Collection<String> exclude,
+                                               boolean approvedOnly, String cursor, int pageSize) {
+        PostingList ids = termIndex.fuzzyMatchAll(query);
+        if (ids == null) {
+            return new RecipePage(new ArrayList<>(), null);
+        }
+        return page(ids, ingredientFilter(include, exclude), approvedOnly, cursor, pageSize);
+    }
+
+    /**
+     * Up to {@code limit} matches with ids above {@code afterId}, in id order.
+     */
+    private List<Recipe> search(String query, Collection<String> include, Collection<String> exclude,
+                                boolean approvedOnly, long afterId, int limit) {
+        String needle = query == null ? "" : query.trim().toLowerCase();
+        RecipeBitmap allowed = ingredientFilter(include, exclude);
+        List<Recipe> result = new ArrayList<>();
+        PostingList ids = trigramIndex.candidates(needle);
+        if (ids == null && allowed != null) {
+            for (long id : allowed.toArray()) {
+                if (result.size() == limit) {
+                    break;
+                }
+                Recipe recipe = recipesById.get(id);
+                if (id > afterId && matches(recipe, needle, null, approvedOnly)) {
+                    result.add(recipe);
+                }
+            }
+            return result;
+        }
+        if (ids == null) {
+            ids = recipeIds;
+        }
+        for (int i = ids.indexAfter(afterId); i < ids.size() && result.size() < limit; i++) {
+            Recipe recipe = recipesById.get(ids.get(i));
+            if (matches(recipe, needle, allowed, approvedOnly)) {
+                result.add(recipe);
+            }
+        }
+        return result;
+    }
+
+    private RecipePage page(PostingList ids, RecipeBitmap allowed, boolean approvedOnly, String cursor, int pageSize) {
+        int limit = Math.max(0, pageSize) + 1;
+        List<Recipe> rows = new ArrayList<>();
+        for (int i = ids.indexAfter(RecipePage.decodeCursor(cursor)); i < ids.size() && rows.size() < limit; i++) {
+            Recipe recipe = recipesById.get(ids.get(i));
+            if (matches(recipe, "", allowed, approvedOnly)) {
+                rows.add(recipe);
+            }
+        }
+        return RecipePage.of(rows, limit - 1);
+    }
+
+    private RecipeBitmap ingredientFilter(Collection<String> include, Collection<String> exclude) {
+        return include.isEmpty() && exclude.isEmpty() ? null : ingredientIndex.filter(include, exclude);
+    }
+
+    private boolean matches(Recipe recipe, String needle, RecipeBitmap allowed, boolean approvedOnly) {
+        if (approvedOnly && !recipe.isApproved()) {
+            return false;
+        }
+        if (allowed != null && !allowed.contains(recipe.getId())) {
+            return false;
+        }
+        if (needle.isEmpty()) {
+            return true;
+        }
+        // The ingredients may have to be read back from the body store; only
+        // trigram candidates get this far
+        return indexedText(recipe.getTitle(), recipe.getIngredients()).contains(needle);
+    }
+
+    /**
+     * Adds the recipe and assigns its id. A recipe that already carries an id
+     * (for example one that was removed earlier) keeps it unless another
+     * recipe is using it.
+     */
+    public void addRecipe(Recipe recipe) {
+        long seq;
+        synchronized (this) {
+            if (!store(recipe)) {
+                return;
+            }
+            if (deferIndexing) {
+                unindexedIds.add(recipe.getId());
+            } else {
+                index(recipe);
+            }
+            seq = journal == null ? 0 : journal.recipePut(recipe);
+        }
+        sync(seq);
+    }
+
+    /**
+     * Adds the recipes as {@link #addRecipe} would, but indexes them only
+     * once the whole batch is stored and waits for the journal once.
+     */
+    public void addRecipes(List<Recipe> recipes) {
+        long seq = 0;
+        synchronized (this) {
+            List<Recipe> added = new ArrayList<>(recipes.size());
+            for (Recipe recipe : recipes) {
+                if (store(recipe)) {
+                    added.add(recipe);
+                    if (journal != null) {
+                        seq = journal.recipePut(recipe);
+                    }
+                }
+            }
+            if (deferIndexing) {
+                for (Recipe recipe : added) {
+                    unindexedIds.add(recipe.getId());
+                }
+            } else {
+                for (Recipe recipe : added) {
+                    index(recipe);
+                }
+            }
+        }
+        sync(seq);
+    }
+
+    public void removeRecipe(Recipe recipe) {
+        long seq;
+        synchronized (this) {
+            if (recipe == null || recipesById.get(recipe.getId()) != recipe) {
+                return;
+            }
+            recipesById.remove(recipe.getId());
+            recipeIds.remove(recipe.getId());
+            if (unindexedIds.contains(recipe.getId())) {
+                unindexedIds.remove(recipe.getId());
+            } else {
+                unindex(recipe);
+            }
+            pendingIds.remove(recipe.getId());
+            String author = authorKey(recipe.getAuthorUsername());
+            PostingList authored = recipesByAuthor.get(author);
+            if (authored != null) {
+                authored.remove(recipe.getId());
+                if (authored.isEmpty()) {
+                    recipesByAuthor.remove(author);
+                }
+            }
+            recipe.detach();
+            seq = journal == null ? 0 : journal.recipeRemoved(recipe.getId());
+            // Under the lock, so a checkpoint sees the recipe and what hangs off it go together
+            LongConsumer handler = removalHandler;
+            if (handler != null) {
+                handler.accept(recipe.getId());
+            }
+        }
+        sync(seq);
+    }
+
+    public void updateRecipe(Recipe recipe, String title, String ingredients, String instructions,
+                             boolean approved) {
+        long seq;
+        synchronized (this) {
+            if (recipesById.get(recipe.getId()) != recipe) {
+                recipe.apply(title, ingredients, instructions, approved);
+                return;
+            }
+            long id = recipe.getId();
+            // Deferred recipes pick up the new text when they are indexed
+            boolean reindex = !unindexedIds.contains(id) && (!Objects.equals(recipe.getTitle(), title)
+                    || !Objects.equals(recipe.getIngredients(), ingredients));
+            if (reindex) {
+                unindex(recipe);
+            }
+            recipe.apply(title, ingredients, instructions, approved);
+            if (reindex) {
+                index(recipe);
+            }
+            if (approved) {
+                pendingIds.remove(id);
+            } else {
+                pendingIds.add(id);
+            }
+            seq = journal == null ? 0 : journal.recipePut(recipe);
+        }
+        sync(seq);
+    }
+
+    /**
+     * Journals the new rating; the rating is not indexed.
+     */
+    public void ratingChanged(Recipe recipe) {
+        long seq;
+        synchronized (this) {
+            if (recipesById.get(recipe.getId()) != recipe) {
+                return;
+            }
+            seq = journal == null ? 0 : journal.recipePut(recipe);
+        }
+        sync(seq);
+    }
+
+    /**
+     * Recreates or updates a recipe under a known id, as recovery does.
+     */
+    synchronized Recipe restoreRecipe(long id, String title, String ingredients, String instructions,
+                                      String author, boolean approved, int rating) {
+        Recipe recipe = recipesById.get(id);
+        if (recipe == null || !Objects.equals(recipe.getAuthorUsername(), author)) {
+            removeRecipe(recipe);
+            recipe = new Recipe(title, ingredients, instructions, author, approved);
+            recipe.attach(null, id);
+            recipe.setRating(rating);
+            addRecipe(recipe);
+            return recipe;
+        }
+        updateRecipe(recipe, title, ingredients, instructions, approved);
+        recipe.setRating(rating);
+        return recipe;
+    }
+
+    /**
+     * Recreates a recipe whose text is already in the body store, as
+     * recovery from a snapshot does.
+     */
+    synchronized Recipe restoreRecipe(long id, String title, long bodyHandle, String author, boolean approved,
+                                      int rating) {
+        removeRecipe(recipesById.get(id));
+        Recipe recipe = new Recipe(title, null, null, author, approved);
+        recipe.attach(null, id);
+        recipe.setBody(bodyStore, bodyHandle);
+        recipe.setRating(rating);
+        addRecipe(recipe);
+        return recipe;
+    }
+
+    synchronized long getNextId() {
+        return nextId;
+    }
+
+    synchronized void setNextId(long nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+
+    /**
+     * While deferred, added recipes are stored and listed but left out of the
+     * search indexes, which makes bulk loads much cheaper. Turning deferral
+     * off does not index the backlog; {@link #indexPending(int)} does that a
+     * chunk at a time. Until then searches leave those recipes out, rather
+     * than holding the repository lock while the whole backlog is indexed.
+     */
+    synchronized void setDeferIndexing(boolean defer) {
+        this.deferIndexing = defer;
+    }
+
+    public synchronized int countUnindexed() {
+        return unindexedIds.size();
+    }
+
+    /**
+     * Indexes up to {@code max} deferred recipes and returns how many are
+     * still waiting.
+     */
+    synchronized int indexPending(int max) {
+        // Ascending ids keep every index posting list on its cheap append path
+        int n = Math.min(max, unindexedIds.size());
+        for (int i = 0; i < n; i++) {
+            index(recipesById.get(unindexedIds.get(i)));
+        }
+        unindexedIds.removeFirst(n);
+        return unindexedIds.size();
+    }
+
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Runs {@code handler} with the id of every recipe removed from now on,
+     * while this repository is still locked. The recipe's removal is the
+     * only record in the journal, so replaying it runs the handler again.
+     */
+    void setRemovalHandler(LongConsumer handler) {
+        this.removalHandler = handler;
+    }
+
+    /**
+     * Keeps the text of every recipe, from now on and already added, in
+     * {@code store} rather than on the heap.
+     */
+    synchronized void setBodyStore(RecipeBodyStore store) {
+        this.bodyStore = store;
+        for (Recipe recipe : recipesById.values()) {
+            recipe.moveBody(store);
+        }
+    }
+
+    synchronized RecipeBodyStore getBodyStore() {
+        return bodyStore;
+    }
+
+    /**
+     * Assigns the id and files the recipe everywhere except the search
+     * indexes. Returns false if it is already here.
+     */
+    private boolean store(Recipe recipe) {
+        if (recipe == null || recipesById.get(recipe.getId()) == recipe) {
+            return false;
+        }
+        long id = recipe.getId();
+        if (id <= 0 || recipesById.containsKey(id)) {
+            id = nextId;
+        }
+        nextId = Math.max(nextId, id + 1);
+        recipe.attach(this, id);
+        recipe.moveBody(bodyStore);
+        recipesById.put(id, recipe);
+        recipeIds.add(id);
+        recipesByAuthor.computeIfAbsent(authorKey(recipe.getAuthorUsername()), k -> new PostingList())
+                .add(id);
+        if (!recipe.isApproved()) {
+            pendingIds.add(id);
+        }
+        return true;
+    }
+
+    private void sync(long seq) {
+        Journal current = journal;
+        if (current != null && seq > 0) {
+            current.sync(seq);
+        }
+    }
+
+    private void index(Recipe recipe) {
+        long id = recipe.getId();
+        String text = indexedText(recipe.getTitle(), recipe.getIngredients());
+        termIndex.add(id, text);
+        trigramIndex.add(id, text);
+        ingredientIndex.add(id, recipe.getIngredients());
+        bm25Index.add(id, recipe.getTitle(), recipe.getIngredients());
+    }
+
+    /**
+     * Removes the recipe from the search indexes. Must run before its title or
+     * ingredients change, since the text it was indexed under is recomputed.
+     */
+    private void unindex(Recipe recipe) {
+        long id = recipe.getId();
+        String text = indexedText(recipe.getTitle(), recipe.getIngredients());
+        termIndex.remove(id, text);
+        trigramIndex.remove(id, text);
+        ingredientIndex.remove(id);
+        bm25Index.remove(id);
+    }
+
+    private static String authorKey(String username) {
+        return username == null ? "" : username.toLowerCase();
+    }
+
+    private static String indexedText(String title, String ingredients) {
+        return (title + " " + ingredients).toLowerCase();
+    }
+}
@@ -0,0 +1,131 @@
+package app;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Storage for recipes. {@link RecipeRepository} keeps everything in memory
+ * with its own search indexes; {@link JdbcRecipeStore} keeps recipes in a
+ * database and only holds the ones a caller asked for.
+ */
+public interface RecipeStore {
+
+    List<Recipe> getAllRecipes();
+
+    int count();
+
+    /**
+     * Up to {@code pageSize} recipes following the given cursor, in insertion
+     * order. Pass a null cursor for the first page.
+     */
+    RecipePage getPage(String cursor, int pageSize, boolean approvedOnly);
+
+    List<Recipe> getRecipesByAuthor(String username);
+
+    int countByAuthor(String username);
+
+    int countPending();
+
+    /**
+     * Unapproved recipes, oldest submission first, following the given cursor.
+     */
+    RecipePage getPendingPage(String cursor, int pageSize);
+
+    Recipe getRecipe(long id);
+
+    /**
+     * Recipes whose lowercase "title ingredients" text contains the query,
+     * a page at a time in insertion order. An empty query matches everything.
+     */
+    default RecipePage search(String query, boolean approvedOnly, String cursor, int pageSize) {
+        return search(query, Collections.emptyList(), Collections.emptyList(), approvedOnly, cursor, pageSize);
+    }
+
+    /**
+     * Text search further restricted to recipes that use every ingredient in
+     * {@code include} and none in {@code exclude}.
+     */
+    RecipePage search(String query, Collection<String> include, Collection<String> exclude, boolean approvedOnly,
+                      String cursor, int pageSize);
+
+    default List<SearchResult> searchRanked(String query, int k) {
+        return searchRanked(query, Collections.emptyList(), Collections.emptyList(), false, k);
+    }
+
+    /**
+     * The {@code k} best matches of {@link #search} ordered by BM25 score,
+     * highest first.
+     */
+    List<SearchResult> searchRanked(String query, Collection<String> include, Collection<String> exclude,
+                                    boolean approvedOnly, int k);
+
+    /**
+     * Search-as-you-type lookup: every query word must be the prefix of a
+     * title or ingredient word.
+     */
+    RecipePage searchPrefix(String query, Collection<String> include, Collection<String> exclude,
+                            boolean approvedOnly, String cursor, int pageSize);
+
+    /**
+     * Recipes stored but not yet in the search indexes. While this is above
+     * zero, searches may miss matches.
+     */
+    default int countUnindexed() {
+        return 0;
+    }
+
+    /**
+     * Whether {@link #searchPrefix} had to leave matches out for this query
+     * because a word has too many completions.
+     */
+    default boolean isPrefixSearchTruncated(String query) {
+        return false;
+    }
+
+    /**
+     * Typo-tolerant search: every query word must be within a few edits of a
+     * title or ingredient word.
+     */
+    RecipePage fuzzySearch(String query, Collection<String> include, Collection<String> exclude,
+                           boolean approvedOnly, String cursor, int pageSize);
+
+    /**
+     * Recipes that use every ingredient in {@code include} and none in
+     * {@code exclude}.
+     */
+    default RecipePage filterByIngredients(Collection<String> include, Collection<String> exclude,
+                                           boolean approvedOnly, String cursor, int pageSize) {
+        return search("", include, exclude, approvedOnly, cursor, pageSize);
+    }
+
+    /**
+     * Adds the recipe and assigns its id. A recipe that already carries an id
+     * keeps it unless another recipe is using it.
+     */
+    void addRecipe(Recipe recipe);
+
+    /**
+     * Adds several recipes at once. Stores that can write a batch more
+     * cheaply than one recipe at a time override this.
+     */
+    default void addRecipes(List<Recipe> recipes) {
+        for (Recipe recipe : recipes) {
+            addRecipe(recipe);
+        }
+    }
+
+    void removeRecipe(Recipe recipe);
+
+    /**
+     * Saves an edit of the title, text and approval as one change: the
+     * recipe is indexed and written once, rather than once per setter.
+     */
+    void updateRecipe(Recipe recipe, String title, String ingredients, String instructions, boolean approved);
+
+    /**
+     * Called by {@link Recipe#setRating} once the rating is set; the other
+     * setters of an attached recipe go through {@link #updateRecipe}.
+     */
+    void ratingChanged(Recipe recipe);
+}
@@ -0,0 +1,392 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Item-item recommendations from what users keep: a recipe is in a user's
+ * set if they saved it or rated it {@value #LIKED_RATING} stars or more.
+ * Co-occurrence counts are kept in a sparse matrix of rows per recipe and
+ * each recipe's best neighbours by cosine similarity are precomputed, so
+ * asking for recommendations is a single lookup.
+ *
+ * <p>The counts belong to a background thread. It builds them from the
+ * stores when the index is created, then applies the changes that
+ * {@link #favoriteChanged} and {@link #ratingChanged} put on a lock-free
+ * queue. Each batch of changes re-ranks every affected recipe once, so
+ * recommendations catch up shortly after a change rather than on the
+ * caller's thread.
+ */
+public class RecommendationIndex {
+
+    public static final int LIKED_RATING = 4;
+    private static final int NEIGHBOURS = 10;
+    private static final int USERS_PER_TASK = 64;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int FAVOURITE = 1;
+    private static final int LIKED = 2;
+
+    private final RecipeStore recipeRepository;
+    private final MpscQueue<Change> pending = new MpscQueue<>();
+    private final Thread updater;
+    private volatile boolean updaterIdle;
+    private volatile boolean closed;
+
+    // Only the updater thread touches the counts
+    // Lowercased username -> recipe id -> FAVOURITE | LIKED
+    private final Map<String, LongHashMap<int[]>> itemsByUser = new HashMap<>();
+    // Recipe id -> number of users whose set contains it
+    private final LongHashMap<int[]> userCounts = new LongHashMap<>();
+    // Recipe id -> other recipe id -> number of users whose set contains both
+    private LongHashMap<LongHashMap<int[]>> cooccurrence = new LongHashMap<>();
+    // Recipe id -> neighbour ids, most similar first; guarded by this
+    private final LongHashMap<long[]> neighbours = new LongHashMap<>();
+
+    /**
+     * Starts building the index from the current favourites and reviews in
+     * the background. Until the build is done there are no recommendations.
+     */
+    public RecommendationIndex(RecipeStore recipeRepository, FavoriteStore favoriteRepository,
+                               ReviewStore reviewRepository) {
+        this.recipeRepository = recipeRepository;
+        updater = new Thread(() -> run(favoriteRepository, reviewRepository), "recommendations");
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    /**
+     * Stops the background thread once the build and every queued change
+     * are applied.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(updater);
+        try {
+            updater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Recipes most often kept together with {@code recipe}, best first,
+     * leaving out recipes that have since been deleted.
+     */
+    public synchronized List<Recipe> getRecommendations(Recipe recipe, int limit) {
+        List<Recipe> result = new ArrayList<>();
+        long[] ids = recipe == null ? null : neighbours.get(recipe.getId());
+        if (ids == null) {
+            return result;
+        }
+        for (int i = 0; i < ids.length && result.size() < limit; i++) {
+            Recipe r = recipeRepository.getRecipe(ids[i]);
+            if (r != null) {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    public void favoriteChanged(User user, Recipe recipe, boolean favourite) {
+        if (user != null && recipe != null) {
+            queue(new Change(user.getUsernameKey(), recipe.getId(), FAVOURITE, favourite));
+        }
+    }
+
+    public void ratingChanged(User user, Recipe recipe, int rating) {
+        if (user != null && recipe != null) {
+            queue(new Change(user.getUsernameKey(), recipe.getId(), LIKED, rating >= LIKED_RATING));
+        }
+    }
+
+    private void queue(Change change) {
+        if (closed) {
+            return;
+        }
+        pending.offer(change);
+        if (updaterIdle) {
+            LockSupport.unpark(updater);
+        }
+    }
+
+    private void run(FavoriteStore favoriteRepository, ReviewStore reviewRepository) {
+        try {
+            build(favoriteRepository, reviewRepository);
+        } catch (RuntimeException e) {
+            // Keep applying changes; recommendations fill in as users act
+            System.err.println("Could not build recommendations: " + e.getMessage());
+        }
+        RecipeBitmap dirty = new RecipeBitmap();
+        while (true) {
+            boolean stopping = closed;
+            // Changes repeat what the build may already have seen; setFlag ignores those
+            Change change;
+            while ((change = pending.poll()) != null) {
+                setFlag(change.userKey, change.recipeId, change.flag, change.on, dirty);
+            }
+            if (!dirty.isEmpty()) {
+                for (long id : dirty.toArray()) {
+                    rank(id);
+                }
+                dirty = new RecipeBitmap();
+                continue;
+            }
+            if (stopping && pending.isEmpty()) {
+                return;
+            }
+            // Announce the park before the last emptiness check, so a producer
+            // either sees the flag and unparks us or we see its change
+            updaterIdle = true;
+            if (pending.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            updaterIdle = false;
+        }
+    }
+
+    /**
+     * Users are split across the fork/join pool, each task counting pairs
+     * into its own matrix, and the partial matrices are merged pairwise on
+     * the way up.
+     */
+    private void build(FavoriteStore favoriteRepository, ReviewStore reviewRepository) {
+        for (Map.Entry<String, long[]> e : favoriteRepository.getFavoriteIdsByUser().entrySet()) {
+            mark(e.getKey(), e.getValue(), FAVOURITE);
+        }
+        for (Map.Entry<String, long[]> e : reviewRepository.getRatedIdsByUser(LIKED_RATING).entrySet()) {
+            mark(e.getKey(), e.getValue(), LIKED);
+        }
+
+        List<long[]> userSets = new ArrayList<>(itemsByUser.size());
+        for (LongHashMap<int[]> items : itemsByUser.values()) {
+            long[] ids = items.keys();
+            userSets.add(ids);
+            for (long id : ids) {
+                userCount(id)[0]++;
+            }
+        }
+        cooccurrence = ForkJoinPool.commonPool()
+                .invoke(new PairCountTask(userSets.toArray(new long[0][]), 0, userSets.size()));
+        for (long id : cooccurrence.keys()) {
+            rank(id);
+        }
+    }
+
+    private void mark(String userKey, long[] ids, int flag) {
+        LongHashMap<int[]> items = itemsByUser.computeIfAbsent(userKey, k -> new LongHashMap<>());
+        for (long id : ids) {
+            int[] flags = items.get(id);
+            if (flags == null) {
+                items.put(id, new int[]{flag});
+            } else {
+                flags[0] |= flag;
+            }
+        }
+    }
+
+    /**
+     * Applies one change to a user's set. Only a recipe entering or leaving
+     * the set moves any counts; those touch the recipe's row and the rows of
+     * the user's other recipes, and every recipe whose similarity to it
+     * changed is added to {@code dirty} for re-ranking.
+     */
+    private void setFlag(String userKey, long recipeId, int flag, boolean on, RecipeBitmap dirty) {
+        LongHashMap<int[]> items = itemsByUser.computeIfAbsent(userKey, k -> new LongHashMap<>());
+        int[] flags = items.get(recipeId);
+        int before = flags == null ? 0 : flags[0];
+        int after = on ? before | flag : before & ~flag;
+        if (before == after) {
+            return;
+        }
+        if (after != 0) {
+            if (flags == null) {
+                items.put(recipeId, new int[]{after});
+            } else {
+                flags[0] = after;
+            }
+            if (before != 0) {
+                return;
+            }
+        } else {
+            items.remove(recipeId);
+        }
+
+        int delta = after != 0 ? 1 : -1;
+        int[] count = userCount(recipeId);
+        count[0] += delta;
+        if (count[0] <= 0) {
+            userCounts.remove(recipeId);
+        }
+        for (long other : items.keys()) {
+            if (other != recipeId) {
+                addPair(cooccurrence, recipeId, other, delta);
+                addPair(cooccurrence, other, recipeId, delta);
+            }
+        }
+        // The recipe's popularity changed, so every neighbour's similarity to it moved
+        dirty.add(recipeId);
+        LongHashMap<int[]> row = cooccurrence.get(recipeId);
+        if (row != null) {
+            for (long other : row.keys()) {
+                dirty.add(other);
+            }
+        }
+        if (delta < 0) {
+            // Pairs that just dropped to zero are no longer in the row
+            for (long other : items.keys()) {
+                dirty.add(other);
+            }
+        }
+    }
+
+    private int[] userCount(long recipeId) {
+        int[] count = userCounts.get(recipeId);
+        if (count == null) {
+            count = new int[1];
+            userCounts.put(recipeId, count);
+        }
+        return count;
+    }
+
+    private void rank(long recipeId) {
+        LongHashMap<int[]> row = cooccurrence.get(recipeId);
+        if (row == null || row.isEmpty()) {
+            synchronized (this) {
+                neighbours.remove(recipeId);
+            }
+            return;
+        }
+        long[] ids = row.keys();
+        List<int[]> counts = row.values();
+        double own = userCounts.getOrDefault(recipeId, new int[1])[0];
+        double[] scores = new double[ids.length];
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            double theirs = userCounts.getOrDefault(ids[i], new int[1])[0];
+            scores[i] = own == 0 || theirs == 0 ? 0 : counts.get(i)[0] / Math.sqrt(own * theirs);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> scores[a] != scores[b]
+                ? Double.compare(scores[b], scores[a]) : Long.compare(ids[a], ids[b]));
+        long[] best = new long[Math.min(NEIGHBOURS, ids.length)];
+        for (int i = 0; i < best.length; i++) {
+            best[i] = ids[order[i]];
+        }
+        synchronized (this) {
+            neighbours.put(recipeId, best);
+        }
+    }
+
+    private static void addPair(LongHashMap<LongHashMap<int[]>> matrix, long a, long b, int delta) {
+        LongHashMap<int[]> row = matrix.get(a);
+        if (row == null) {
+            if (delta <= 0) {
+                return;
+            }
+            row = new LongHashMap<>();
+            matrix.put(a, row);
+        }
+        int[] count = row.get(b);
+        if (count == null) {
+            if (delta > 0) {
+                row.put(b, new int[]{delta});
+            }
+            return;
+        }
+        count[0] += delta;
+        if (count[0] <= 0) {
+            row.remove(b);
+            if (row.isEmpty()) {
+                matrix.remove(a);
+            }
+        }
+    }
+
+    private static final class Change {
+        private final String userKey;
+        private final long recipeId;
+        private final int flag;
+        private final boolean on;
+
+        Change(String userKey, long recipeId, int flag, boolean on) {
+            this.userKey = userKey;
+            this.recipeId = recipeId;
+            this.flag = flag;
+            this.on = on;
+        }
+    }
+
+    private static final class PairCountTask extends RecursiveTask<LongHashMap<LongHashMap<int[]>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[][] userSets;
+        private final int from;
+        private final int to;
+
+        PairCountTask(long[][] userSets, int from, int to) {
+            this.userSets = userSets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongHashMap<LongHashMap<int[]>> compute() {
+            if (to - from <= USERS_PER_TASK) {
+                LongHashMap<LongHashMap<int[]>> matrix = new LongHashMap<>();
+                for (int u = from; u < to; u++) {
+                    long[] ids = userSets[u];
+                    for (int i = 0; i < ids.length; i++) {
+                        for (int j = 0; j < ids.length; j++) {
+                            if (i != j) {
+                                addPair(matrix, ids[i], ids[j], 1);
+                            }
+                        }
+                    }
+                }
+                return matrix;
+            }
+            int mid = (from + to) >>> 1;
+            PairCountTask left = new PairCountTask(userSets, from, mid);
+            left.fork();
+            LongHashMap<LongHashMap<int[]>> right = new PairCountTask(userSets, mid, to).compute();
+            return merge(left.join(), right);
+        }
+
+        private static LongHashMap<LongHashMap<int[]>> merge(LongHashMap<LongHashMap<int[]>> a,
+                                                            LongHashMap<LongHashMap<int[]>> b) {
+            if (a.size() < b.size()) {
+                LongHashMap<LongHashMap<int[]>> swap = a;
+                a = b;
+                b = swap;
+            }
+            long[] rowIds = b.keys();
+            List<LongHashMap<int[]>> rows = b.values();
+            for (int r = 0; r < rowIds.length; r++) {
+                LongHashMap<int[]> target = a.get(rowIds[r]);
+                if (target == null) {
+                    a.put(rowIds[r], rows.get(r));
+                    continue;
+                }
+                long[] cols = rows.get(r).keys();
+                List<int[]> counts = rows.get(r).values();
+                for (int c = 0; c < cols.length; c++) {
+                    int[] existing = target.get(cols[c]);
+                    if (existing == null) {
+                        target.put(cols[c], counts.get(c));
+                    } else {
+                        existing[0] += counts.get(c)[0];
+                    }
+                }
+            }
+            return a;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented review storage. Each review is a row index into parallel
+ * primitive arrays; author names are interned to int ids and comment text
+ * is packed into one shared char arena, so a stored review costs a few dozen
+ * bytes instead of several objects.
+ *
+ * <p>The {@code older}/{@code newer} columns link the reviews of one recipe
+ * into a list, newest last, which the owner maintains with {@link #link} and
+ * {@link #unlink}. Removed rows are reused by later adds, and the arena is
+ * compacted once more than half of it holds replaced or removed comments.
+ */
+public class ReviewColumns {
+
+    private long[] recipeIds = new long[16];
+    private int[] ratings = new int[16];
+    private long[] createdAt = new long[16];
+    private int[] authorIds = new int[16];
+    private int[] commentStart = new int[16];
+    private int[] commentLength = new int[16];
+    private int[] older = new int[16];
+    private int[] newer = new int[16];
+    private int size;
+    // Removed rows, reused before the columns grow
+    private int[] freeRows = new int[4];
+    private int freeCount;
+
+    private char[] commentArena = new char[256];
+    private int arenaSize;
+    // Arena chars no longer referenced by any row
+    private int abandonedChars;
+
+    private final List<String> authors = new ArrayList<>();
+    private final Map<String, Integer> authorIndex = new HashMap<>();
+
+    /**
+     * Number of stored reviews.
+     */
+    public int size() {
+        return size - freeCount;
+    }
+
+    /**
+     * Stores a review, unlinked, and returns its row.
+     */
+    public int add(long recipeId, String author, int rating, String comment, long createdAtMillis) {
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            if (size == ratings.length) {
+                int capacity = size * 2;
+                recipeIds = Arrays.copyOf(recipeIds, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                authorIds = Arrays.copyOf(authorIds, capacity);
+                commentStart = Arrays.copyOf(commentStart, capacity);
+                commentLength = Arrays.copyOf(commentLength, capacity);
+                older = Arrays.copyOf(older, capacity);
+                newer = Arrays.copyOf(newer, capacity);
+            }
+            row = size++;
+        }
+        older[row] = -1;
+        newer[row] = -1;
+        recipeIds[row] = recipeId;
+        ratings[row] = rating;
+        createdAt[row] = createdAtMillis;
+        authorIds[row] = internAuthor(author);
+        commentStart[row] = appendComment(comment);
+        commentLength[row] = comment == null ? 0 : comment.length();
+        return row;
+    }
+
+    /**
+     * Overwrites the rating, comment and timestamp of an existing row. A
+     * comment that fits in the old one's space reuses it; a longer one is
+     * appended to the arena and the old space is counted as abandoned.
+     */
+    public void update(int row, int rating, String comment, long createdAtMillis) {
+        ratings[row] = rating;
+        createdAt[row] = createdAtMillis;
+        int length = comment == null ? 0 : comment.length();
+        if (length <= commentLength[row]) {
+            if (length > 0) {
+                comment.getChars(0, length, commentArena, commentStart[row]);
+            }
+            abandonedChars += commentLength[row] - length;
+            commentLength[row] = length;
+            return;
+        }
+        abandonCommentOf(row);
+        commentStart[row] = appendComment(comment);
+        commentLength[row] = length;
+    }
+
+    /**
+     * Frees an unlinked row for reuse.
+     */
+    public void remove(int row) {
+        abandonCommentOf(row);
+        authorIds[row] = -1;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    /**
+     * Makes {@code row} the newest of the list whose newest row is
+     * {@code newest} (-1 for an empty list).
+     */
+    public void link(int row, int newest) {
+        older[row] = newest;
+        newer[row] = -1;
+        if (newest >= 0) {
+            newer[newest] = row;
+        }
+    }
+
+    /**
+     * Takes {@code row} out of its list; the caller fixes up the list's ends
+     * from {@link #older} and {@link #newer} beforehand.
+     */
+    public void unlink(int row) {
+        if (older[row] >= 0) {
+            newer[older[row]] = newer[row];
+        }
+        if (newer[row] >= 0) {
+            older[newer[row]] = older[row];
+        }
+        older[row] = -1;
+        newer[row] = -1;
+    }
+
+    /**
+     * The next older review of the same recipe, or -1.
+     */
+    public int older(int row) {
+        return older[row];
+    }
+
+    /**
+     * The next newer review of the same recipe, or -1.
+     */
+    public int newer(int row) {
+        return newer[row];
+    }
+
+    public long recipeId(int row) {
+        return recipeIds[row];
+    }
+
+    public int rating(int row) {
+        return ratings[row];
+    }
+
+    public long createdAt(int row) {
+        return createdAt[row];
+    }
+
+    public String author(int row) {
+        return authors.get(authorIds[row]);
+    }
+
+    public String comment(int row) {
+        return commentLength[row] == 0 ? "" : new String(commentArena, commentStart[row], commentLength[row]);
+    }
+
+    public Review toReview(int row) {
+        return new Review(author(row), rating(row), comment(row), createdAt(row));
+    }
+
+    private int internAuthor(String author) {
+        String name = author == null ? "" : author;
+        Integer id = authorIndex.get(name);
+        if (id == null) {
+            id = authors.size();
+            authors.add(name);
+            authorIndex.put(name, id);
+        }
+        return id;
+    }
+
+    private void abandonCommentOf(int row) {
+        abandonedChars += commentLength[row];
+        commentLength[row] = 0;
+    }
+
+    private int appendComment(String comment) {
+        if (comment == null || comment.isEmpty()) {
+            return arenaSize;
+        }
+        if (abandonedChars > arenaSize / 2 && arenaSize + comment.length() > commentArena.length) {
+            compactArena();
+        }
+        int start = arenaSize;
+        if (arenaSize + comment.length() > commentArena.length) {
+            commentArena = Arrays.copyOf(commentArena, Math.max(commentArena.length * 2, arenaSize + comment.length()));
+        }
+        comment.getChars(0, comment.length(), commentArena, arenaSize);
+        arenaSize += comment.length();
+        return start;
+    }
+
+    /**
+     * Copies the live comments to the front of the arena in row order. Only
+     * runs when the arena would otherwise grow, and at least half of it is
+     * abandoned, so the copying is paid for by the appends since the last
+     * compaction.
+     */
+    private void compactArena() {
+        char[] compacted = new char[Math.max(256, commentArena.length)];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            int length = commentLength[row];
+            if (length > 0) {
+                System.arraycopy(commentArena, commentStart[row], compacted, n, length);
+                commentStart[row] = n;
+                n += length;
+            }
+        }
+        commentArena = compacted;
+        arenaSize = n;
+        abandonedChars = 0;
+    }
+}
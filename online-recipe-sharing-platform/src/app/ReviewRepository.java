@@ -1,56 +1,256 @@
-package app;
-
-import java.util.*;
-
-public class ReviewRepository {
-
-    private final Map<Recipe, List<Review>> reviewsByRecipe = new HashMap<>();
-
-    public List<Review> getReviews(Recipe recipe) {
-        if (recipe == null) {
-            return Collections.emptyList();
-        }
-        return new ArrayList<>(reviewsByRecipe.getOrDefault(recipe, Collections.emptyList()));
-    }
-
-    public void addReview(Recipe recipe, Review review) {
-        if (recipe == null || review == null) {
-            return;
-        }
-        List<Review> list = reviewsByRecipe.computeIfAbsent(recipe, r -> new ArrayList<>());
-        list.add(review);
-    }
-
-    public int getTotalReviewCount() {
-        int count = 0;
-        for (List<Review> list : reviewsByRecipe.values()) {
-            count += list.size();
-        }
-        return count;
-    }
-
-    public int getReviewCountByUser(String username) {
-        if (username == null) return 0;
-        int count = 0;
-        for (List<Review> list : reviewsByRecipe.values()) {
-            for (Review r : list) {
-                if (username.equalsIgnoreCase(r.getAuthorUsername())) {
-                    count++;
-                }
-            }
-        }
-        return count;
-    }
-
-    public double getAverageRating(Recipe recipe) {
-        List<Review> list = reviewsByRecipe.get(recipe);
-        if (list == null || list.isEmpty()) {
-            return -1;
-        }
-        int sum = 0;
-        for (Review r : list) {
-            sum += r.getRating();
-        }
-        return (double) sum / list.size();
-    }
-}
+package app;
+
+import java.util.*;
+
+public class ReviewRepository implements ReviewStore {
+
+    private final ReviewColumns columns = new ReviewColumns();
+    // Rows and running totals per recipe, so rating queries never walk reviews
+    private final LongHashMap<RecipeReviews> reviewsByRecipe = new LongHashMap<>();
+    private final RatingLeaderboard leaderboard = new RatingLeaderboard();
+    // Lowercased username -> recipe id -> review row; one review per user per recipe
+    private final Map<String, LongIntHashMap> reviewRowsByUser = new HashMap<>();
+    private int totalReviewCount;
+    // Set once persistence is running; null for a purely in-memory repository
+    private volatile Journal journal;
+
+    public synchronized List<Review> getReviews(Recipe recipe) {
+        if (recipe == null) {
+            return Collections.emptyList();
+        }
+        RecipeReviews reviews = reviewsByRecipe.get(recipe.getId());
+        if (reviews == null) {
+            return new ArrayList<>();
+        }
+        List<Review> result = new ArrayList<>(reviews.count);
+        for (int row = reviews.oldest; row >= 0; row = columns.newer(row)) {
+            result.add(columns.toReview(row));
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} reviews of the recipe, newest first, skipping the
+     * {@code offset} most recent ones.
+     */
+    public synchronized List<Review> getReviews(Recipe recipe, int offset, int limit) {
+        RecipeReviews reviews = recipe == null ? null : reviewsByRecipe.get(recipe.getId());
+        if (reviews == null || offset < 0 || limit <= 0 || offset >= reviews.count) {
+            return new ArrayList<>();
+        }
+        int end = Math.min(reviews.count, offset + limit);
+        List<Review> result = new ArrayList<>(end - offset);
+        int row = reviews.newest;
+        for (int i = 0; i < offset; i++) {
+            row = columns.older(row);
+        }
+        for (int i = offset; i < end; i++) {
+            result.add(columns.toReview(row));
+            row = columns.older(row);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the review, or replaces the author's earlier review of the same
+     * recipe. A replaced review moves to the newest position and the rating
+     * totals change by the difference between the old and new rating.
+     */
+    public void addReview(Recipe recipe, Review review) {
+        if (recipe != null) {
+            addReview(recipe.getId(), review);
+        }
+    }
+
+    void addReview(long recipeId, Review review) {
+        if (review == null) {
+            return;
+        }
+        long seq;
+        synchronized (this) {
+            store(recipeId, review);
+            seq = journal == null ? 0 : journal.reviewPut(recipeId, review);
+        }
+        if (seq > 0) {
+            journal.sync(seq);
+        }
+    }
+
+    private void store(long recipeId, Review review) {
+        RecipeReviews reviews = reviewsByRecipe.get(recipeId);
+        if (reviews == null) {
+            reviews = new RecipeReviews();
+            reviewsByRecipe.put(recipeId, reviews);
+        }
+        String userKey = userKey(review.getAuthorUsername());
+        LongIntHashMap userRows = reviewRowsByUser.computeIfAbsent(userKey, k -> new LongIntHashMap());
+        int row = userRows.get(recipeId);
+        if (row >= 0) {
+            int oldRating = columns.rating(row);
+            columns.update(row, review.getRating(), review.getComment(), review.getCreatedAt());
+            reviews.moveToNewest(columns, row);
+            reviews.sum += review.getRating() - oldRating;
+            leaderboard.replace(recipeId, oldRating, review.getRating());
+            return;
+        }
+        row = columns.add(recipeId, review.getAuthorUsername(), review.getRating(),
+                review.getComment(), review.getCreatedAt());
+        reviews.add(columns, row, review.getRating());
+        userRows.put(recipeId, row);
+        leaderboard.record(recipeId, review.getRating());
+        totalReviewCount++;
+    }
+
+    /**
+     * Drops every review of the recipe and its leaderboard entry, as when
+     * the recipe is deleted. Not journaled; see
+     * {@link RecipeRepository#setRemovalHandler}.
+     */
+    synchronized void removeRecipe(long recipeId) {
+        RecipeReviews reviews = reviewsByRecipe.remove(recipeId);
+        if (reviews == null) {
+            return;
+        }
+        // The whole list goes, so its rows need no unlinking
+        for (int row = reviews.oldest; row >= 0; ) {
+            int next = columns.newer(row);
+            String userKey = userKey(columns.author(row));
+            LongIntHashMap userRows = reviewRowsByUser.get(userKey);
+            if (userRows != null) {
+                userRows.remove(recipeId);
+                if (userRows.isEmpty()) {
+                    reviewRowsByUser.remove(userKey);
+                }
+            }
+            columns.remove(row);
+            row = next;
+        }
+        totalReviewCount -= reviews.count;
+        leaderboard.remove(recipeId);
+    }
+
+    /**
+     * Every review grouped by recipe id, oldest first within a recipe, so
+     * adding them back in this order rebuilds the same repository.
+     */
+    synchronized LongHashMap<List<Review>> getAllReviewsByRecipe() {
+        LongHashMap<List<Review>> result = new LongHashMap<>(reviewsByRecipe.size());
+        long[] recipeIds = reviewsByRecipe.keys();
+        List<RecipeReviews> all = reviewsByRecipe.values();
+        for (int i = 0; i < recipeIds.length; i++) {
+            RecipeReviews reviews = all.get(i);
+            List<Review> list = new ArrayList<>(reviews.count);
+            for (int row = reviews.oldest; row >= 0; row = columns.newer(row)) {
+                list.add(columns.toReview(row));
+            }
+            result.put(recipeIds[i], list);
+        }
+        return result;
+    }
+
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * The user's review of the recipe, or null if they have not reviewed it.
+     */
+    public synchronized Review getReviewByUser(Recipe recipe, String username) {
+        if (recipe == null || username == null) {
+            return null;
+        }
+        LongIntHashMap userRows = reviewRowsByUser.get(userKey(username));
+        int row = userRows == null ? -1 : userRows.get(recipe.getId());
+        return row < 0 ? null : columns.toReview(row);
+    }
+
+    public synchronized int getTotalReviewCount() {
+        return totalReviewCount;
+    }
+
+    public synchronized int getReviewCountByUser(String username) {
+        if (username == null) return 0;
+        LongIntHashMap userRows = reviewRowsByUser.get(userKey(username));
+        return userRows == null ? 0 : userRows.size();
+    }
+
+    /**
+     * Best-rated recipes by Bayesian average, best first. Served from the
+     * incrementally maintained leaderboard, without scanning reviews.
+     */
+    public List<RatingLeaderboard.Entry> getTopRated(int n) {
+        return leaderboard.top(n);
+    }
+
+    /**
+     * Ids of the recipes each user rated at least {@code minRating}, keyed by
+     * lowercased username.
+     */
+    public synchronized Map<String, long[]> getRatedIdsByUser(int minRating) {
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<String, LongIntHashMap> e : reviewRowsByUser.entrySet()) {
+            long[] recipeIds = e.getValue().keys();
+            int[] rows = e.getValue().values();
+            long[] rated = new long[recipeIds.length];
+            int n = 0;
+            for (int i = 0; i < recipeIds.length; i++) {
+                if (columns.rating(rows[i]) >= minRating) {
+                    rated[n++] = recipeIds[i];
+                }
+            }
+            if (n > 0) {
+                result.put(e.getKey(), Arrays.copyOf(rated, n));
+            }
+        }
+        return result;
+    }
+
+    public synchronized int getReviewCount(Recipe recipe) {
+        RecipeReviews reviews = recipe == null ? null : reviewsByRecipe.get(recipe.getId());
+        return reviews == null ? 0 : reviews.count;
+    }
+
+    public synchronized double getAverageRating(Recipe recipe) {
+        RecipeReviews reviews = recipe == null ? null : reviewsByRecipe.get(recipe.getId());
+        if (reviews == null || reviews.count == 0) {
+            return -1;
+        }
+        return (double) reviews.sum / reviews.count;
+    }
+
+    private static String userKey(String username) {
+        return username == null ? "" : username.toLowerCase();
+    }
+
+    /**
+     * Ends of the recipe's review list in {@link ReviewColumns}, plus totals.
+     */
+    private static class RecipeReviews {
+        private int oldest = -1;
+        private int newest = -1;
+        private int count;
+        private long sum;
+
+        void add(ReviewColumns columns, int row, int rating) {
+            columns.link(row, newest);
+            newest = row;
+            if (oldest < 0) {
+                oldest = row;
+            }
+            count++;
+            sum += rating;
+        }
+
+        void moveToNewest(ReviewColumns columns, int row) {
+            if (row == newest) {
+                return;
+            }
+            if (row == oldest) {
+                oldest = columns.newer(row);
+            }
+            columns.unlink(row);
+            columns.link(row, newest);
+            newest = row;
+        }
+    }
+}
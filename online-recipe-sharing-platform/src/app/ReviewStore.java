@@ -0,0 +1,54 @@
+package app;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for reviews; at most one review per user per recipe.
+ */
+public interface ReviewStore {
+
+    /**
+     * Every review of the recipe, oldest first.
+     */
+    List<Review> getReviews(Recipe recipe);
+
+    /**
+     * Up to {@code limit} reviews of the recipe, newest first, skipping the
+     * {@code offset} most recent ones.
+     */
+    List<Review> getReviews(Recipe recipe, int offset, int limit);
+
+    /**
+     * Adds the review, or replaces the author's earlier review of the same
+     * recipe. A replaced review moves to the newest position.
+     */
+    void addReview(Recipe recipe, Review review);
+
+    /**
+     * The user's review of the recipe, or null if they have not reviewed it.
+     */
+    Review getReviewByUser(Recipe recipe, String username);
+
+    int getTotalReviewCount();
+
+    int getReviewCountByUser(String username);
+
+    /**
+     * Best-rated recipes by Bayesian average, best first.
+     */
+    List<RatingLeaderboard.Entry> getTopRated(int n);
+
+    /**
+     * Ids of the recipes each user rated at least {@code minRating}, keyed by
+     * lowercased username.
+     */
+    Map<String, long[]> getRatedIdsByUser(int minRating);
+
+    int getReviewCount(Recipe recipe);
+
+    /**
+     * Mean rating of the recipe, or -1 if it has no reviews.
+     */
+    double getAverageRating(Recipe recipe);
+}
@@ -0,0 +1,55 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+public class SearchResult {
+    private final Recipe recipe;
+    private final double score;
+
+    public SearchResult(Recipe recipe, double score) {
+        this.recipe = recipe;
+        this.score = score;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * The {@code k} highest-scoring candidates, highest first. Only a k-sized
+     * heap is kept, so the full candidate set is never sorted; equal scores
+     * keep id order.
+     */
+    static List<SearchResult> top(List<Recipe> candidates, ToDoubleFunction<Recipe> score, int k) {
+        List<SearchResult> ranked = new ArrayList<>();
+        if (k <= 0) {
+            return ranked;
+        }
+        Comparator<SearchResult> worstFirst = Comparator.comparingDouble(SearchResult::getScore)
+                .thenComparing(r -> -r.getRecipe().getId());
+        PriorityQueue<SearchResult> heap = new PriorityQueue<>(k, worstFirst);
+        for (Recipe recipe : candidates) {
+            SearchResult result = new SearchResult(recipe, score.applyAsDouble(recipe));
+            if (heap.size() < k) {
+                heap.add(result);
+            } else if (worstFirst.compare(result, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(result);
+            }
+        }
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+}
@@ -0,0 +1,668 @@
+package app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the users, recipes, reviews and favourites.
+ *
+ * <p>Layout: a 16-byte header (magic, version, generation), then 8-byte
+ * aligned sections, then a footer listing each section's id, offset, length
+ * and CRC-32. The footer ends with its entry count, a CRC-32 of the entries,
+ * the version and the magic, so a reader starts from the last 16 bytes.
+ * <ul>
+ * <li>{@code STRINGS}: count, padding, count + 1 long offsets, then UTF-8
+ * bytes. Other sections refer to short text by index into this table (-1
+ * for null), so repeated strings such as author names are stored once.</li>
+ * <li>{@code USERS}: count, then (username, password hash, role) rows.</li>
+ * <li>{@code BODIES}: the ingredients and instructions of each recipe, as
+ * length-prefixed UTF-8 (-1 for null). Recipe text is streamed straight to
+ * the file rather than collected in the string table.</li>
+ * <li>{@code RECIPES}: next id, count, then fixed 32-byte rows holding the
+ * offset of the recipe's text in {@code BODIES}.</li>
+ * <li>{@code REVIEWS}: count, then fixed 32-byte rows grouped by recipe,
+ * oldest first.</li>
+ * <li>{@code FAVORITES}: user count, id count, (user, count) rows, then the
+ * recipe ids.</li>
+ * </ul>
+ * Sections are read through {@link FileChannel#map}, and strings are only
+ * decoded when a row refers to them. When the recipe repository has a
+ * {@link RecipeBodyStore}, recipe text stays in the mapped {@code BODIES}
+ * section and is served from there. Every section is checked against its
+ * CRC before anything is loaded. Snapshots are written to a temporary file
+ * and renamed into place, so a file with a valid footer is complete.
+ */
+public class SnapshotFile {
+
+    static final int MAGIC = 0x52435053; // "RCPS"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int FOOTER_TAIL_BYTES = 16;
+    private static final int FOOTER_ENTRY_BYTES = 24;
+    private static final int RECIPE_ROW_BYTES = 32;
+    private static final int REVIEW_ROW_BYTES = 32;
+
+    private static final int STRINGS = 1;
+    private static final int USERS = 2;
+    private static final int RECIPES = 3;
+    private static final int REVIEWS = 4;
+    private static final int FAVORITES = 5;
+    private static final int BODIES = 6;
+
+    private static final int APPROVED = 1;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes the snapshot and returns where each recipe's text went in its
+     * {@code BODIES} section. {@code bodyHandles} holds the handle of each
+     * recipe's text in {@code bodies} as it was captured, or -1 to take the
+     * text from the recipe itself.
+     */
+    public static long[] write(Path target, long generation, List<User> users, List<Recipe> recipes,
+                               long[] bodyHandles, RecipeBodyStore bodies, long nextId,
+                               LongHashMap<List<Review>> reviewsByRecipe, Map<String, long[]> favoriteIds)
+            throws IOException {
+        StringTable.Builder strings = new StringTable.Builder();
+
+        int[] userRows = new int[users.size() * 3];
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            userRows[i * 3] = strings.add(user.getUsername());
+            userRows[i * 3 + 1] = strings.add(user.getPasswordHash());
+            userRows[i * 3 + 2] = user.getRole().ordinal();
+        }
+
+        int[] recipeRefs = new int[recipes.size() * 2];
+        for (int i = 0; i < recipes.size(); i++) {
+            Recipe recipe = recipes.get(i);
+            recipeRefs[i * 2] = strings.add(recipe.getTitle());
+            recipeRefs[i * 2 + 1] = strings.add(recipe.getAuthorUsername());
+        }
+
+        long[] reviewedIds = reviewsByRecipe.keys();
+        List<List<Review>> reviewLists = reviewsByRecipe.values();
+        int reviewCount = 0;
+        for (List<Review> list : reviewLists) {
+            reviewCount += list.size();
+        }
+        int[] reviewRefs = new int[reviewCount * 2];
+        int r = 0;
+        for (List<Review> list : reviewLists) {
+            for (Review review : list) {
+                reviewRefs[r++] = strings.add(review.getAuthorUsername());
+                reviewRefs[r++] = strings.add(review.getComment());
+            }
+        }
+
+        int favoriteIdCount = 0;
+        int[] favoriteUsers = new int[favoriteIds.size()];
+        int u = 0;
+        for (Map.Entry<String, long[]> e : favoriteIds.entrySet()) {
+            favoriteUsers[u++] = strings.add(e.getKey());
+            favoriteIdCount += e.getValue().length;
+        }
+
+        long[] bodyOffsets = new long[recipes.size()];
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC).putInt(VERSION).putLong(generation);
+
+            out.beginSection(STRINGS);
+            strings.writeTo(out);
+
+            out.beginSection(USERS);
+            out.putInt(users.size());
+            for (int value : userRows) {
+                out.putInt(value);
+            }
+
+            // One recipe's text at a time; only the offsets are kept
+            out.beginSection(BODIES);
+            for (int i = 0; i < recipes.size(); i++) {
+                bodyOffsets[i] = out.sectionPosition();
+                if (bodyHandles[i] >= 0) {
+                    RecipeBodyStore.Body body = bodies.read(bodyHandles[i]);
+                    out.putString(body.getIngredients());
+                    out.putString(body.getInstructions());
+                } else {
+                    out.putString(recipes.get(i).getIngredients());
+                    out.putString(recipes.get(i).getInstructions());
+                }
+            }
+
+            out.beginSection(RECIPES);
+            out.putLong(nextId).putInt(recipes.size()).putInt(0);
+            for (int i = 0; i < recipes.size(); i++) {
+                Recipe recipe = recipes.get(i);
+                out.putLong(recipe.getId());
+                out.putInt(recipeRefs[i * 2]).putLong(bodyOffsets[i]).putInt(recipeRefs[i * 2 + 1]);
+                out.putInt(recipe.getRating()).putInt(recipe.isApproved() ? APPROVED : 0);
+            }
+
+            out.beginSection(REVIEWS);
+            out.putInt(reviewCount).putInt(0);
+            r = 0;
+            for (int i = 0; i < reviewedIds.length; i++) {
+                for (Review review : reviewLists.get(i)) {
+                    out.putLong(reviewedIds[i]).putLong(review.getCreatedAt());
+                    out.putInt(reviewRefs[r++]).putInt(reviewRefs[r++]).putInt(review.getRating()).putInt(0);
+                }
+            }
+
+            out.beginSection(FAVORITES);
+            out.putInt(favoriteIds.size()).putInt(favoriteIdCount);
+            u = 0;
+            for (long[] ids : favoriteIds.values()) {
+                out.putInt(favoriteUsers[u++]).putInt(ids.length);
+            }
+            for (long[] ids : favoriteIds.values()) {
+                for (long id : ids) {
+                    out.putLong(id);
+                }
+            }
+
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bodyOffsets;
+    }
+
+    /**
+     * Whether the file looks like a complete snapshot: it has a valid
+     * footer. Section contents are only checked by {@link #read}.
+     */
+    public static boolean isReadable(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(8);
+            if (channel.size() < 8 || channel.read(head, 0) < 8 || head.getInt(0) != MAGIC
+                    || head.getInt(4) != VERSION) {
+                return false;
+            }
+            return readFooter(channel) != null;
+        }
+    }
+
+    /**
+     * Loads the snapshot into empty repositories.
+     */
+    public static void read(Path file, UserRepository users, RecipeRepository recipes,
+                            ReviewRepository reviews, FavoriteRepository favorites) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(8);
+            channel.read(head, 0);
+            Map<Integer, long[]> sections = head.getInt(0) == MAGIC && head.getInt(4) == VERSION
+                    ? readFooter(channel) : null;
+            if (sections == null) {
+                throw new IOException("Not a readable snapshot: " + file);
+            }
+            for (Map.Entry<Integer, long[]> section : sections.entrySet()) {
+                if (crc(channel, section.getValue()) != (int) section.getValue()[2]) {
+                    throw new IOException("Snapshot section " + section.getKey() + " is damaged: " + file);
+                }
+            }
+            long[] stringSection = sections.get(STRINGS);
+            if (stringSection == null) {
+                throw new IOException("Snapshot has no section " + STRINGS);
+            }
+            StringTable strings = new StringTable(channel, stringSection);
+
+            ByteBuffer userSection = map(channel, sections, USERS);
+            int userCount = userSection.getInt(0);
+            for (int i = 0; i < userCount; i++) {
+                int row = 4 + i * 12;
+                users.addUser(User.withPasswordHash(strings.get(userSection.getInt(row)),
+                        strings.get(userSection.getInt(row + 4)), User.Role.values()[userSection.getInt(row + 8)]));
+            }
+
+            ByteBuffer recipeSection = map(channel, sections, RECIPES);
+            long[] bodySection = sections.get(BODIES);
+            if (bodySection == null) {
+                throw new IOException("Snapshot has no section " + BODIES);
+            }
+            BodySection bodies = new BodySection(new MappedBytes(channel, bodySection[0], bodySection[1]));
+            RecipeBodyStore bodyStore = recipes.getBodyStore();
+            int bodySource = bodyStore == null ? -1 : bodyStore.addSnapshot(bodies);
+            long nextId = recipeSection.getLong(0);
+            int recipeCount = recipeSection.getInt(8);
+            for (int i = 0; i < recipeCount; i++) {
+                int row = 16 + i * RECIPE_ROW_BYTES;
+                long id = recipeSection.getLong(row);
+                String title = strings.get(recipeSection.getInt(row + 8));
+                long at = recipeSection.getLong(row + 12);
+                String author = strings.get(recipeSection.getInt(row + 20));
+                boolean approved = (recipeSection.getInt(row + 28) & APPROVED) != 0;
+                int rating = recipeSection.getInt(row + 24);
+                if (bodySource >= 0) {
+                    recipes.restoreRecipe(id, title, RecipeBodyStore.handle(bodySource, at), author, approved, rating);
+                } else {
+                    RecipeBodyStore.Body body = bodies.read(at);
+                    recipes.restoreRecipe(id, title, body.getIngredients(), body.getInstructions(), author, approved,
+                            rating);
+                }
+            }
+            recipes.setNextId(nextId);
+
+            ByteBuffer reviewSection = map(channel, sections, REVIEWS);
+            int reviewCount = reviewSection.getInt(0);
+            for (int i = 0; i < reviewCount; i++) {
+                int row = 8 + i * REVIEW_ROW_BYTES;
+                // Older snapshots kept the reviews of deleted recipes
+                if (recipes.getRecipe(reviewSection.getLong(row)) == null) {
+                    continue;
+                }
+                reviews.addReview(reviewSection.getLong(row), new Review(
+                        strings.get(reviewSection.getInt(row + 16)),
+                        reviewSection.getInt(row + 24),
+                        strings.get(reviewSection.getInt(row + 20)),
+                        reviewSection.getLong(row + 8)));
+            }
+
+            ByteBuffer favoriteSection = map(channel, sections, FAVORITES);
+            int favoriteUsers = favoriteSection.getInt(0);
+            int idBase = 8 + favoriteUsers * 8;
+            for (int i = 0; i < favoriteUsers; i++) {
+                String userKey = strings.get(favoriteSection.getInt(8 + i * 8));
+                int count = favoriteSection.getInt(12 + i * 8);
+                for (int f = 0; f < count; f++) {
+                    favorites.addFavorite(userKey, recipes.getRecipe(favoriteSection.getLong(idBase)));
+                    idBase += 8;
+                }
+            }
+        }
+    }
+
+    /**
+     * Section id to {offset, length, crc}, or null if the footer is missing
+     * or damaged.
+     */
+    private static Map<Integer, long[]> readFooter(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES + FOOTER_TAIL_BYTES) {
+            return null;
+        }
+        ByteBuffer tail = ByteBuffer.allocate(FOOTER_TAIL_BYTES);
+        channel.read(tail, size - FOOTER_TAIL_BYTES);
+        int count = tail.getInt(0);
+        int version = tail.getInt(8);
+        if (tail.getInt(12) != MAGIC || version != VERSION || count <= 0 || count > 64) {
+            return null;
+        }
+        ByteBuffer entries = ByteBuffer.allocate(count * FOOTER_ENTRY_BYTES);
+        long entriesStart = size - FOOTER_TAIL_BYTES - entries.capacity();
+        if (entriesStart < HEADER_BYTES) {
+            return null;
+        }
+        channel.read(entries, entriesStart);
+        CRC32 crc = new CRC32();
+        crc.update(entries.array());
+        if ((int) crc.getValue() != tail.getInt(4)) {
+            return null;
+        }
+        Map<Integer, long[]> sections = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int at = i * FOOTER_ENTRY_BYTES;
+            long offset = entries.getLong(at + 4);
+            long length = entries.getLong(at + 12);
+            if (offset < HEADER_BYTES || length < 0 || offset + length > entriesStart) {
+                return null;
+            }
+            sections.put(entries.getInt(at), new long[]{offset, length, entries.getInt(at + 20)});
+        }
+        return sections;
+    }
+
+    private static ByteBuffer map(FileChannel channel, Map<Integer, long[]> sections, int id) throws IOException {
+        long[] section = sections.get(id);
+        if (section == null) {
+            throw new IOException("Snapshot has no section " + id);
+        }
+        if (section[1] > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot section " + id + " is larger than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, section[0], section[1]);
+    }
+
+    /**
+     * The {@code BODIES} section of a snapshot written by {@link #write}, for
+     * serving recipe text from after the snapshot has replaced the previous
+     * one.
+     */
+    static RecipeBodyStore.Source mapBodies(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Map<Integer, long[]> sections = readFooter(channel);
+            long[] section = sections == null ? null : sections.get(BODIES);
+            if (section == null) {
+                throw new IOException("Snapshot has no section " + BODIES + ": " + file);
+            }
+            return new BodySection(new MappedBytes(channel, section[0], section[1]));
+        }
+    }
+
+    private static int crc(FileChannel channel, long[] section) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long from = 0; from < section[1]; from += MappedBytes.WINDOW_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, section[0] + from,
+                    Math.min(MappedBytes.WINDOW_BYTES, section[1] - from)));
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Strings of a {@code STRINGS} section, decoded on first use. Short
+     * strings such as names repeat and are kept once decoded; long text is
+     * decoded each time so the table does not hold it on the heap.
+     */
+    private static final class StringTable {
+        private static final int MAX_CACHED_STRING_BYTES = 64;
+
+        private final ByteBuffer offsets;
+        private final int count;
+        private final MappedBytes data;
+        private final String[] decoded;
+
+        StringTable(FileChannel channel, long[] section) throws IOException {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            channel.read(head, section[0]);
+            this.count = head.getInt(0);
+            long offsetBytes = (long) (count + 1) * 8;
+            long dataStart = 8 + offsetBytes;
+            if (count < 0 || dataStart > section[1] || offsetBytes > Integer.MAX_VALUE) {
+                throw new IOException("Damaged string table in snapshot");
+            }
+            this.offsets = channel.map(FileChannel.MapMode.READ_ONLY, section[0] + 8, offsetBytes);
+            this.data = new MappedBytes(channel, section[0] + dataStart, section[1] - dataStart);
+            this.decoded = new String[count];
+        }
+
+        String get(int ref) {
+            if (ref < 0 || ref >= count) {
+                return null;
+            }
+            String s = decoded[ref];
+            if (s == null) {
+                long start = offset(ref);
+                byte[] bytes = new byte[(int) (offset(ref + 1) - start)];
+                data.get(start, bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+                if (bytes.length <= MAX_CACHED_STRING_BYTES) {
+                    decoded[ref] = s;
+                }
+            }
+            return s;
+        }
+
+        private long offset(int i) {
+            return offsets.getLong(i * 8);
+        }
+
+        /**
+         * Collects the strings of a snapshot being written. The bytes are
+         * kept in fixed-size blocks, so the table can grow past the size of
+         * one array without copying what it already holds. Only short
+         * strings are looked up for reuse; long ones rarely repeat and would
+         * make the lookup map as large as the text.
+         */
+        static final class Builder {
+            private static final int BLOCK_BYTES = 1 << 20;
+            private static final int MAX_SHARED_CHARS = 64;
+
+            private final Map<String, Integer> refs = new HashMap<>();
+            private final List<byte[]> blocks = new ArrayList<>();
+            private long[] offsets = new long[1024];
+            private int count;
+            private long dataSize;
+
+            int add(String s) {
+                if (s == null) {
+                    return -1;
+                }
+                boolean shared = s.length() <= MAX_SHARED_CHARS;
+                Integer ref = shared ? refs.get(s) : null;
+                if (ref != null) {
+                    return ref;
+                }
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                for (int copied = 0; copied < bytes.length; ) {
+                    int within = (int) (dataSize % BLOCK_BYTES);
+                    if (within == 0) {
+                        blocks.add(new byte[BLOCK_BYTES]);
+                    }
+                    int n = Math.min(bytes.length - copied, BLOCK_BYTES - within);
+                    System.arraycopy(bytes, copied, blocks.get(blocks.size() - 1), within, n);
+                    copied += n;
+                    dataSize += n;
+                }
+                if (count + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[count + 1] = dataSize;
+                if (shared) {
+                    refs.put(s, count);
+                }
+                return count++;
+            }
+
+            void writeTo(Output out) throws IOException {
+                out.putInt(count).putInt(0);
+                for (int i = 0; i <= count; i++) {
+                    out.putLong(offsets[i]);
+                }
+                long remaining = dataSize;
+                for (byte[] block : blocks) {
+                    int n = (int) Math.min(block.length, remaining);
+                    out.putBytes(block, n);
+                    remaining -= n;
+                }
+            }
+        }
+    }
+
+    /**
+     * A read-only range of the file, mapped in windows of at most
+     * {@link #WINDOW_BYTES} so it may be larger than one mapping allows.
+     */
+    private static final class MappedBytes {
+        private static final int WINDOW_BYTES = 1 << 30;
+
+        private final ByteBuffer[] windows;
+
+        MappedBytes(FileChannel channel, long start, long length) throws IOException {
+            this.windows = new ByteBuffer[(int) ((length + WINDOW_BYTES - 1) / WINDOW_BYTES)];
+            for (int i = 0; i < windows.length; i++) {
+                long from = (long) i * WINDOW_BYTES;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + from,
+                        Math.min(WINDOW_BYTES, length - from));
+            }
+        }
+
+        void get(long start, byte[] bytes) {
+            for (int copied = 0; copied < bytes.length; ) {
+                long at = start + copied;
+                ByteBuffer window = windows[(int) (at / WINDOW_BYTES)];
+                int within = (int) (at % WINDOW_BYTES);
+                int n = Math.min(bytes.length - copied, window.capacity() - within);
+                window.get(within, bytes, copied, n);
+                copied += n;
+            }
+        }
+
+        int getInt(long at) {
+            byte[] bytes = new byte[4];
+            get(at, bytes);
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+
+        /**
+         * The length-prefixed string at {@code at}, as written by
+         * {@link Output#putString}.
+         */
+        String getString(long at) {
+            int length = getInt(at);
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            get(at + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long skipString(long at) {
+            return at + 4 + Math.max(0, getInt(at));
+        }
+    }
+
+    /**
+     * Recipe text read in place from a mapped {@code BODIES} section. The
+     * mapping stays valid after the channel is closed and the file deleted,
+     * and is released once it is no longer referenced.
+     */
+    private static final class BodySection implements RecipeBodyStore.Source {
+        private final MappedBytes bytes;
+
+        BodySection(MappedBytes bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public RecipeBodyStore.Body read(long offset) {
+            return new RecipeBodyStore.Body(bytes.getString(offset), bytes.getString(bytes.skipString(offset)));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Buffered channel writer that keeps track of the file position, of
+     * where each section starts and of its CRC, and appends the footer.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private final ByteBuffer footer = ByteBuffer.allocate(64 * FOOTER_ENTRY_BYTES);
+        private long position;
+        private final CRC32 sectionCrc = new CRC32();
+        private int currentSection;
+        private long sectionStart;
+        // Start in the buffer of the section bytes not yet added to sectionCrc
+        private int crcMark;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        Output putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+            return this;
+        }
+
+        Output putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+            return this;
+        }
+
+        void putBytes(byte[] bytes, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+                position += n;
+            }
+        }
+
+        /**
+         * UTF-8 bytes after their length, or -1 for null.
+         */
+        void putString(String s) throws IOException {
+            if (s == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes, bytes.length);
+        }
+
+        /**
+         * Bytes written since the current section began.
+         */
+        long sectionPosition() {
+            return position - sectionStart;
+        }
+
+        void beginSection(int id) throws IOException {
+            endSection();
+            while (position % 8 != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+            currentSection = id;
+            sectionStart = position;
+            sectionCrc.reset();
+            crcMark = buffer.position();
+        }
+
+        void finish() throws IOException {
+            endSection();
+            int count = footer.position() / FOOTER_ENTRY_BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(footer.array(), 0, footer.position());
+            putBytes(footer.array(), footer.position());
+            putInt(count).putInt((int) crc.getValue()).putInt(VERSION).putInt(MAGIC);
+            flush();
+        }
+
+        private void endSection() {
+            if (currentSection != 0) {
+                sectionCrc.update(buffer.array(), crcMark, buffer.position() - crcMark);
+                footer.putInt(currentSection).putLong(sectionStart).putLong(position - sectionStart)
+                        .putInt((int) sectionCrc.getValue());
+                currentSection = 0;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (currentSection != 0) {
+                sectionCrc.update(buffer.array(), crcMark, buffer.position() - crcMark);
+            }
+            crcMark = 0;
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Substring index over lowercase text. Every run of three characters maps to
+ * the ids of the texts containing it; a query intersects the lists for its own
+ * trigrams and the caller verifies the (usually few) candidates.
+ *
+ * <p>Common trigrams occur in most texts, so the id sets are compressed
+ * bitmaps rather than plain id lists.
+ *
+ * <p>A one- or two-character query is a substring of every text containing
+ * a trigram that contains it, or of a text too short to have a trigram, so
+ * short queries keep the same substring semantics.
+ */
+public class TrigramIndex {
+
+    private final Map<Long, RecipeBitmap> postings = new HashMap<>();
+    // Texts with no trigram; candidates for every short query
+    private final RecipeBitmap shortTexts = new RecipeBitmap();
+
+    public void add(long id, String text) {
+        Set<Long> grams = trigrams(text);
+        if (grams.isEmpty()) {
+            shortTexts.add(id);
+        }
+        for (long trigram : grams) {
+            postings.computeIfAbsent(trigram, t -> new RecipeBitmap()).add(id);
+        }
+    }
+
+    public void remove(long id, String text) {
+        shortTexts.remove(id);
+        for (long trigram : trigrams(text)) {
+            RecipeBitmap ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids that may contain the query, or null when the query is empty and
+     * every text is a candidate.
+     */
+    public PostingList candidates(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        if (query.length() < 3) {
+            return PostingList.ofSorted(containingShort(query).toArray());
+        }
+        Set<Long> grams = trigrams(query);
+        List<RecipeBitmap> sets = new ArrayList<>(grams.size());
+        for (long trigram : grams) {
+            RecipeBitmap ids = postings.get(trigram);
+            if (ids == null) {
+                return new PostingList();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(RecipeBitmap::cardinality));
+        RecipeBitmap result = sets.get(0);
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result = RecipeBitmap.and(result, sets.get(i));
+        }
+        return PostingList.ofSorted(result.toArray());
+    }
+
+    private RecipeBitmap containingShort(String query) {
+        RecipeBitmap result = shortTexts.copy();
+        for (Map.Entry<Long, RecipeBitmap> entry : postings.entrySet()) {
+            long trigram = entry.getKey();
+            char a = (char) (trigram >>> 32);
+            char b = (char) (trigram >>> 16);
+            char c = (char) trigram;
+            boolean contains = query.length() == 1
+                    ? a == query.charAt(0) || b == query.charAt(0) || c == query.charAt(0)
+                    : (a == query.charAt(0) && b == query.charAt(1)) || (b == query.charAt(0) && c == query.charAt(1));
+            if (contains) {
+                result = RecipeBitmap.or(result, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+}
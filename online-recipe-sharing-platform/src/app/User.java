@@ -1,43 +1,65 @@
-package app;
-
-public class User {
-    public enum Role {
-        ADMIN,
-        CONTRIBUTOR,
-        EXPLORER
-    }
-
-    private final String username;
-    private final String password; // demo only, plain text
-    private final Role role;
-
-    public User(String username, String password, Role role) {
-        this.username = username;
-        this.password = password;
-        this.role = role;
-    }
-
-    public String getUsername() {
-        return username;
-    }
-
-    public String getPassword() {
-        return password;
-    }
-
-    public Role getRole() {
-        return role;
-    }
-
-    public boolean isAdmin() {
-        return role == Role.ADMIN;
-    }
-
-    public boolean isContributor() {
-        return role == Role.CONTRIBUTOR;
-    }
-
-    public boolean isExplorer() {
-        return role == Role.EXPLORER;
-    }
-}
+package app;
+
+public class User {
+    public enum Role {
+        ADMIN,
+        CONTRIBUTOR,
+        EXPLORER
+    }
+
+    private final String username;
+    private final String passwordHash; // see PasswordHash; the password itself is never kept
+    private final Role role;
+    private final String usernameKey; // lowercased once, for case-insensitive lookups
+
+    public User(String username, String password, Role role) {
+        this(username, role, PasswordHash.create(password));
+    }
+
+    private User(String username, Role role, String passwordHash) {
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.role = role;
+        this.usernameKey = username == null ? "" : username.toLowerCase();
+    }
+
+    /**
+     * A user read back from storage, with the hash written from
+     * {@link #getPasswordHash}.
+     */
+    static User withPasswordHash(String username, String passwordHash, Role role) {
+        return new User(username, role, passwordHash);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getUsernameKey() {
+        return usernameKey;
+    }
+
+    public boolean checkPassword(String password) {
+        return PasswordHash.matches(password, passwordHash);
+    }
+
+    String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
+    }
+
+    public boolean isContributor() {
+        return role == Role.CONTRIBUTOR;
+    }
+
+    public boolean isExplorer() {
+        return role == Role.EXPLORER;
+    }
+}
@@ -1,42 +1,70 @@
-package app;
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class UserRepository {
-    private final List<User> users = new ArrayList<>();
-
-    public UserRepository() {
-        // Demo users; in a real app, load from DB or config
-        users.add(new User("admin", "admin123", User.Role.ADMIN));
-        users.add(new User("contrib", "contrib123", User.Role.CONTRIBUTOR));
-        users.add(new User("explorer", "explore123", User.Role.EXPLORER));
-    }
-
-    public User authenticate(String username, String password) {
-        for (User user : users) {
-            if (user.getUsername().equalsIgnoreCase(username)
-                    && user.getPassword().equals(password)) {
-                return user;
-            }
-        }
-        return null;
-    }
-
-    public synchronized boolean usernameExists(String username) {
-        if (username == null || username.isEmpty()) return false;
-        for (User user : users) {
-            if (user.getUsername().equalsIgnoreCase(username)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    public synchronized void addUser(User user) {
-        if (user == null) return;
-        if (!usernameExists(user.getUsername())) {
-            users.add(user);
-        }
-    }
-}
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepository {
+    private final List<User> users = new ArrayList<>();
+    // Set once persistence is running; null for a purely in-memory repository
+    private volatile Journal journal;
+
+    public UserRepository() {
+        this(true);
+    }
+
+    public UserRepository(boolean withDemoUsers) {
+        if (!withDemoUsers) {
+            return;
+        }
+        // Demo users; in a real app, load from DB or config
+        users.add(new User("admin", "admin123", User.Role.ADMIN));
+        users.add(new User("contrib", "contrib123", User.Role.CONTRIBUTOR));
+        users.add(new User("explorer", "explore123", User.Role.EXPLORER));
+    }
+
+    public User authenticate(String username, String password) {
+        User found = null;
+        synchronized (this) {
+            for (User user : users) {
+                if (user.getUsername().equalsIgnoreCase(username)) {
+                    found = user;
+                    break;
+                }
+            }
+        }
+        // Hashing is deliberately slow, so it runs outside the lock
+        return found != null && found.checkPassword(password) ? found : null;
+    }
+
+    public synchronized boolean usernameExists(String username) {
+        if (username == null || username.isEmpty()) return false;
+        for (User user : users) {
+            if (user.getUsername().equalsIgnoreCase(username)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void addUser(User user) {
+        if (user == null) return;
+        long seq = 0;
+        synchronized (this) {
+            if (!usernameExists(user.getUsername())) {
+                users.add(user);
+                seq = journal == null ? 0 : journal.userPut(user);
+            }
+        }
+        if (seq > 0) {
+            journal.sync(seq);
+        }
+    }
+
+    synchronized List<User> getUsers() {
+        return new ArrayList<>(users);
+    }
+
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+}
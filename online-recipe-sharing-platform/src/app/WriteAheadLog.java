@@ -0,0 +1,280 @@
+package app;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of opaque records, one file per generation
+ * ({@code wal-<generation>.log}). Each record is framed by its length and a
+ * CRC-32 of its bytes.
+ *
+ * <p>Appending only copies the record into a buffer and returns its sequence
+ * number; {@link #sync(long)} makes it durable. Syncs use group commit: the
+ * first waiting thread writes and fsyncs everything buffered so far while
+ * later arrivals wait, so concurrent writers share one fsync.
+ *
+ * <p>A failed write or fsync may leave a torn frame, and recovery stops
+ * reading at the first one, so nothing written to that file afterwards
+ * would count. The log therefore marks every record not yet durable as lost
+ * and fails their syncs. It stops writing to the file until the next
+ * {@link #rotate}, and clears the failure once {@link #snapshotWritten}
+ * reports that a snapshot holds those records.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final int FRAME_BYTES = 8;
+
+    private final Path directory;
+    private long generation;
+    private FileChannel channel;
+    private long fileBytes;
+
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private final CRC32 crc = new CRC32();
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean flushing;
+    // Records in (lostAfterSeq, lostThroughSeq] were in a failed write
+    private IOException failure;
+    private long lostAfterSeq;
+    private long lostThroughSeq;
+
+    public WriteAheadLog(Path directory, long generation) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        openGeneration(generation);
+    }
+
+    public static Path file(Path directory, long generation) {
+        return directory.resolve(String.format("wal-%016d.log", generation));
+    }
+
+    /**
+     * Buffers the record and returns the sequence number to pass to
+     * {@link #sync(long)}.
+     */
+    public synchronized long append(byte[] record) {
+        if (pending.remaining() < FRAME_BYTES + record.length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + FRAME_BYTES + record.length));
+            pending.flip();
+            pending = larger.put(pending);
+        }
+        crc.reset();
+        crc.update(record);
+        pending.putInt(record.length).putInt((int) crc.getValue()).put(record);
+        return ++appendedSeq;
+    }
+
+    /**
+     * Returns once every record up to {@code seq} is on disk. Throws if the
+     * record was lost to a failed write, or if the thread is interrupted
+     * while waiting.
+     */
+    public void sync(long seq) {
+        ByteBuffer batch;
+        FileChannel target;
+        long batchSeq;
+        synchronized (this) {
+            while (true) {
+                if (isLost(seq)) {
+                    throw new UncheckedIOException("Could not write the write-ahead log", failure);
+                }
+                if (durableSeq >= seq) {
+                    return;
+                }
+                if (!flushing) {
+                    break;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException(
+                            "Interrupted before the write-ahead log reached disk"));
+                }
+            }
+            // Become the leader for everything appended so far
+            flushing = true;
+            batch = pending;
+            pending = spare;
+            pending.clear();
+            spare = null;
+            target = channel;
+            batchSeq = appendedSeq;
+        }
+        IOException error = null;
+        // A pending interrupt would make the channel close itself mid-write
+        boolean interrupted = Thread.interrupted();
+        try {
+            batch.flip();
+            writeFully(target, batch);
+            target.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            spare = batch;
+            flushing = false;
+            if (error == null) {
+                durableSeq = Math.max(durableSeq, batchSeq);
+                fileBytes += batch.limit();
+            } else {
+                fail(error);
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw new UncheckedIOException("Could not write the write-ahead log", error);
+        }
+    }
+
+    /**
+     * Whether a write has failed and some records are still only in memory.
+     */
+    public synchronized boolean hasFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Tells the log that a snapshot holding every record up to {@code seq}
+     * is on disk, so records lost before then no longer are.
+     */
+    public synchronized void snapshotWritten(long seq) {
+        durableSeq = Math.max(durableSeq, seq);
+        if (failure != null && lostThroughSeq <= seq) {
+            failure = null;
+        }
+    }
+
+    /**
+     * Flushes the current generation and starts writing to {@code next}.
+     * Records appended afterwards belong to the new file. Returns the last
+     * sequence number of the old generation, for {@link #snapshotWritten}.
+     */
+    public synchronized long rotate(long next) throws IOException {
+        rotateOut();
+        openGeneration(next);
+        return appendedSeq;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Bytes written to the current generation's file.
+     */
+    public synchronized long getFileBytes() {
+        return fileBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            rotateOut();
+        }
+        if (failure != null) {
+            throw new IOException("Some write-ahead log records were never written", failure);
+        }
+    }
+
+    /**
+     * Records of one generation's file in order. Reading stops at the first
+     * torn or corrupt frame, which is where a crash cut the log off.
+     */
+    public static List<byte[]> read(Path file) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= FRAME_BYTES) {
+            int length = in.getInt();
+            int expected = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            in.get(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private void rotateOut() throws IOException {
+        while (flushing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while closing the write-ahead log", e);
+            }
+        }
+        pending.flip();
+        try {
+            if (failure == null) {
+                writeFully(channel, pending);
+                channel.force(false);
+                durableSeq = appendedSeq;
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            pending.clear();
+        }
+        if (failure != null) {
+            // Nothing more goes to the damaged file; only a snapshot can cover what it lost
+            lostThroughSeq = Math.min(lostThroughSeq, appendedSeq);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                throw e;
+            }
+        }
+        notifyAll();
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            lostAfterSeq = durableSeq;
+        }
+        lostThroughSeq = Long.MAX_VALUE;
+    }
+
+    private boolean isLost(long seq) {
+        return failure != null && seq > lostAfterSeq && seq <= lostThroughSeq;
+    }
+
+    private void openGeneration(long next) throws IOException {
+        generation = next;
+        channel = FileChannel.open(file(directory, next), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package app;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * {@link ActivityLog} reads, reopening with and without its index,
+ * recovery from a torn tail, and segment rollover.
+ */
+public class ActivityLogTest {
+
+    private static final String[] USERS = {"ana", "Bob", "chloé", "dee"};
+
+    // Lowercased author of the last entry appended
+    private static String lastUser;
+
+    public static void main(String[] args) throws Exception {
+        recentEntriesSurviveReopen();
+        tornTailIsCutOff();
+        oldSegmentsAreDropped();
+        System.out.println("ActivityLogTest OK");
+    }
+
+    private static void recentEntriesSurviveReopen() throws IOException {
+        Path dir = Check.tempDir("activity");
+        Map<String, List<String>> model = new HashMap<>();
+        ActivityLog log = ActivityLog.open(dir);
+        append(log, model, new Random(1), 2000);
+        assertRecent(log, model, "open log");
+        log.close();
+
+        log = ActivityLog.open(dir);
+        assertRecent(log, model, "reopened with the index");
+        // Entries after the index checkpoint are found by scanning
+        append(log, model, new Random(2), 500);
+        log.close();
+
+        Files.delete(dir.resolve("activity.idx"));
+        log = ActivityLog.open(dir);
+        assertRecent(log, model, "reopened by a full scan");
+        Check.equal(0, log.readRecent("nobody", 10).size(), "unknown user");
+        Check.equal("BOB", log.readRecent("BOB", 1).get(0).getUsername().toUpperCase(),
+                "usernames match case-insensitively");
+        log.close();
+    }
+
+    private static void tornTailIsCutOff() throws IOException {
+        Path dir = Check.tempDir("activity");
+        Map<String, List<String>> model = new HashMap<>();
+        ActivityLog log = ActivityLog.open(dir);
+        append(log, model, new Random(3), 300);
+        log.close();
+        log = ActivityLog.open(dir);
+        append(log, model, new Random(4), 300);
+
+        // The process dies: copy what reached the files, then tear the last record
+        Path crashed = Check.tempDir("crashed");
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                Files.copy(f, crashed.resolve(f.getFileName()));
+            }
+        }
+        log.close();
+        Path segment = lastSegment(crashed);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        String tornUser = lastUser;
+        model.get(tornUser).remove(model.get(tornUser).size() - 1);
+
+        log = ActivityLog.open(crashed);
+        assertRecent(log, model, "after a torn tail");
+        // Appends carry on behind the cut
+        append(log, model, new Random(5), 50);
+        log.close();
+        log = ActivityLog.open(crashed);
+        assertRecent(log, model, "appended after recovery");
+        log.close();
+    }
+
+    private static void oldSegmentsAreDropped() throws IOException {
+        Path dir = Check.tempDir("activity");
+        Map<String, List<String>> model = new HashMap<>();
+        ActivityLog log = ActivityLog.open(dir, 4096, 3);
+        append(log, model, new Random(6), 3000);
+        try (Stream<Path> files = Files.list(dir)) {
+            Check.equal(3L, files.filter(f -> f.toString().endsWith(".seg")).count(), "segments kept");
+        }
+        for (String user : USERS) {
+            List<String> expected = model.get(user.toLowerCase());
+            List<ActivityEntry> read = log.readRecent(user, Integer.MAX_VALUE);
+            Check.that(!read.isEmpty() && read.size() < expected.size(), user + ": only the newest entries remain");
+            // What is left is the newest run of the user's entries, in order
+            List<String> tail = expected.subList(expected.size() - read.size(), expected.size());
+            Check.equal(tail, descriptions(read), user + ": retained entries");
+        }
+        log.close();
+    }
+
+    private static void append(ActivityLog log, Map<String, List<String>> model, Random random, int count)
+            throws IOException {
+        ActivityEntry[] batch = new ActivityEntry[64];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            String user = USERS[random.nextInt(USERS.length)];
+            String description = "did thing " + random.nextInt(1_000_000) + (random.nextBoolean() ? " ✓" : "");
+            ActivityEntry.Type type = ActivityEntry.Type.values()[random.nextInt(ActivityEntry.Type.values().length)];
+            batch[n++] = new ActivityEntry(user, type, description, 1_700_000_000_000L + i);
+            model.computeIfAbsent(user.toLowerCase(), k -> new ArrayList<>()).add(description);
+            lastUser = user.toLowerCase();
+            if (n == batch.length || i == count - 1) {
+                log.append(batch, n);
+                n = 0;
+            }
+        }
+    }
+
+    private static void assertRecent(ActivityLog log, Map<String, List<String>> model, String what)
+            throws IOException {
+        for (String user : USERS) {
+            List<String> all = model.getOrDefault(user.toLowerCase(), List.of());
+            for (int max : new int[] {1, 10, Integer.MAX_VALUE}) {
+                List<String> expected = all.subList(Math.max(0, all.size() - max), all.size());
+                Check.equal(expected, descriptions(log.readRecent(user, max)), what + ": " + user + " max " + max);
+            }
+        }
+    }
+
+    private static List<String> descriptions(List<ActivityEntry> entries) {
+        List<String> result = new ArrayList<>();
+        for (ActivityEntry entry : entries) {
+            result.add(entry.getDescription());
+        }
+        return result;
+    }
+
+    private static Path lastSegment(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".seg"))
+                    .max((a, b) -> Long.compare(base(a), base(b))).orElseThrow();
+        }
+    }
+
+    private static long base(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - ".seg".length()));
+    }
+}
@@ -0,0 +1,20 @@
+package app;
+
+/**
+ * Runs every test class in this directory and stops at the first failure.
+ */
+public class AllTests {
+
+    public static void main(String[] args) throws Exception {
+        LongHashMapTest.main(args);
+        RecipeBitmapTest.main(args);
+        WriteAheadLogTest.main(args);
+        SnapshotFileTest.main(args);
+        ActivityLogTest.main(args);
+        RecipeImporterTest.main(args);
+        ReviewRepositoryTest.main(args);
+        RecipeRepositoryTest.main(args);
+        RecommendationIndexTest.main(args);
+        System.out.println("All tests passed");
+    }
+}
@@ -0,0 +1,87 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@link LongHashMap} and {@link LongIntHashMap} against a
+ * {@link LinkedHashMap} under random puts and removes, which also drives
+ * them through growth and through rebuilds that reclaim removed entries.
+ */
+public class LongHashMapTest {
+
+    public static void main(String[] args) {
+        matchesModel(new Random(1), 64);
+        matchesModel(new Random(2), 100_000);
+        intValuesMatchModel(new Random(3), 64);
+        intValuesMatchModel(new Random(4), 100_000);
+        negativeIntValueIsRejected();
+        System.out.println("LongHashMapTest OK");
+    }
+
+    private static void matchesModel(Random random, int keyRange) {
+        LongHashMap<String> map = new LongHashMap<>();
+        Map<Long, String> model = new LinkedHashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // Negative and zero keys are ordinary keys too
+            long key = random.nextInt(keyRange) - keyRange / 4;
+            if (random.nextInt(3) == 0) {
+                Check.equal(model.remove(key), map.remove(key), "remove " + key);
+            } else {
+                String value = "v" + i;
+                Check.equal(model.put(key, value), map.put(key, value), "put " + key);
+            }
+            Check.equal(model.size(), map.size(), "size");
+            long probe = random.nextInt(keyRange) - keyRange / 4;
+            Check.equal(model.get(probe), map.get(probe), "get " + probe);
+            Check.equal(model.containsKey(probe), map.containsKey(probe), "containsKey " + probe);
+        }
+        Check.equal(keys(model), map.keys(), "keys in insertion order");
+        Check.equal(new ArrayList<>(model.values()), map.values(), "values in insertion order");
+        map.clear();
+        Check.that(map.isEmpty() && map.get(0) == null, "clear empties the map");
+    }
+
+    private static void intValuesMatchModel(Random random, int keyRange) {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> model = new LinkedHashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(keyRange) - keyRange / 4;
+            if (random.nextInt(3) == 0) {
+                Check.equal(model.getOrDefault(key, -1), map.remove(key), "remove " + key);
+                model.remove(key);
+            } else {
+                Integer old = model.put(key, i);
+                Check.equal(old == null ? -1 : old, map.put(key, i), "put " + key);
+            }
+            Check.equal(model.size(), map.size(), "size");
+            long probe = random.nextInt(keyRange) - keyRange / 4;
+            Check.equal(model.getOrDefault(probe, -1), map.get(probe), "get " + probe);
+        }
+        Check.equal(keys(model), map.keys(), "keys in insertion order");
+        int[] values = new int[model.size()];
+        int n = 0;
+        for (int value : model.values()) {
+            values[n++] = value;
+        }
+        Check.equal(values, map.values(), "values in insertion order");
+    }
+
+    private static void negativeIntValueIsRejected() {
+        LongIntHashMap map = new LongIntHashMap();
+        Check.fails(IllegalArgumentException.class, () -> map.put(1, -1), "negative value");
+        Check.that(map.isEmpty(), "rejected put leaves the map empty");
+    }
+
+    private static long[] keys(Map<Long, ?> model) {
+        List<Long> keys = new ArrayList<>(model.keySet());
+        long[] result = new long[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = keys.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+package app;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * {@link RecipeBitmap} against a {@link TreeSet}, with ids dense enough in
+ * some chunks to switch them to bitsets and back.
+ */
+public class RecipeBitmapTest {
+
+    public static void main(String[] args) {
+        matchesModel(new Random(1));
+        setOperationsMatchModel(new Random(2));
+        idsOutsideUnsignedIntAreRejected();
+        System.out.println("RecipeBitmapTest OK");
+    }
+
+    private static void matchesModel(Random random) {
+        RecipeBitmap bitmap = new RecipeBitmap();
+        TreeSet<Long> model = new TreeSet<>();
+        for (int i = 0; i < 300_000; i++) {
+            long id = id(random);
+            if (random.nextInt(4) == 0) {
+                bitmap.remove(id);
+                model.remove(id);
+            } else {
+                bitmap.add(id);
+                model.add(id);
+            }
+            long probe = id(random);
+            Check.equal(model.contains(probe), bitmap.contains(probe), "contains " + probe);
+        }
+        Check.equal(model.size(), bitmap.cardinality(), "cardinality");
+        Check.equal(toArray(model), bitmap.toArray(), "ids in ascending order");
+
+        // Emptying a bitset chunk must leave nothing behind
+        for (long id : model) {
+            bitmap.remove(id);
+        }
+        Check.that(bitmap.isEmpty(), "empty after removing every id");
+        Check.equal(0, bitmap.toArray().length, "no ids after removing every id");
+    }
+
+    private static void setOperationsMatchModel(Random random) {
+        for (int round = 0; round < 20; round++) {
+            RecipeBitmap a = new RecipeBitmap();
+            RecipeBitmap b = new RecipeBitmap();
+            TreeSet<Long> modelA = new TreeSet<>();
+            TreeSet<Long> modelB = new TreeSet<>();
+            int n = random.nextInt(20_000);
+            for (int i = 0; i < n; i++) {
+                long id = id(random);
+                a.add(id);
+                modelA.add(id);
+                id = id(random);
+                b.add(id);
+                modelB.add(id);
+            }
+            TreeSet<Long> and = new TreeSet<>(modelA);
+            and.retainAll(modelB);
+            TreeSet<Long> or = new TreeSet<>(modelA);
+            or.addAll(modelB);
+            TreeSet<Long> andNot = new TreeSet<>(modelA);
+            andNot.removeAll(modelB);
+            Check.equal(toArray(and), RecipeBitmap.and(a, b).toArray(), "and");
+            Check.equal(toArray(or), RecipeBitmap.or(a, b).toArray(), "or");
+            Check.equal(toArray(andNot), RecipeBitmap.andNot(a, b).toArray(), "andNot");
+
+            RecipeBitmap copy = a.copy();
+            copy.add(0xFFFFFFFFL);
+            Check.that(!a.contains(0xFFFFFFFFL), "copy is independent of the original");
+        }
+    }
+
+    private static void idsOutsideUnsignedIntAreRejected() {
+        RecipeBitmap bitmap = new RecipeBitmap();
+        bitmap.add(0);
+        bitmap.add(0xFFFFFFFFL);
+        Check.equal(new long[] {0, 0xFFFFFFFFL}, bitmap.toArray(), "ids at both ends of the range");
+        Check.fails(IllegalArgumentException.class, () -> bitmap.add(-1), "negative id");
+        Check.fails(IllegalArgumentException.class, () -> bitmap.add(1L << 32), "id past 32 bits");
+    }
+
+    /**
+     * Mostly ids packed into the first two 64K chunks, where the bitset
+     * threshold is crossed, plus a sparse tail across many chunks.
+     */
+    private static long id(Random random) {
+        return random.nextInt(10) < 8 ? random.nextInt(1 << 17) : 1 + (long) random.nextInt(1 << 30);
+    }
+
+    private static long[] toArray(TreeSet<Long> model) {
+        long[] result = new long[model.size()];
+        int n = 0;
+        for (long id : model) {
+            result[n++] = id;
+        }
+        return result;
+    }
+}
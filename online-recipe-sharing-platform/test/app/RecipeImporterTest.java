@@ -0,0 +1,179 @@
+package app;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The CSV and JSON Lines parsing of {@link RecipeImporter}: quoting, line
+ * numbers of rejected rows, byte order marks, chunk ordering across parser
+ * threads, and interruption.
+ */
+public class RecipeImporterTest {
+
+    public static void main(String[] args) throws Exception {
+        csvFieldsSplit();
+        csvRowsImport();
+        unclosedQuoteOnlyCostsItsRow();
+        csvHeaderProblemsFailTheImport();
+        jsonLinesImport();
+        byteOrderMarkIsIgnored();
+        chunksAreStoredInFileOrder();
+        interruptStopsAfterAChunk();
+        System.out.println("RecipeImporterTest OK");
+    }
+
+    private static void csvFieldsSplit() {
+        Check.equal(List.of("a", "b", ""), RecipeImporter.parseCsv("a,b,"), "plain fields");
+        Check.equal(List.of("a, b", "say \"hi\"", ""), RecipeImporter.parseCsv("\"a, b\",\"say \"\"hi\"\"\",\"\""),
+                "quoted fields");
+        Check.equal(List.of("line 1\nline 2"), RecipeImporter.parseCsv("\"line 1\nline 2\""), "line break in quotes");
+        // A quote only opens a quoted field at the start of one
+        Check.equal(List.of("12\" pan", "x"), RecipeImporter.parseCsv("12\" pan,x"), "stray quote kept as text");
+        Check.fails(IllegalArgumentException.class, () -> RecipeImporter.parseCsv("\"open,x"), "unterminated quote");
+    }
+
+    private static void csvRowsImport() throws IOException {
+        String csv = String.join("\n",
+                "Approved, Title ,ingredients,instructions,author,notes",
+                "yes,Pancakes,\"flour, milk, eggs\",\"Mix.",
+                "Fry.\",ana,ignored",
+                "",
+                "no,Tea,leaves,Steep.,,",
+                "maybe,Bad flag,x,y,bob,",
+                "0,,x,y,bob,",
+                "1,Short row,x");
+        RecipeRepository store = new RecipeRepository(false);
+        RecipeImporter.Result result = new RecipeImporter(store, "admin").importFrom(new StringReader(csv),
+                RecipeImporter.Format.CSV);
+        Check.equal(2L, result.getImported(), "imported");
+        Check.equal(3L, result.getRejected(), "rejected");
+        Check.equal(List.of(
+                "Line 6: approved must be true or false, not \"maybe\"",
+                "Line 7: missing title",
+                "Line 8: missing instructions"), result.getErrors(), "errors with physical line numbers");
+        List<Recipe> recipes = store.getAllRecipes();
+        Recipe pancakes = recipes.get(0);
+        Check.equal("Pancakes|flour, milk, eggs|Mix.\nFry.|ana|true", describe(pancakes), "multi-line row");
+        Check.equal("Tea|leaves|Steep.|admin|false", describe(recipes.get(1)), "default author and approval");
+    }
+
+    private static void unclosedQuoteOnlyCostsItsRow() throws IOException {
+        String csv = String.join("\n",
+                "title,ingredients,instructions",
+                "\"Broken,x,y",
+                "Good one,x,y",
+                "Good two,x,y");
+        RecipeRepository store = new RecipeRepository(false);
+        RecipeImporter.Result result = new RecipeImporter(store, "admin").importFrom(new StringReader(csv),
+                RecipeImporter.Format.CSV);
+        Check.equal(List.of("Line 2: unterminated quoted field"), result.getErrors(), "errors");
+        Check.equal(2, store.count(), "rows after the broken one still import");
+        Check.equal("Good one", store.getAllRecipes().get(0).getTitle(), "first row after the broken one");
+    }
+
+    private static void csvHeaderProblemsFailTheImport() {
+        RecipeImporter importer = new RecipeImporter(new RecipeRepository(false), "admin");
+        Check.fails(IOException.class, () -> importer.importFrom(new StringReader(""), RecipeImporter.Format.CSV),
+                "empty file");
+        Check.fails(IOException.class, () -> importer.importFrom(new StringReader("title,ingredients\nx,y"),
+                RecipeImporter.Format.CSV), "no instructions column");
+    }
+
+    private static void jsonLinesImport() throws IOException {
+        String jsonl = String.join("\n",
+                "{\"title\": \"Caf\\u00e9 \\\"au lait\\\"\", \"ingredients\": [\"milk\", \"coffee\"],"
+                        + " \"instructions\": \"Pour.\\nStir.\", \"approved\": true, \"calories\": 120}",
+                "",
+                "{\"Title\":\"Ramen \\ud83c\\udf5c\",\"ingredients\":\"noodles\",\"instructions\":\"Boil\","
+                        + "\"author\":\"bob\",\"approved\":null}",
+                "{\"title\":\"Nested\",\"ingredients\":{\"a\":1},\"instructions\":\"x\"}",
+                "{\"title\":\"No steps\",\"ingredients\":\"x\"}",
+                "not json",
+                "{\"title\":\"Trailing\",\"ingredients\":\"x\",\"instructions\":\"y\"} extra");
+        RecipeRepository store = new RecipeRepository(false);
+        RecipeImporter.Result result = new RecipeImporter(store, "admin").importFrom(new StringReader(jsonl),
+                RecipeImporter.Format.JSON_LINES);
+        Check.equal(2L, result.getImported(), "imported");
+        Check.equal(4L, result.getRejected(), "rejected");
+        Check.equal(List.of(4, 5, 6, 7), lineNumbers(result.getErrors()), "lines of rejected rows");
+        Check.that(result.getErrors().get(1).endsWith("missing instructions"), "missing field named");
+        List<Recipe> recipes = store.getAllRecipes();
+        Check.equal("Café \"au lait\"|milk, coffee|Pour.\nStir.|admin|true", describe(recipes.get(0)),
+                "escapes, arrays and literals");
+        Check.equal("Ramen 🍜|noodles|Boil|bob|false", describe(recipes.get(1)),
+                "surrogate pair, key case and null");
+    }
+
+    private static void byteOrderMarkIsIgnored() throws IOException {
+        Path dir = Check.tempDir("import");
+        Path csv = dir.resolve("bom.csv");
+        Files.write(csv, "\uFEFFtitle,ingredients,instructions\r\nSoup,water,Boil.\r\n".getBytes(StandardCharsets.UTF_8));
+        Path jsonl = dir.resolve("bom.jsonl");
+        Files.write(jsonl, "\uFEFF{\"title\":\"Tea\",\"ingredients\":\"leaves\",\"instructions\":\"Steep.\"}\n"
+                .getBytes(StandardCharsets.UTF_8));
+        for (Path file : new Path[] {csv, jsonl}) {
+            RecipeRepository store = new RecipeRepository(false);
+            RecipeImporter.Result result = new RecipeImporter(store, "admin").importFile(file);
+            Check.equal(1L, result.getImported(), file.getFileName() + " imported");
+            Check.that(!store.getAllRecipes().get(0).getTitle().startsWith("\uFEFF"),
+                    file.getFileName() + ": no BOM in the title");
+        }
+    }
+
+    private static void chunksAreStoredInFileOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("title,ingredients,instructions\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i % 97 == 0 ? "" : "Recipe " + i).append(",x,y\n");
+        }
+        RecipeRepository store = new RecipeRepository(false);
+        RecipeImporter.Result result = new RecipeImporter(store, "admin", 3, 7)
+                .importFrom(new StringReader(csv.toString()), RecipeImporter.Format.CSV);
+        Check.equal(11L, result.getRejected(), "rows without a title");
+        Check.equal(Math.min(11, RecipeImporter.MAX_REPORTED_ERRORS),
+                result.getErrors().size(), "errors reported");
+        Check.equal("Line 2: missing title", result.getErrors().get(0), "first error");
+        List<Recipe> recipes = store.getAllRecipes();
+        int n = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (i % 97 != 0) {
+                Check.equal("Recipe " + i, recipes.get(n++).getTitle(), "row " + i + " in file order");
+            }
+        }
+    }
+
+    private static void interruptStopsAfterAChunk() throws IOException {
+        StringBuilder csv = new StringBuilder("title,ingredients,instructions\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("Recipe ").append(i).append(",x,y\n");
+        }
+        RecipeRepository store = new RecipeRepository(false);
+        RecipeImporter importer = new RecipeImporter(store, "admin", 2, 100);
+        importer.setProgress(soFar -> {
+            if (soFar.getImported() >= 500) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            importer.importFrom(new StringReader(csv.toString()), RecipeImporter.Format.CSV);
+            throw new AssertionError("interrupted import returned normally");
+        } catch (InterruptedIOException e) {
+            Check.that(Thread.interrupted(), "interrupt flag stays set");
+            Check.equal(500, store.count(), "recipes stored before the interrupt are kept");
+            Check.equal("Import cancelled after 500 recipes were imported", e.getMessage(), "message");
+        }
+    }
+
+    private static String describe(Recipe r) {
+        return r.getTitle() + "|" + r.getIngredients() + "|" + r.getInstructions() + "|" + r.getAuthorUsername()
+                + "|" + r.isApproved();
+    }
+
+    private static List<Integer> lineNumbers(List<String> errors) {
+        return errors.stream().map(e -> Integer.parseInt(e.substring("Line ".length(), e.indexOf(':')))).toList();
+    }
+}
@@ -0,0 +1,115 @@
+package app;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Paging through {@link RecipeRepository}, and removing a recipe through
+ * {@link PersistentStore} together with its reviews, favourites and rating,
+ * both live and after reopening from the log or a snapshot.
+ */
+public class RecipeRepositoryTest {
+
+    public static void main(String[] args) throws Exception {
+        pagesCoverEveryRecipeOnce();
+        removalCascades();
+        System.out.println("RecipeRepositoryTest OK");
+    }
+
+    private static void pagesCoverEveryRecipeOnce() {
+        RecipeRepository repository = new RecipeRepository(false);
+        Random random = new Random(1);
+        List<String> all = new ArrayList<>();
+        List<String> approved = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // The last ten are unapproved, so an approved-only walk ends on a run of skipped rows
+            boolean isApproved = i < 20 ? random.nextBoolean() : i < 30;
+            repository.addRecipe(new Recipe("r" + i, "x", "y", "u", isApproved));
+            all.add("r" + i);
+            if (isApproved) {
+                approved.add("r" + i);
+            }
+        }
+        for (int pageSize = 1; pageSize <= 12; pageSize++) {
+            Check.equal(all, walk(repository, pageSize, false), "all recipes, pages of " + pageSize);
+            Check.equal(approved, walk(repository, pageSize, true), "approved recipes, pages of " + pageSize);
+        }
+        for (int pageSize = -1; pageSize <= 0; pageSize++) {
+            RecipePage page = repository.getPage(null, pageSize, false);
+            Check.that(page.getRecipes().isEmpty() && page.getNextCursor() == null,
+                    "a page of " + pageSize + " is empty and last");
+        }
+    }
+
+    private static List<String> walk(RecipeRepository repository, int pageSize, boolean approvedOnly) {
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RecipePage page = repository.getPage(cursor, pageSize, approvedOnly);
+            Check.that(!page.getRecipes().isEmpty() || pages == 0, "page " + pages + " of " + pageSize + " is empty");
+            Check.that(page.getRecipes().size() <= pageSize, "page " + pages + " is too long");
+            Check.that(++pages <= 100, "paging does not end");
+            page.getRecipes().forEach(recipe -> titles.add(recipe.getTitle()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return titles;
+    }
+
+    private static void removalCascades() throws Exception {
+        Path dir = Check.tempDir("recipes");
+        PersistentStore store = PersistentStore.open(dir);
+        int reviewsBefore = store.getReviewStore().getTotalReviewCount();
+        Recipe kept = new Recipe("Kept soup", "leeks", "simmer", "zed", true);
+        Recipe doomed = new Recipe("Doomed stew", "beans", "cook", "zed", true);
+        store.getRecipeStore().addRecipe(kept);
+        store.getRecipeStore().addRecipe(doomed);
+        User zed = User.withPasswordHash("zed", "x", User.Role.EXPLORER);
+        store.getReviewStore().addReview(doomed, new Review("zed", 5, "great"));
+        store.getFavoriteStore().addFavorite(zed, doomed);
+        long id = doomed.getId();
+        store.getRecipeStore().removeRecipe(doomed);
+        assertGone(store, id, reviewsBefore, "live");
+        store.close();
+
+        store = PersistentStore.open(dir);
+        assertGone(store, id, reviewsBefore, "replayed from the log");
+        store.checkpoint();
+        store.close();
+
+        store = PersistentStore.open(dir);
+        assertGone(store, id, reviewsBefore, "read from the snapshot");
+        // The freed review row is reused
+        Recipe reopened = store.getRecipeStore().getRecipe(kept.getId());
+        store.getReviewStore().addReview(reopened, new Review("zed", 4, "again"));
+        Check.equal(reviewsBefore + 1, store.getReviewStore().getTotalReviewCount(), "reviews after re-adding");
+        Check.equal("again", store.getReviewStore().getReviewByUser(reopened, "zed").getComment(), "re-added review");
+        store.close();
+    }
+
+    private static void assertGone(PersistentStore store, long id, int reviewsBefore, String when) {
+        ReviewStore reviews = store.getReviewStore();
+        Check.that(store.getRecipeStore().getRecipe(id) == null, when + ": recipe still stored");
+        Check.equal(reviewsBefore, reviews.getTotalReviewCount(), when + ": total reviews");
+        Check.equal(0, reviews.getReviewCountByUser("zed"), when + ": reviews by zed");
+        for (RatingLeaderboard.Entry entry : reviews.getTopRated(1000)) {
+            Check.that(entry.getRecipeId() != id, when + ": recipe still on the leaderboard");
+        }
+        Check.that(!contains(reviews.getRatedIdsByUser(1), id), when + ": recipe still rated");
+        Check.that(!contains(store.getFavoriteStore().getFavoriteIdsByUser(), id), when + ": recipe still a favourite");
+    }
+
+    private static boolean contains(Map<String, long[]> idsByUser, long id) {
+        for (long[] ids : idsByUser.values()) {
+            for (long other : ids) {
+                if (other == id) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
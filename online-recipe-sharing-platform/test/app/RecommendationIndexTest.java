@@ -0,0 +1,76 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A {@link RecommendationIndex} kept up to date through random favourite and
+ * rating changes ends up recommending the same as one built from scratch
+ * over the final favourites and reviews.
+ */
+public class RecommendationIndexTest {
+
+    public static void main(String[] args) {
+        incrementalMatchesRebuild(new Random(5));
+        System.out.println("RecommendationIndexTest OK");
+    }
+
+    private static void incrementalMatchesRebuild(Random random) {
+        RecipeRepository recipes = new RecipeRepository(false);
+        FavoriteRepository favorites = new FavoriteRepository();
+        ReviewRepository reviews = new ReviewRepository();
+        List<Recipe> all = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Recipe recipe = new Recipe("r" + i, "x", "y", "u", true);
+            recipes.addRecipe(recipe);
+            all.add(recipe);
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(User.withPasswordHash("u" + i, "x", User.Role.EXPLORER));
+        }
+        for (int i = 0; i < 3000; i++) {
+            User user = users.get(random.nextInt(users.size()));
+            Recipe recipe = all.get(random.nextInt(all.size()));
+            if (random.nextBoolean()) {
+                favorites.addFavorite(user, recipe);
+            } else {
+                reviews.addReview(recipe, new Review(user.getUsername(), 1 + random.nextInt(5), "c"));
+            }
+        }
+
+        RecommendationIndex live = new RecommendationIndex(recipes, favorites, reviews);
+        for (int i = 0; i < 20_000; i++) {
+            User user = users.get(random.nextInt(users.size()));
+            Recipe recipe = all.get(random.nextInt(all.size()));
+            if (random.nextBoolean()) {
+                boolean favourite = random.nextBoolean();
+                if (favourite) {
+                    favorites.addFavorite(user, recipe);
+                } else {
+                    favorites.removeFavorite(user, recipe);
+                }
+                live.favoriteChanged(user, recipe, favourite);
+            } else {
+                int stars = 1 + random.nextInt(5);
+                reviews.addReview(recipe, new Review(user.getUsername(), stars, "c"));
+                live.ratingChanged(user, recipe, stars);
+            }
+        }
+        // close() returns once every queued change is applied
+        live.close();
+
+        RecommendationIndex fresh = new RecommendationIndex(recipes, favorites, reviews);
+        fresh.close();
+        int withRecommendations = 0;
+        for (Recipe recipe : all) {
+            List<Recipe> expected = fresh.getRecommendations(recipe, 10);
+            Check.equal(expected, live.getRecommendations(recipe, 10), "recommendations for " + recipe.getTitle());
+            if (!expected.isEmpty()) {
+                withRecommendations++;
+            }
+        }
+        Check.that(withRecommendations > all.size() / 2, "only " + withRecommendations + " recipes have recommendations");
+    }
+}
@@ -0,0 +1,125 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * {@link ReviewRepository} against a list-per-recipe model under random
+ * reviews, re-reviews and recipe removals, which also exercises row reuse
+ * and comment arena compaction in {@link ReviewColumns}.
+ */
+public class ReviewRepositoryTest {
+
+    private static final int RECIPES = 40;
+    private static final int USERS = 25;
+
+    public static void main(String[] args) {
+        matchesModel(new Random(1));
+        System.out.println("ReviewRepositoryTest OK");
+    }
+
+    private static void matchesModel(Random random) {
+        ReviewRepository repository = new ReviewRepository();
+        Map<Long, List<Review>> model = new HashMap<>();
+        for (int i = 0; i < 60_000; i++) {
+            long recipeId = 1 + random.nextInt(RECIPES);
+            if (random.nextInt(500) == 0) {
+                repository.removeRecipe(recipeId);
+                model.remove(recipeId);
+                continue;
+            }
+            String user = "u" + random.nextInt(USERS);
+            String comment = random.nextInt(5) == 0 ? "" : "x".repeat(random.nextInt(60)) + i;
+            Review review = new Review(user, 1 + random.nextInt(5), comment, i);
+            repository.addReview(recipeId, review);
+            List<Review> reviews = model.computeIfAbsent(recipeId, k -> new ArrayList<>());
+            // A user's new review of the recipe replaces their old one and becomes the newest
+            reviews.removeIf(r -> r.getAuthorUsername().equalsIgnoreCase(user));
+            reviews.add(review);
+            if (i % 5000 == 0) {
+                assertSame(model, repository, "after " + i + " operations");
+            }
+        }
+        assertSame(model, repository, "at the end");
+    }
+
+    private static void assertSame(Map<Long, List<Review>> model, ReviewRepository repository, String when) {
+        int total = 0;
+        Map<String, Integer> byUser = new HashMap<>();
+        Map<String, TreeSet<Long>> liked = new HashMap<>();
+        List<RatingLeaderboard.Entry> expectedTop = new ArrayList<>();
+        for (long recipeId = 1; recipeId <= RECIPES; recipeId++) {
+            Recipe recipe = recipe(recipeId);
+            List<Review> expected = model.getOrDefault(recipeId, List.of());
+            List<Review> actual = repository.getReviews(recipe);
+            Check.equal(describe(expected), describe(actual), when + ": reviews of " + recipeId);
+            Check.equal(expected.size(), repository.getReviewCount(recipe), when + ": count of " + recipeId);
+            List<Review> newestFirst = new ArrayList<>(expected);
+            java.util.Collections.reverse(newestFirst);
+            List<Review> page = newestFirst.subList(Math.min(3, expected.size()), Math.min(8, expected.size()));
+            Check.equal(describe(page), describe(repository.getReviews(recipe, 3, 5)),
+                    when + ": page of " + recipeId);
+            long sum = 0;
+            int[] histogram = new int[5];
+            for (Review review : expected) {
+                sum += review.getRating();
+                histogram[review.getRating() - 1]++;
+                byUser.merge(review.getAuthorUsername(), 1, Integer::sum);
+                if (review.getRating() >= 4) {
+                    liked.computeIfAbsent(review.getAuthorUsername(), k -> new TreeSet<>()).add(recipeId);
+                }
+            }
+            double average = expected.isEmpty() ? -1 : (double) sum / expected.size();
+            Check.that(Math.abs(average - repository.getAverageRating(recipe)) < 1e-9,
+                    when + ": average of " + recipeId);
+            if (!expected.isEmpty()) {
+                expectedTop.add(new RatingLeaderboard.Entry(recipeId, histogram));
+            }
+            total += expected.size();
+        }
+        Check.equal(total, repository.getTotalReviewCount(), when + ": total");
+        for (int u = 0; u < USERS; u++) {
+            // Usernames match case-insensitively
+            Check.equal(byUser.getOrDefault("u" + u, 0), repository.getReviewCountByUser("U" + u),
+                    when + ": reviews by u" + u);
+        }
+        Map<String, TreeSet<Long>> actualLiked = new HashMap<>();
+        for (Map.Entry<String, long[]> e : repository.getRatedIdsByUser(4).entrySet()) {
+            TreeSet<Long> ids = new TreeSet<>();
+            for (long id : e.getValue()) {
+                ids.add(id);
+            }
+            actualLiked.put(e.getKey(), ids);
+        }
+        Check.equal(liked, actualLiked, when + ": recipes rated 4 or more");
+
+        expectedTop.sort((a, b) -> a.getScore() != b.getScore()
+                ? Double.compare(b.getScore(), a.getScore()) : Long.compare(a.getRecipeId(), b.getRecipeId()));
+        List<RatingLeaderboard.Entry> top = repository.getTopRated(10);
+        Check.equal(Math.min(10, expectedTop.size()), top.size(), when + ": leaderboard size");
+        for (int i = 0; i < top.size(); i++) {
+            Check.equal(expectedTop.get(i).getRecipeId(), top.get(i).getRecipeId(), when + ": leaderboard " + i);
+            Check.equal(expectedTop.get(i).getReviewCount(), top.get(i).getReviewCount(),
+                    when + ": leaderboard count " + i);
+        }
+    }
+
+    private static Recipe recipe(long id) {
+        Recipe recipe = new Recipe("t", "i", "s", "a", true);
+        recipe.attach(null, id);
+        return recipe;
+    }
+
+    private static List<String> describe(List<Review> reviews) {
+        List<String> result = new ArrayList<>();
+        for (Review review : reviews) {
+            result.add(review.getAuthorUsername() + "|" + review.getRating() + "|" + review.getComment() + "|"
+                    + review.getCreatedAt());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,240 @@
+package app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Round trips through the {@link SnapshotFile} format, its section and
+ * footer checks, and recovery of a {@link PersistentStore} from a snapshot
+ * plus the log written after it.
+ */
+public class SnapshotFileTest {
+
+    private static final int FOOTER_TAIL_BYTES = 16;
+    private static final int FOOTER_ENTRY_BYTES = 24;
+
+    public static void main(String[] args) throws Exception {
+        roundTrip();
+        damagedSectionsAreDetected();
+        damagedFooterMakesFileUnreadable();
+        storeRecoversFromSnapshotAndLog();
+        System.out.println("SnapshotFileTest OK");
+    }
+
+    private static void roundTrip() throws IOException {
+        Repositories original = sample();
+        Path file = Check.tempDir("snapshot").resolve("snapshot.dat");
+        original.write(file);
+        Check.that(SnapshotFile.isReadable(file), "written snapshot is readable");
+
+        Repositories loaded = new Repositories();
+        SnapshotFile.read(file, loaded.users, loaded.recipes, loaded.reviews, loaded.favorites);
+        assertSame(original, loaded);
+        Check.that(loaded.users.authenticate("Ana", "secret") != null, "password hash survives");
+        Check.that(loaded.users.authenticate("Ana", "wrong") == null, "wrong password still fails");
+    }
+
+    private static void damagedSectionsAreDetected() throws IOException {
+        Path dir = Check.tempDir("snapshot");
+        Path file = dir.resolve("snapshot.dat");
+        sample().write(file);
+        byte[] good = Files.readAllBytes(file);
+        Map<Integer, long[]> sections = sections(file);
+        Check.equal(6, sections.size(), "section count");
+        for (Map.Entry<Integer, long[]> section : sections.entrySet()) {
+            long[] at = section.getValue();
+            Files.write(file, good);
+            flipByte(file, at[0] + at[1] / 2);
+            // The footer still checks out; the section's own CRC does not
+            Check.that(SnapshotFile.isReadable(file), "footer intact with section " + section.getKey() + " damaged");
+            Repositories loaded = new Repositories();
+            Check.fails(IOException.class,
+                    () -> SnapshotFile.read(file, loaded.users, loaded.recipes, loaded.reviews, loaded.favorites),
+                    "section " + section.getKey() + " damaged");
+        }
+    }
+
+    private static void damagedFooterMakesFileUnreadable() throws IOException {
+        Path file = Check.tempDir("snapshot").resolve("snapshot.dat");
+        sample().write(file);
+        byte[] good = Files.readAllBytes(file);
+
+        flipByte(file, good.length - FOOTER_TAIL_BYTES - 3);
+        Check.that(!SnapshotFile.isReadable(file), "footer entry damaged");
+
+        Files.write(file, Arrays.copyOf(good, good.length - 1));
+        Check.that(!SnapshotFile.isReadable(file), "truncated file");
+
+        Files.write(file, Arrays.copyOf(good, 10));
+        Check.that(!SnapshotFile.isReadable(file), "file shorter than header and footer");
+    }
+
+    private static void storeRecoversFromSnapshotAndLog() throws IOException {
+        Path dir = Check.tempDir("store");
+        PersistentStore store = PersistentStore.open(dir);
+        Recipe soup = new Recipe("Soup", "water, salt", "Boil.", "ana", true);
+        store.getRecipeStore().addRecipe(soup);
+        store.getReviewStore().addReview(soup, new Review("bob", 4, "Fine", 1_000L));
+        store.checkpoint();
+
+        // Logged after the snapshot, then the process dies without closing
+        Recipe stew = new Recipe("Stew", "beans", "Simmer.", "bob", false);
+        store.getRecipeStore().addRecipe(stew);
+        soup.setTitle("Better soup");
+        store.getReviewStore().addReview(soup, new Review("bob", 5, "Great now", 2_000L));
+        User bob = User.withPasswordHash("bob", PasswordHash.create("pw"), User.Role.EXPLORER);
+        store.getFavoriteStore().addFavorite(bob, stew);
+        Path crashed = Check.tempDir("crashed");
+        try (var files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                Files.copy(f, crashed.resolve(f.getFileName()));
+            }
+        }
+        store.close();
+
+        PersistentStore recovered = PersistentStore.open(crashed);
+        try {
+            RecipeStore recipes = recovered.getRecipeStore();
+            Check.equal("Better soup", recipes.getRecipe(soup.getId()).getTitle(), "edit from the log");
+            Recipe recoveredStew = recipes.getRecipe(stew.getId());
+            Check.that(recoveredStew != null && !recoveredStew.isApproved(), "recipe added after the snapshot");
+            Check.equal("beans", recoveredStew.getIngredients(), "text of a recipe from the log");
+            List<Review> reviews = recovered.getReviewStore().getReviews(recipes.getRecipe(soup.getId()));
+            Check.equal(1, reviews.size(), "re-review replaces the snapshot's review");
+            Check.equal("Great now", reviews.get(0).getComment(), "review text from the log");
+            Check.equal(List.of(recoveredStew), recovered.getFavoriteStore().getFavorites(bob),
+                    "favourite from the log");
+        } finally {
+            recovered.close();
+        }
+    }
+
+    /**
+     * Repositories covering the format's corners: null and non-ASCII text,
+     * text longer than the short-string limit, ratings, pending recipes,
+     * several reviews per recipe and favourites of several users.
+     */
+    private static Repositories sample() {
+        Repositories r = new Repositories();
+        r.users.addUser(User.withPasswordHash("Ana", PasswordHash.create("secret"), User.Role.ADMIN));
+        r.users.addUser(User.withPasswordHash("bob", PasswordHash.create("pw"), User.Role.EXPLORER));
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            longText.append("step ").append(i).append(". ");
+        }
+        List<Recipe> recipes = new ArrayList<>();
+        recipes.add(new Recipe("Crème brûlée", "cream, sugar, œufs", "Bake 🍮", "Ana", true));
+        recipes.add(new Recipe("Long one", "flour", longText.toString(), "bob", false));
+        recipes.add(new Recipe("", "", "", "bob", true));
+        recipes.add(new Recipe("No text", null, null, "Ana", true));
+        for (Recipe recipe : recipes) {
+            r.recipes.addRecipe(recipe);
+        }
+        recipes.get(0).setRating(5);
+        r.reviews.addReview(recipes.get(0), new Review("bob", 5, "Superbe", 1_600_000_000_000L));
+        r.reviews.addReview(recipes.get(0), new Review("Ana", 3, "", 1_600_000_001_000L));
+        r.reviews.addReview(recipes.get(1), new Review("bob", 1, null, 1_600_000_002_000L));
+        r.favorites.addFavorite("ana", recipes.get(0));
+        r.favorites.addFavorite("ana", recipes.get(1));
+        r.favorites.addFavorite("bob", recipes.get(1));
+        return r;
+    }
+
+    private static void assertSame(Repositories expected, Repositories actual) {
+        List<User> expectedUsers = expected.users.getUsers();
+        List<User> actualUsers = actual.users.getUsers();
+        Check.equal(expectedUsers.size(), actualUsers.size(), "user count");
+        for (int i = 0; i < expectedUsers.size(); i++) {
+            User e = expectedUsers.get(i);
+            User a = actualUsers.get(i);
+            Check.equal(e.getUsername() + " " + e.getRole() + " " + e.getPasswordHash(),
+                    a.getUsername() + " " + a.getRole() + " " + a.getPasswordHash(), "user " + i);
+        }
+        Check.equal(expected.recipes.getNextId(), actual.recipes.getNextId(), "next id");
+        List<Recipe> expectedRecipes = expected.recipes.getAllRecipes();
+        List<Recipe> actualRecipes = actual.recipes.getAllRecipes();
+        Check.equal(expectedRecipes.size(), actualRecipes.size(), "recipe count");
+        for (int i = 0; i < expectedRecipes.size(); i++) {
+            Check.equal(describe(expectedRecipes.get(i)), describe(actualRecipes.get(i)), "recipe " + i);
+            Check.equal(describe(expected.reviews.getReviews(expectedRecipes.get(i))),
+                    describe(actual.reviews.getReviews(actualRecipes.get(i))), "reviews of recipe " + i);
+        }
+        Check.equal(ids(expected.favorites.getFavoriteIdsByUser()), ids(actual.favorites.getFavoriteIdsByUser()),
+                "favourites");
+    }
+
+    private static String describe(Recipe r) {
+        return r.getId() + "|" + r.getTitle() + "|" + r.getIngredients() + "|" + r.getInstructions() + "|"
+                + r.getAuthorUsername() + "|" + r.isApproved() + "|" + r.getRating();
+    }
+
+    private static String describe(List<Review> reviews) {
+        StringBuilder s = new StringBuilder();
+        for (Review review : reviews) {
+            s.append(review.getAuthorUsername()).append('|').append(review.getRating()).append('|')
+                    .append(review.getComment()).append('|').append(review.getCreatedAt()).append(';');
+        }
+        return s.toString();
+    }
+
+    private static Map<String, List<Long>> ids(Map<String, long[]> byUser) {
+        Map<String, List<Long>> result = new TreeMap<>();
+        for (Map.Entry<String, long[]> e : byUser.entrySet()) {
+            List<Long> ids = new ArrayList<>();
+            for (long id : e.getValue()) {
+                ids.add(id);
+            }
+            result.put(e.getKey(), ids);
+        }
+        return result;
+    }
+
+    /**
+     * Section id to {offset, length}, read from the footer.
+     */
+    private static Map<Integer, long[]> sections(Path file) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int count = bytes.getInt(bytes.capacity() - FOOTER_TAIL_BYTES);
+        int start = bytes.capacity() - FOOTER_TAIL_BYTES - count * FOOTER_ENTRY_BYTES;
+        Map<Integer, long[]> sections = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            int at = start + i * FOOTER_ENTRY_BYTES;
+            sections.put(bytes.getInt(at), new long[] {bytes.getLong(at + 4), bytes.getLong(at + 12)});
+        }
+        return sections;
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.put(0, (byte) ~b.get(0));
+            b.rewind();
+            channel.write(b, offset);
+        }
+    }
+
+    private static final class Repositories {
+        final UserRepository users = new UserRepository(false);
+        final RecipeRepository recipes = new RecipeRepository(false);
+        final ReviewRepository reviews = new ReviewRepository();
+        final FavoriteRepository favorites = new FavoriteRepository();
+
+        void write(Path file) throws IOException {
+            List<Recipe> all = recipes.getAllRecipes();
+            long[] handles = new long[all.size()];
+            Arrays.fill(handles, -1);
+            SnapshotFile.write(file, 1, users.getUsers(), all, handles, null, recipes.getNextId(),
+                    reviews.getAllReviewsByRecipe(), favorites.getFavoriteIdsByUser());
+        }
+    }
+}
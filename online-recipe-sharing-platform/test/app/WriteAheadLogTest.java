@@ -0,0 +1,181 @@
+package app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Framing, recovery from torn and corrupt frames, generations and group
+ * commit of {@link WriteAheadLog}.
+ */
+public class WriteAheadLogTest {
+
+    private static final int FRAME_BYTES = 8;
+
+    public static void main(String[] args) throws Exception {
+        recordsReadBackInOrder();
+        readStopsAtTornTail();
+        readStopsAtCorruptRecord();
+        rotateStartsNextGeneration();
+        concurrentWritersShareTheLog();
+        System.out.println("WriteAheadLogTest OK");
+    }
+
+    private static void recordsReadBackInOrder() throws IOException {
+        Path dir = Check.tempDir("wal");
+        List<byte[]> written = records(new Random(1), 200);
+        // Larger than the 64 KB append buffer
+        written.add(bytes(new Random(2), 200_000));
+        written.add(new byte[0]);
+        WriteAheadLog wal = new WriteAheadLog(dir, 1);
+        long seq = 0;
+        for (byte[] record : written) {
+            seq = wal.append(record);
+        }
+        wal.sync(seq);
+        long expectedBytes = 0;
+        for (byte[] record : written) {
+            expectedBytes += FRAME_BYTES + record.length;
+        }
+        Check.equal(expectedBytes, wal.getFileBytes(), "file bytes after sync");
+        wal.close();
+        assertRecords(written, WriteAheadLog.read(WriteAheadLog.file(dir, 1)), "records after close");
+
+        // Reopening the generation appends behind what is there
+        wal = new WriteAheadLog(dir, 1);
+        byte[] more = {1, 2, 3};
+        wal.sync(wal.append(more));
+        wal.close();
+        written.add(more);
+        assertRecords(written, WriteAheadLog.read(WriteAheadLog.file(dir, 1)), "records after reopen");
+    }
+
+    private static void readStopsAtTornTail() throws IOException {
+        Path dir = Check.tempDir("wal");
+        List<byte[]> written = records(new Random(3), 50);
+        Path file = write(dir, written);
+        long size = Files.size(file);
+        byte[] last = written.get(written.size() - 1);
+        // Cut the last record short, then cut into its frame header
+        for (long cut : new long[] {1, last.length, last.length + FRAME_BYTES / 2}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size - cut);
+            }
+            assertRecords(written.subList(0, written.size() - 1), WriteAheadLog.read(file), "torn by " + cut);
+        }
+    }
+
+    private static void readStopsAtCorruptRecord() throws IOException {
+        Path dir = Check.tempDir("wal");
+        List<byte[]> written = records(new Random(4), 50);
+        Path file = write(dir, written);
+        long offset = 0;
+        for (int i = 0; i < 20; i++) {
+            offset += FRAME_BYTES + written.get(i).length;
+        }
+        flipByte(file, offset + FRAME_BYTES);
+        assertRecords(written.subList(0, 20), WriteAheadLog.read(file), "payload damaged in record 20");
+
+        file = write(Check.tempDir("wal"), written);
+        // A length running past the end of the file
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), offset);
+        }
+        assertRecords(written.subList(0, 20), WriteAheadLog.read(file), "length damaged in record 20");
+    }
+
+    private static void rotateStartsNextGeneration() throws IOException {
+        Path dir = Check.tempDir("wal");
+        WriteAheadLog wal = new WriteAheadLog(dir, 7);
+        wal.append(new byte[] {1});
+        long last = wal.append(new byte[] {2});
+        Check.equal(last, wal.rotate(8), "rotate returns the old generation's last sequence number");
+        Check.equal(8L, wal.getGeneration(), "generation after rotate");
+        Check.equal(0L, wal.getFileBytes(), "new generation starts empty");
+        wal.sync(wal.append(new byte[] {3}));
+        wal.close();
+        assertRecords(List.of(new byte[] {1}, new byte[] {2}), WriteAheadLog.read(WriteAheadLog.file(dir, 7)),
+                "old generation");
+        assertRecords(List.of(new byte[] {3}), WriteAheadLog.read(WriteAheadLog.file(dir, 8)), "new generation");
+    }
+
+    private static void concurrentWritersShareTheLog() throws Exception {
+        Path dir = Check.tempDir("wal");
+        WriteAheadLog wal = new WriteAheadLog(dir, 1);
+        int threads = 8;
+        int perThread = 300;
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int writer = t;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    wal.sync(wal.append(ByteBuffer.allocate(8).putInt(writer).putInt(i).array()));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        wal.close();
+        List<byte[]> read = WriteAheadLog.read(WriteAheadLog.file(dir, 1));
+        Check.equal(threads * perThread, read.size(), "records from all writers");
+        int[] next = new int[threads];
+        for (byte[] record : read) {
+            ByteBuffer in = ByteBuffer.wrap(record);
+            int writer = in.getInt();
+            Check.equal(next[writer]++, in.getInt(), "writer " + writer + " records in order");
+        }
+    }
+
+    private static Path write(Path dir, List<byte[]> records) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(dir, 1);
+        long seq = 0;
+        for (byte[] record : records) {
+            seq = wal.append(record);
+        }
+        wal.sync(seq);
+        wal.close();
+        return WriteAheadLog.file(dir, 1);
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.put(0, (byte) ~b.get(0));
+            b.rewind();
+            channel.write(b, offset);
+        }
+    }
+
+    private static List<byte[]> records(Random random, int count) {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(bytes(random, 1 + random.nextInt(300)));
+        }
+        return records;
+    }
+
+    private static byte[] bytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void assertRecords(List<byte[]> expected, List<byte[]> actual, String what) {
+        Check.equal(expected.size(), actual.size(), what + ": record count");
+        for (int i = 0; i < expected.size(); i++) {
+            Check.that(Arrays.equals(expected.get(i), actual.get(i)), what + ": record " + i + " differs");
+        }
+    }
+}